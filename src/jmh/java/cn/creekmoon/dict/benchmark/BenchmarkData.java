@@ -0,0 +1,147 @@
+package cn.creekmoon.dict.benchmark;
+
+import cn.creekmoon.dict.Dict;
+import cn.creekmoon.dict.DictMapping;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基准测试共用的字典数据和DTO
+ */
+public class BenchmarkData {
+
+    /*状态类字典  key为小整数*/
+    public static final String STATUS = "benchStatus";
+
+    /*地区类字典  key为字符串编码*/
+    public static final String REGION = "benchRegion";
+
+    /*大字典  key数量由参数决定*/
+    public static final String LARGE = "benchLarge";
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * 初始化字典数据和业务包名
+     *
+     * @param largeSize 大字典的key数量
+     */
+    public static void init(int largeSize) {
+        Dict.setGlobalBusinessPackageNames("cn.creekmoon.dict.benchmark");
+        Map<String, Map<String, String>> dictMap = new HashMap<>();
+        Map<String, String> status = new HashMap<>();
+        for (int i = 0; i < 10; i++) {
+            status.put(String.valueOf(i), "状态" + i);
+        }
+        dictMap.put(STATUS, status);
+        Map<String, String> region = new HashMap<>();
+        for (int i = 0; i < 300; i++) {
+            region.put("R" + i, "地区" + i);
+        }
+        dictMap.put(REGION, region);
+        dictMap.put(LARGE, entries(largeSize));
+        Dict.addDictMap(dictMap);
+    }
+
+    /**
+     * 生成指定数量的字典项  k=数字 v=值+数字
+     */
+    public static Map<String, String> entries(int size) {
+        Map<String, String> entries = new HashMap<>(Math.max(16, (int) (size / 0.75f) + 1));
+        for (int i = 0; i < size; i++) {
+            entries.put(String.valueOf(i), "值" + i);
+        }
+        return entries;
+    }
+
+    public static FlatDTO flat(int i) {
+        FlatDTO dto = new FlatDTO();
+        dto.setStatus(String.valueOf(i % 10));
+        dto.setRegion("R" + (i % 300));
+        dto.setLevel(i % 10);
+        dto.setTags((i % 10) + "," + ((i + 1) % 10) + "," + ((i + 2) % 10));
+        return dto;
+    }
+
+    public static NestedDTO nested(int i) {
+        NestedDTO dto = new NestedDTO();
+        dto.setStatus(String.valueOf(i % 10));
+        dto.setFlat(flat(i));
+        dto.setChild(new ChildDTO());
+        dto.getChild().setRegion("R" + ((i + 7) % 300));
+        dto.getChild().setFlat(flat(i + 1));
+        return dto;
+    }
+
+    public static CollectionDTO collection(int i, int itemCount) {
+        CollectionDTO dto = new CollectionDTO();
+        dto.setStatus(String.valueOf(i % 10));
+        for (int j = 0; j < itemCount; j++) {
+            dto.getItems().add(flat(i + j));
+            dto.getStatusList().add(String.valueOf(j % 10));
+        }
+        return dto;
+    }
+
+    /**
+     * 只有普通字段
+     */
+    @Data
+    public static class FlatDTO implements Dict {
+
+        @DictMapping(dictCode = STATUS)
+        String status;
+
+        @DictMapping(dictCode = REGION)
+        String region;
+
+        @DictMapping(dictCode = STATUS)
+        Integer level;
+
+        @DictMapping(dictCode = STATUS)
+        String tags;
+    }
+
+    /**
+     * 两层嵌套的业务对象
+     */
+    @Data
+    public static class NestedDTO implements Dict {
+
+        @DictMapping(dictCode = STATUS)
+        String status;
+
+        FlatDTO flat;
+
+        ChildDTO child;
+    }
+
+    @Data
+    public static class ChildDTO {
+
+        @DictMapping(dictCode = REGION)
+        String region;
+
+        FlatDTO flat;
+    }
+
+    /**
+     * 包含业务对象集合和值集合
+     */
+    @Data
+    public static class CollectionDTO implements Dict {
+
+        @DictMapping(dictCode = STATUS)
+        String status;
+
+        List<FlatDTO> items = new ArrayList<>();
+
+        @DictMapping(dictCode = STATUS)
+        List<String> statusList = new ArrayList<>();
+    }
+}
@@ -0,0 +1,58 @@
+package cn.creekmoon.dict.benchmark;
+
+import cn.creekmoon.dict.Dict;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个字典值的正向/反向查找
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DictLookupBenchmark {
+
+    @Param({"1000"})
+    int largeSize;
+
+    String[] keys;
+
+    String[] values;
+
+    int index;
+
+    @Setup
+    public void setup() {
+        BenchmarkData.init(largeSize);
+        keys = new String[1024];
+        values = new String[1024];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = String.valueOf(i % largeSize);
+            values[i] = "值" + (i % largeSize);
+        }
+    }
+
+    @Benchmark
+    public String searchDictValue() {
+        return Dict.searchDictValue(BenchmarkData.LARGE, keys[index++ & 1023]);
+    }
+
+    @Benchmark
+    public String searchDictValueNumeric() {
+        return Dict.searchDictValue(BenchmarkData.LARGE, (long) (index++ & 1023) % largeSize);
+    }
+
+    @Benchmark
+    public String searchDictValueMiss() {
+        return Dict.searchDictValue(BenchmarkData.REGION, keys[index++ & 1023]);
+    }
+
+    @Benchmark
+    public String searchDictKey() {
+        return Dict.searchDictKey(BenchmarkData.LARGE, values[index++ & 1023]);
+    }
+}
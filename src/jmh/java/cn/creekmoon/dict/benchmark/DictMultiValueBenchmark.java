@@ -0,0 +1,78 @@
+package cn.creekmoon.dict.benchmark;
+
+import cn.creekmoon.dict.DefaultDictFieldTranslator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 默认翻译器的多值翻译  "1,2,3" -> "状态1,状态2,状态3"
+ * <p>
+ * repeated: 输入反复出现, 主要命中结果缓存;
+ * distinct: 输入的种类超过缓存容量, 主要测量逐个扫描翻译的开销.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DictMultiValueBenchmark {
+
+    /*每个输入包含的值数量*/
+    @Param({"3", "20"})
+    int valueCount;
+
+    String[] repeatedInputs;
+
+    String[] distinctInputs;
+
+    int index;
+
+    @Setup
+    public void setup() {
+        BenchmarkData.init(1000);
+        repeatedInputs = new String[16];
+        for (int i = 0; i < repeatedInputs.length; i++) {
+            repeatedInputs[i] = input(i, 10, false);
+        }
+        distinctInputs = new String[1 << 15];
+        for (int i = 0; i < distinctInputs.length; i++) {
+            distinctInputs[i] = input(i, 1000, true);
+        }
+    }
+
+    @Benchmark
+    public String repeated() {
+        return DefaultDictFieldTranslator.translate(BenchmarkData.STATUS, "", repeatedInputs[index++ & 15]);
+    }
+
+    @Benchmark
+    public String distinct() {
+        return DefaultDictFieldTranslator.translate(BenchmarkData.LARGE, "", distinctInputs[index++ & (distinctInputs.length - 1)]);
+    }
+
+    @Benchmark
+    public String repeatedWithSuffix() {
+        return DefaultDictFieldTranslator.translate(BenchmarkData.STATUS, "(已确认)", repeatedInputs[index++ & 15]);
+    }
+
+    /**
+     * @param seed   种子
+     * @param bound  值的范围
+     * @param unique 是否在末尾加上种子, 保证不同种子的输入互不相同
+     */
+    private String input(int seed, int bound, boolean unique) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < valueCount; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append((seed * 31 + i * 7) % bound);
+        }
+        if (unique) {
+            builder.append(',').append(seed);
+        }
+        return builder.toString();
+    }
+}
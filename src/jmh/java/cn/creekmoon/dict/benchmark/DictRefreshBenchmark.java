@@ -0,0 +1,51 @@
+package cn.creekmoon.dict.benchmark;
+
+import cn.creekmoon.dict.Dict;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * addDictMap 替换一个字典类型的开销  包含复制字典项、构建数字索引和反向字典、发布新快照
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DictRefreshBenchmark {
+
+    /*被替换的字典类型的key数量*/
+    @Param({"10", "1000", "100000"})
+    int entryCount;
+
+    Map<String, Map<String, String>> numericDict;
+
+    Map<String, Map<String, String>> textDict;
+
+    @Setup
+    public void setup() {
+        BenchmarkData.init(1000);
+        numericDict = new HashMap<>();
+        numericDict.put("benchRefreshNumeric", BenchmarkData.entries(entryCount));
+        Map<String, String> text = new HashMap<>();
+        for (int i = 0; i < entryCount; i++) {
+            text.put("K" + i, "值" + i);
+        }
+        textDict = new HashMap<>();
+        textDict.put("benchRefreshText", text);
+    }
+
+    @Benchmark
+    public void addDictMapNumeric() {
+        Dict.addDictMap(numericDict);
+    }
+
+    @Benchmark
+    public void addDictMapText() {
+        Dict.addDictMap(textDict);
+    }
+}
@@ -0,0 +1,157 @@
+package cn.creekmoon.dict.benchmark;
+
+import cn.creekmoon.dict.Dict;
+import cn.creekmoon.dict.DictJSONWriterFilter;
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * getDict / fillSelf、批量接口以及序列化
+ * <p>
+ * fillSelf 会修改对象, 所以每次调用都新建DTO. 新建DTO本身的耗时见 create* 基准, 对比时需要扣除.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DictTranslateBenchmark {
+
+    /*集合DTO中的元素数量*/
+    @Param({"100"})
+    int itemCount;
+
+    /*批量接口的行数*/
+    @Param({"1000"})
+    int rowCount;
+
+    BenchmarkData.FlatDTO flat;
+
+    BenchmarkData.NestedDTO nested;
+
+    BenchmarkData.CollectionDTO collection;
+
+    List<BenchmarkData.FlatDTO> rows;
+
+    @Setup
+    public void setup() {
+        BenchmarkData.init(1000);
+        flat = BenchmarkData.flat(1);
+        nested = BenchmarkData.nested(1);
+        collection = BenchmarkData.collection(1, itemCount);
+        rows = createRows();
+    }
+
+    @Benchmark
+    public JSONObject getDictFlat() {
+        return Dict.getDict(flat);
+    }
+
+    @Benchmark
+    public JSONObject getDictNested() {
+        return Dict.getDict(nested);
+    }
+
+    @Benchmark
+    public JSONObject getDictCollection() {
+        return Dict.getDict(collection);
+    }
+
+    @Benchmark
+    public BenchmarkData.FlatDTO createFlat() {
+        return BenchmarkData.flat(1);
+    }
+
+    @Benchmark
+    public BenchmarkData.FlatDTO fillSelfFlat() {
+        BenchmarkData.FlatDTO dto = BenchmarkData.flat(1);
+        Dict.fillSelf(dto);
+        return dto;
+    }
+
+    @Benchmark
+    public BenchmarkData.NestedDTO createNested() {
+        return BenchmarkData.nested(1);
+    }
+
+    @Benchmark
+    public BenchmarkData.NestedDTO fillSelfNested() {
+        BenchmarkData.NestedDTO dto = BenchmarkData.nested(1);
+        Dict.fillSelf(dto);
+        return dto;
+    }
+
+    @Benchmark
+    public BenchmarkData.CollectionDTO createCollection() {
+        return BenchmarkData.collection(1, itemCount);
+    }
+
+    @Benchmark
+    public BenchmarkData.CollectionDTO fillSelfCollection() {
+        BenchmarkData.CollectionDTO dto = BenchmarkData.collection(1, itemCount);
+        Dict.fillSelf(dto);
+        return dto;
+    }
+
+    @Benchmark
+    public List<JSONObject> getDictRows() {
+        List<JSONObject> result = new ArrayList<>(rows.size());
+        for (BenchmarkData.FlatDTO row : rows) {
+            result.add(Dict.getDict(row));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<JSONObject> translateAllRows() {
+        return Dict.translateAll(rows, BenchmarkData.FlatDTO.class);
+    }
+
+    @Benchmark
+    public List<BenchmarkData.FlatDTO> fillSelfRows() {
+        List<BenchmarkData.FlatDTO> result = createRows();
+        Dict.fillSelf(result);
+        return result;
+    }
+
+    @Benchmark
+    public List<BenchmarkData.FlatDTO> fillAllRows() {
+        List<BenchmarkData.FlatDTO> result = createRows();
+        Dict.fillAll(result, BenchmarkData.FlatDTO.class);
+        return result;
+    }
+
+    @Benchmark
+    public String toJSONStringCollection() {
+        return JSON.toJSONString(collection);
+    }
+
+    @Benchmark
+    public String toJSONStringCollectionWithFilter() {
+        return DictJSONWriterFilter.toJSONString(collection);
+    }
+
+    @Benchmark
+    public String toJSONStringRows() {
+        return JSON.toJSONString(rows);
+    }
+
+    @Benchmark
+    public String toJSONStringRowsWithFilter() {
+        return DictJSONWriterFilter.toJSONString(rows);
+    }
+
+    private List<BenchmarkData.FlatDTO> createRows() {
+        List<BenchmarkData.FlatDTO> result = new ArrayList<>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            result.add(BenchmarkData.flat(i));
+        }
+        return result;
+    }
+}
@@ -4,8 +4,8 @@ package cn.creekmoon.dict;
 import cn.hutool.core.util.StrUtil;
 
 import java.lang.reflect.Field;
-import java.util.Arrays;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 默认字段翻译器
@@ -14,18 +14,55 @@ import java.util.stream.Collectors;
  * 支持单值和多值翻译：
  * - 单值：直接翻译
  * - 多值：检测到逗号分隔的值时，对每个值进行翻译后重新拼接
+ * <p>
+ * 多值翻译只扫描一遍输入, 结果写入线程内复用的StringBuilder; 相同的多值输入会命中结果缓存, 字典版本变化时缓存失效.
  */
 public class DefaultDictFieldTranslator implements DictFieldTranslator {
 
+    /*多值翻译结果缓存的最大条数  超过后按CLOCK淘汰最近没有命中的结果*/
+    static final int MULTI_VALUE_CACHE_SIZE = 10_000;
+
+    /*复用的StringBuilder超过这个容量就不再复用, 避免线程长期持有大对象*/
+    private static final int MAX_REUSED_BUILDER_CAPACITY = 8192;
+
+    private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    /*多值翻译结果缓存  只对应一个字典版本*/
+    private static volatile MultiValueCache multiValueCache = new MultiValueCache(null, -1L);
+
 
     @Override
     public String searchDictValue(Object dictObject, Field sourcefield, Object fieldValue, DictMapping annotationValue) {
 
+        //找dictCode
+        String dictCode = annotationValue.dictCode().equals(DictMapping.AUTO_DICT_CODE)
+                ? sourcefield.getName()
+                : annotationValue.dictCode();
+
+        return translate(dictCode, annotationValue.suffix(), fieldValue);
+    }
+
+    /**
+     * 默认翻译逻辑  编译期生成的翻译器会直接调用此方法
+     *
+     * @param dictCode   字典类型编码
+     * @param suffix     后缀
+     * @param fieldValue 来源字段本身的值
+     * @return
+     */
+    public static String translate(String dictCode, String suffix, Object fieldValue) {
+
         // 如果字段值为空，直接返回null
         if (fieldValue == null) {
             return null;
         }
 
+        // 整数类型不可能是多值, 直接按数字查找
+        if (fieldValue instanceof Integer || fieldValue instanceof Long || fieldValue instanceof Short || fieldValue instanceof Byte) {
+            String result = Dict.searchDictValueOrSelf(dictCode, fieldValue);
+            return suffix.isEmpty() ? result : result + suffix;
+        }
+
         // 转换为字符串
         String fieldValueStr = fieldValue.toString();
 
@@ -34,27 +71,9 @@ public class DefaultDictFieldTranslator implements DictFieldTranslator {
             return fieldValueStr;
         }
 
-        //如果定义了后缀
-        String suffix = annotationValue.suffix();
-
-        //找dictCode
-        String dictCode = annotationValue.dictCode().equals(DictMapping.AUTO_DICT_CODE)
-                ? sourcefield.getName()
-                : annotationValue.dictCode();
-
         // 检测是否为多值（包含逗号）
-        if (fieldValueStr.contains(",")) {
-            // 按逗号分隔字段值
-            String[] values = fieldValueStr.split(",");
-
-            // 对每个值进行字典翻译，并添加后缀
-            String translatedResult = Arrays.stream(values)
-                    .map(String::trim)  // 去除空格
-                    .map(value -> Dict.searchDictValueOrSelf(dictCode, value))  // 翻译每个值，如果没找到则返回原值
-                    .map(translatedValue -> translatedValue + suffix)  // 给每个翻译后的值添加后缀
-                    .collect(Collectors.joining(","));  // 用逗号重新拼接
-
-            return translatedResult;
+        if (fieldValueStr.indexOf(',') >= 0) {
+            return translateMultiValue(dictCode, suffix, fieldValueStr);
         } else {
             // 单值翻译
             //根据dictCode  dictKey 找到 dictValue
@@ -64,5 +83,189 @@ public class DefaultDictFieldTranslator implements DictFieldTranslator {
 
     }
 
+    /**
+     * 多值翻译  1,2,3 -> 未开始,进行中,已完成
+     * 每个值去掉首尾空白后翻译, 没找到则保留原值, 每个值后面都加上后缀. 与 String.split(",") 一致, 末尾的空值会被忽略
+     */
+    private static String translateMultiValue(String dictCode, String suffix, String input) {
+        // 每个引擎使用自己的缓存, 不同租户交替翻译时不会互相清空
+        DictEngine engine = DictEngine.current();
+        DictStore store = engine == null ? DictStoreConfig.store : engine.store;
+        // 默认存储从同一个快照中取版本号和数据, 其他存储按字典存储接口查找
+        DictSnapshot snapshot = store instanceof DictSnapshotStore snapshotStore ? snapshotStore.current() : null;
+        long version = snapshot == null ? store.getVersion() : snapshot.getVersion();
+        MultiValueCache cache = engine == null ? multiValueCache : engine.multiValueCache;
+        if (cache == null || cache.store != store || cache.version != version) {
+            cache = new MultiValueCache(store, version);
+            if (engine == null) {
+                multiValueCache = cache;
+            } else {
+                engine.multiValueCache = cache;
+            }
+        }
+        MultiValueKey key = new MultiValueKey(dictCode, suffix, input);
+        String result = cache.get(key);
+        if (result != null) {
+            DictMetrics metrics = DictMetricsConfig.metrics;
+            if (metrics != null) {
+                metrics.cachedValue(dictCode);
+            }
+            return result;
+        }
+        result = scanMultiValue(dictCode, store, snapshot == null ? null : snapshot.getTable(dictCode), suffix, input);
+        cache.put(key, result);
+        return result;
+    }
+
+    private static String scanMultiValue(String dictCode, DictStore store, DictTable table, String suffix, String input) {
+        // 去掉末尾的逗号, 等同于split忽略末尾的空值
+        int end = input.length();
+        while (end > 0 && input.charAt(end - 1) == ',') {
+            end--;
+        }
+        if (end == 0) {
+            return "";
+        }
+        DictMetrics metrics = DictMetricsConfig.metrics;
+        StringBuilder builder = BUILDER.get();
+        builder.setLength(0);
+        int start = 0;
+        while (true) {
+            int comma = input.indexOf(',', start);
+            if (comma < 0 || comma > end) {
+                comma = end;
+            }
+            int tokenStart = start;
+            int tokenEnd = comma;
+            while (tokenStart < tokenEnd && input.charAt(tokenStart) <= ' ') {
+                tokenStart++;
+            }
+            while (tokenEnd > tokenStart && input.charAt(tokenEnd - 1) <= ' ') {
+                tokenEnd--;
+            }
+            String value = table == null ? store.get(dictCode, input.substring(tokenStart, tokenEnd)) : lookup(table, input, tokenStart, tokenEnd);
+            if (metrics != null) {
+                metrics.lookup(dictCode, value != null);
+            }
+            if (value == null) {
+                builder.append(input, tokenStart, tokenEnd);
+            } else {
+                builder.append(value);
+            }
+            builder.append(suffix);
+            if (comma >= end) {
+                break;
+            }
+            builder.append(',');
+            start = comma + 1;
+        }
+        String result = builder.toString();
+        if (builder.capacity() > MAX_REUSED_BUILDER_CAPACITY) {
+            BUILDER.remove();
+        }
+        return result;
+    }
+
+    /**
+     * 查找 input[from, to) 对应的字典值  字典key都是整数时直接按数字查找, 不截取字符串
+     */
+    private static String lookup(DictTable table, String input, int from, int to) {
+        DictNumericIndex numericIndex = table.numericIndex();
+        if (numericIndex != null) {
+            long numericKey = DictNumericIndex.parseCanonical(input, from, to);
+            if (numericKey != DictNumericIndex.NOT_CANONICAL) {
+                return numericIndex.get(numericKey);
+            }
+        }
+        return table.get(input.substring(from, to));
+    }
+
+    /**
+     * 多值翻译结果缓存的key
+     */
+    record MultiValueKey(String dictCode, String suffix, String input) {
+    }
+
+    /**
+     * 某个字典存储在某个版本下的多值翻译结果
+     * <p>
+     * 容量满后按CLOCK淘汰: 命中时只设置引用标记, 写入时指针扫过环形槽位, 清除有标记的槽位, 淘汰第一个没有标记的结果.
+     * 查询无锁, 只有未命中的写入需要加锁; 反复出现的输入留在缓存中, 一次性的输入很快被淘汰, 不会整体清空.
+     */
+    static final class MultiValueCache {
+
+        private final DictStore store;
+
+        private final long version;
+
+        private final Map<MultiValueKey, Entry> results = new ConcurrentHashMap<>();
+
+        /*环形槽位  与results中的结果一一对应*/
+        private final Entry[] slots;
+
+        private int used = 0;
+
+        private int hand = 0;
+
+        private MultiValueCache(DictStore store, long version) {
+            this(store, version, MULTI_VALUE_CACHE_SIZE);
+        }
+
+        MultiValueCache(DictStore store, long version, int capacity) {
+            this.store = store;
+            this.version = version;
+            this.slots = new Entry[capacity];
+        }
+
+        String get(MultiValueKey key) {
+            Entry entry = results.get(key);
+            if (entry == null) {
+                return null;
+            }
+            // 已经有标记时不再写, 减少热点结果上的缓存行争用
+            if (!entry.referenced) {
+                entry.referenced = true;
+            }
+            return entry.result;
+        }
+
+        synchronized void put(MultiValueKey key, String result) {
+            if (results.containsKey(key)) {
+                return;
+            }
+            Entry entry = new Entry(key, result);
+            if (used < slots.length) {
+                slots[used++] = entry;
+            } else {
+                while (slots[hand].referenced) {
+                    slots[hand].referenced = false;
+                    hand = (hand + 1) % slots.length;
+                }
+                results.remove(slots[hand].key);
+                slots[hand] = entry;
+                hand = (hand + 1) % slots.length;
+            }
+            results.put(key, entry);
+        }
+
+        int size() {
+            return results.size();
+        }
+    }
+
+    private static final class Entry {
+
+        private final MultiValueKey key;
+
+        private final String result;
+
+        private volatile boolean referenced = false;
+
+        private Entry(MultiValueKey key, String result) {
+            this.key = key;
+            this.result = result;
+        }
+    }
+
 
 }
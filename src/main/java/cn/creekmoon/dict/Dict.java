@@ -10,13 +10,15 @@ import org.slf4j.LoggerFactory;
 import java.lang.reflect.Field;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 
 public interface Dict {
     Logger log = LoggerFactory.getLogger(Dict.class);
     /*缓存的业务包名*/
-    static List<String> businessPackagePathList = new ArrayList<>();
+    static List<String> businessPackagePathList = new CopyOnWriteArrayList<>();
 
     Map<Class, DictFieldTranslator> translators = new ConcurrentHashMap<>();
 
@@ -26,33 +28,36 @@ public interface Dict {
 
 
     /**
-     * DictMappingTest
      * 缓存字典
      * DictMapping注解会通过这个集合, 翻译对应的字典值
      * <p>
      * k1=字典类型code  k2=字典key  v=字典值
+     * <p>
+     * 只读视图, 总是指向当前的 {@link DictStore}. 请使用 {@link #addDictMap(Map)} 修改字典
      */
-    static Map<String, Map<String, String>> DICT_MAP = new ConcurrentHashMap<>(512);
+    @Deprecated
+    static Map<String, Map<String, String>> DICT_MAP = DictSnapshot.liveView(() -> DictStoreConfig.current().snapshot());
 
     /**
      * 缓存字典
      * 用字典值获取字典key
      * <p>
      * k1=字典类型code  k2=字典值  v=字典key
+     * <p>
+     * 只读视图, 总是指向当前的 {@link DictStore}, 只在访问时读取对应的字典类型
      */
-    static Map<String, Map<String, List<String>>> DICT_MAP_REVERSE = new ConcurrentHashMap<>(512);
+    @Deprecated
+    static Map<String, Map<String, List<String>>> DICT_MAP_REVERSE = DictSnapshot.reverseLiveView(DictStoreConfig::current);
 
 
     /**
      * 设置字典值
+     * 写入当前的 {@link DictStore}(在 {@link DictEngine} 中执行时为该引擎的存储). 默认存储在旁路构建新的字典快照(只重建传入字典类型的反向字典), 然后一次性替换, 读取方不会看到更新了一半的字典
      *
      * @param dictMap
      */
     public static void addDictMap(Map<String, Map<String, String>> dictMap) {
-        DICT_MAP.putAll(dictMap);
-        DICT_MAP.forEach((k, v) -> {
-            DICT_MAP_REVERSE.put(k, v.entrySet().stream().collect(Collectors.groupingBy(Map.Entry::getValue, Collectors.mapping(Map.Entry::getKey, Collectors.toList()))));
-        });
+        DictStoreConfig.current().putAll(dictMap);
     }
 
 
@@ -68,6 +73,8 @@ public interface Dict {
 
     public static void setGlobalBusinessPackageNames(String... basePackageNames) {
         businessPackagePathList.addAll(Arrays.asList(basePackageNames));
+        // 业务包名会影响翻译计划, 需要重新解析
+        DictClassPlan.clear();
     }
 
     /**
@@ -77,47 +84,62 @@ public interface Dict {
      * @return
      */
     public static JSONObject getDict(Object object) {
-        JSONObject result = new JSONObject();
         if (!isTranslatable(object)) {
             return null;
         }
+        DictMetrics metrics = DictMetricsConfig.metrics;
+        long start = metrics == null ? 0L : System.nanoTime();
         try {
-            Field[] fields = ReflectUtil.getFields(object.getClass());
-            for (Field field : fields) {
-                boolean existsAnnotation = Arrays.stream(field.getDeclaredAnnotations()).anyMatch(a -> a.annotationType() == DictMapping.class);
-                // 如果有DictMapping注解且是业务对象, 则递归进入
-                if (existsAnnotation && isBusinessObjectType(field.getType())) {
-                    JSONObject dict = getDict(ReflectUtil.getFieldValue(object, field));
-                    if (dict != null) {
-                        result.put(field.getName(), dict);
+            DictClassPlan plan = DictClassPlan.of(object.getClass());
+            // 开启结果缓存时, 注解字段值相同的对象直接复用上一次的结果
+            DictResultCache cache = DictResultCacheConfig.current();
+            DictResultCache.Key cacheKey = cache == null ? null : DictResultCache.key(object, plan);
+            long cacheEpoch = 0L;
+            if (cacheKey != null) {
+                cacheEpoch = cache.epoch();
+                JSONObject cached = cache.get(cacheKey, cacheEpoch);
+                if (cached != null) {
+                    if (metrics != null) {
+                        metrics.cachedTranslation(object.getClass());
                     }
-                    continue;
+                    return new JSONObject(cached);
                 }
-                // 如果有DictMapping注解且是集合类型, 则尝试递归进入
-                if (existsAnnotation && Collection.class.isAssignableFrom(field.getType())) {
-                    Object collectionValue = ReflectUtil.getFieldValue(object, field);
-                    if (collectionValue == null) {
-                        continue;
+            }
+            JSONObject result = new JSONObject();
+            if (plan.generated != null) {
+                plan.generated.getDict(object, result);
+            }
+            for (DictFieldPlan fieldPlan : plan.fields) {
+                // 如果是业务对象, 则递归进入
+                if (fieldPlan.kind == DictFieldPlan.Kind.NESTED) {
+                    JSONObject dict = getDict(fieldPlan.get(object));
+                    if (dict != null) {
+                        result.put(fieldPlan.name, dict);
                     }
-                    result.put(field.getName(), ((Collection) collectionValue).stream().map(Dict::getDict).collect(Collectors.toList()));
-                    continue;
-                }
-                //如果没有DictMapping注解 则跳过
-                if (!existsAnnotation) {
                     continue;
                 }
-                // 如果已经翻译成功KEY,则跳过
-                if (result.get(field.getName()) != null) {
+                // 如果是集合类型, 则尝试递归进入
+                if (fieldPlan.kind == DictFieldPlan.Kind.COLLECTION) {
+                    List<Object> dicts = fieldPlan.getCollectionDict(object, fieldPlan.get(object));
+                    if (dicts != null) {
+                        result.put(fieldPlan.name, dicts);
+                    }
                     continue;
                 }
-
                 // 走到这里的, 应该是有注解的字段
-                result.put(field.getName(), searchDictValue(object, field));
+                result.put(fieldPlan.name, fieldPlan.translate(object, fieldPlan.get(object)));
+            }
+            if (cacheKey != null) {
+                cache.put(cacheKey, cacheEpoch, result);
             }
             return result;
         } catch (Exception e) {
             log.error("翻译字典失败！", e);
             return new JSONObject();
+        } finally {
+            if (metrics != null) {
+                metrics.translated(object.getClass(), 1, System.nanoTime() - start);
+            }
         }
     }
 
@@ -131,33 +153,167 @@ public interface Dict {
             return;
         }
         if (object instanceof Collection collection) {
+            // 开启并行翻译且集合足够大时, 拆分成多段并行填充
+            if (DictParallelConfig.isParallel(collection.size())) {
+                Object[] elements = collection.toArray();
+                DictParallelConfig.forEachRange(elements.length, (from, to) -> {
+                    for (int i = from; i < to; i++) {
+                        fillSelf(elements[i]);
+                    }
+                });
+                return;
+            }
             collection.forEach(Dict::fillSelf);
             return;
         }
-        Field[] fields = ReflectUtil.getFields(object.getClass());
-        for (Field field : fields) {
-            // 如果是集合类型, 则递归进入
-            if (Collection.class.isAssignableFrom(field.getType())) {
-                fillSelf(ReflectUtil.getFieldValue(object, field));
-                continue;
-            }
-            // 如果是业务对象类型, 则递归进入
-            if (isBusinessObjectType(field.getType())) {
-                fillSelf(ReflectUtil.getFieldValue(object, field));
-                continue;
+        DictMetrics metrics = DictMetricsConfig.metrics;
+        long start = metrics == null ? 0L : System.nanoTime();
+        try {
+            DictClassPlan plan = DictClassPlan.of(object.getClass());
+            if (plan.generated != null) {
+                plan.generated.fillSelf(object);
             }
-            // 跳过没有加入DictMapping注解的字段
-            if (!field.isAnnotationPresent(DictMapping.class)) {
-                continue;
+            for (DictFieldPlan fieldPlan : plan.fields) {
+                // 如果是集合类型或业务对象类型, 则递归进入
+                if (fieldPlan.kind != DictFieldPlan.Kind.VALUE) {
+                    fillSelf(fieldPlan.get(object));
+                    continue;
+                }
+                //如果field不是String类型,则跳过
+                if (!fieldPlan.fillable) {
+                    continue;
+                }
+                fieldPlan.set(object, fieldPlan.translate(object, fieldPlan.get(object)));
             }
-            //如果field不是String类型,则跳过
-            if (!field.getType().equals(String.class)) {
-                continue;
+        } finally {
+            if (metrics != null) {
+                metrics.translated(object.getClass(), 1, System.nanoTime() - start);
             }
-            ReflectUtil.setFieldValue(object, field.getName(), searchDictValue(object, field));
         }
     }
 
+    /**
+     * 批量获取字典值  每个对象的结果与 {@link #getDict(Object)} 一致
+     * 只获取一次翻译计划, 按字段逐列翻译, 同一列中相同的值只查找一次字典. 适合一次翻译大量同类型对象
+     *
+     * @param objects 需要翻译的对象
+     * @param clazz   对象类型
+     * @return 与传入顺序一致
+     */
+    public static <T> List<JSONObject> translateAll(Collection<T> objects, Class<T> clazz) {
+        return translateColumns(objects, clazz).toJSONObjects();
+    }
+
+    /**
+     * 批量获取字典值  按列返回结果, 不需要为每个对象创建JSONObject
+     *
+     * @param objects 需要翻译的对象
+     * @param clazz   对象类型
+     * @return
+     */
+    public static <T> DictBatchResult translateColumns(Collection<T> objects, Class<T> clazz) {
+        if (objects == null || objects.isEmpty()) {
+            return new DictBatchResult(0);
+        }
+        DictMetrics metrics = DictMetricsConfig.metrics;
+        long start = metrics == null ? 0L : System.nanoTime();
+        DictBatchResult result = DictBatchTranslator.translate(objects.toArray(), clazz);
+        if (metrics != null) {
+            metrics.translated(clazz, result.size(), System.nanoTime() - start);
+        }
+        return result;
+    }
+
+    /**
+     * 批量字典自填充  每个对象的结果与 {@link #fillSelf(Object)} 一致
+     *
+     * @param objects 需要填充的对象
+     * @param clazz   对象类型
+     */
+    public static <T> void fillAll(Collection<T> objects, Class<T> clazz) {
+        if (objects == null || objects.isEmpty()) {
+            return;
+        }
+        DictMetrics metrics = DictMetricsConfig.metrics;
+        long start = metrics == null ? 0L : System.nanoTime();
+        DictBatchTranslator.fill(objects.toArray(), clazz);
+        if (metrics != null) {
+            metrics.translated(clazz, objects.size(), System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 流式自填充  每次从来源读取一批元素按列填充, 内存中最多保留一批. 适合数据库游标等无界的数据
+     * 返回的流与来源顺序一致, 关闭时会关闭来源
+     *
+     * @param stream 来源
+     * @return 填充后的原对象
+     */
+    public static <T> Stream<T> translating(Stream<T> stream) {
+        return translating(stream, DictStreamTranslator.DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * 流式自填充
+     *
+     * @param stream    来源
+     * @param batchSize 批大小  批内相同的值只查找一次字典, 为1时逐个填充
+     * @return 填充后的原对象
+     */
+    public static <T> Stream<T> translating(Stream<T> stream, int batchSize) {
+        return StreamSupport.stream(translating(stream.spliterator(), batchSize), stream.isParallel()).onClose(stream::close);
+    }
+
+    /**
+     * 流式自填充
+     *
+     * @param iterator  来源
+     * @param batchSize 批大小
+     * @return 填充后的原对象
+     */
+    public static <T> Iterator<T> translating(Iterator<T> iterator, int batchSize) {
+        return Spliterators.iterator(translating(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), batchSize));
+    }
+
+    /**
+     * 流式自填充
+     *
+     * @param spliterator 来源
+     * @param batchSize   批大小
+     * @return 填充后的原对象
+     */
+    public static <T> Spliterator<T> translating(Spliterator<T> spliterator, int batchSize) {
+        return DictStreamTranslator.filling(spliterator, batchSize);
+    }
+
+    /**
+     * 流式获取字典值  每个元素的结果与 {@link #getDict(Object)} 一致, 不可翻译的元素为null
+     *
+     * @param stream    来源
+     * @param batchSize 批大小  批内相同的值只查找一次字典, 为1时逐个翻译
+     * @return
+     */
+    public static <T> Stream<JSONObject> translatingDicts(Stream<T> stream, int batchSize) {
+        return StreamSupport.stream(DictStreamTranslator.dicts(stream.spliterator(), batchSize), stream.isParallel()).onClose(stream::close);
+    }
+
+    /**
+     * 批量反向翻译  把 @DictMapping 字段上的字典值替换成字典key, {@link #fillSelf(Object)} 的逆操作. 适合Excel导入
+     * 同一字段中相同的字典值只查找一次; 找不到或不唯一的值不会抛出异常, 保持原值并汇总到返回结果中.
+     * 对象中的业务对象字段和集合字段会递归处理, 开启并行翻译且数量足够多时并行处理
+     *
+     * @param objects 需要处理的对象
+     * @return 汇总结果
+     */
+    public static DictReverseReport reverseFillAll(Collection<?> objects) {
+        DictReverseReport report = new DictReverseReport();
+        if (objects == null || objects.isEmpty()) {
+            return report;
+        }
+        DictReverseTranslator.fill(objects.toArray(), report);
+        return report;
+    }
+
     public static String findPackagePath(Class<?> clazz) {
         int num = 2;
         int target = clazz.getName().indexOf(".");
@@ -191,10 +347,7 @@ public interface Dict {
      * @return
      */
     public static boolean isTranslatable(Class<?> clazz) {
-        return Dict.class.isAssignableFrom(clazz)
-                || Collection.class.isAssignableFrom(clazz)
-                || isBusinessObjectType(clazz);
-
+        return DictClassPlan.of(clazz).translatable;
     }
 
     /**
@@ -207,10 +360,7 @@ public interface Dict {
         if (o == null) {
             return false;
         }
-        return Dict.class.isAssignableFrom(o.getClass())
-                || Collection.class.isAssignableFrom(o.getClass())
-                || isBusinessObjectType(o.getClass());
-
+        return DictClassPlan.of(o.getClass()).translatable;
     }
 
     /**
@@ -222,6 +372,10 @@ public interface Dict {
      * @return 返回的对象类型 要么是String， 要么是 Collection<String> 取决于你的fieldName对应类型
      */
     static Object searchDictValue(Object sourceObject, String fieldName) {
+        DictFieldPlan fieldPlan = DictClassPlan.of(sourceObject.getClass()).field(fieldName);
+        if (fieldPlan != null) {
+            return searchDictValue(sourceObject, fieldPlan.field);
+        }
         Field field = ReflectUtil.getField(sourceObject.getClass(), fieldName);
         if (field == null) {
             log.error("翻译字典失败！dictObject={}, fieldName={}", sourceObject, fieldName, new RuntimeException("翻译字典失败！字段不存在！"));
@@ -241,7 +395,19 @@ public interface Dict {
         if (dictKey == null) {
             return null;
         }
-        return DICT_MAP.getOrDefault(dictCode, EMPTY_MAP).get(dictKey);
+        return DictStoreConfig.current().get(dictCode, dictKey);
+    }
+
+    /**
+     * 按数字key获取字典值
+     * 字典类型的key都是规范的整数写法时("0" "15" "-1", 不含"01" "+1"), 按数组下标或数字哈希表查找, 不产生任何对象
+     *
+     * @param dictCode 字典类型编码
+     * @param dictKey  字典key
+     * @return
+     */
+    public static String searchDictValue(String dictCode, long dictKey) {
+        return DictStoreConfig.current().get(dictCode, dictKey);
     }
 
     /**
@@ -252,10 +418,20 @@ public interface Dict {
      * @return
      */
     public static String searchDictValueOrSelf(String dictCode, Object dictKey) {
-        String result = searchDictValue(dictCode, String.valueOf(dictKey));
         if (dictKey == null) {
             return null;
         }
+        String result;
+        // 整数类型直接按数字查找, 不需要转换成字符串
+        if (dictKey instanceof Integer || dictKey instanceof Long || dictKey instanceof Short || dictKey instanceof Byte) {
+            result = searchDictValue(dictCode, ((Number) dictKey).longValue());
+        } else {
+            result = searchDictValue(dictCode, dictKey.toString());
+        }
+        DictMetrics metrics = DictMetricsConfig.metrics;
+        if (metrics != null) {
+            metrics.lookup(dictCode, result != null);
+        }
         if (result == null) {
             return StrUtil.toString(dictKey);
         }
@@ -272,64 +448,70 @@ public interface Dict {
      * @return 返回的对象类型 要么是String， 要么是 Collection<String>
      */
     public static <T> Object searchDictValue(T dictObject, Field field) {
+        DictFieldPlan fieldPlan = DictClassPlan.of(dictObject.getClass()).field(field.getName());
+        if (fieldPlan == null || !fieldPlan.isAnnotated()) {
+            return null;
+        }
+        Object fieldValue = fieldPlan.get(dictObject);
+
+        //如果是集合
+        if (Collection.class.isAssignableFrom(fieldPlan.field.getType()) && fieldValue != null) {
+            Collection<?> collection = (Collection<?>) fieldValue;
+            List<String> collect = new ArrayList<>(collection.size());
+            for (Object x : collection) {
+                collect.add(fieldPlan.translate(dictObject, x));
+            }
+            return collect;
+        }
 
-        Field[] sourceFields = ReflectUtil.getFields(dictObject.getClass());
-        for (Field sourcefield : sourceFields) {
-            try {
-                if (!sourcefield.getName().equals(field.getName())) {
-                    continue;
-                }
-                if (!field.isAnnotationPresent(DictMapping.class)) {
-                    continue;
-                }
-                field.setAccessible(true);
-                Object fieldValue = field.get(dictObject);
-                field.setAccessible(false);
-
-                // 查找翻译器
-                DictMapping annotation = field.getAnnotation(DictMapping.class);
-                if (!translators.containsKey(annotation.fieldTranslator())) {
-                    try {
-                        translators.put(annotation.fieldTranslator(), (DictFieldTranslator) annotation.fieldTranslator().getDeclaredConstructor().newInstance());
-                    } catch (Exception e) {
-                        RuntimeException runtimeException = new RuntimeException("字典解析失败! 无法获取到翻译器");
-                        log.error("字典解析失败! 请检查是否已经实现了DictFieldTranslator接口? field=[{}] annotation=[{}]", field, annotation, runtimeException);
-                        throw runtimeException;
-                    }
-                }
-                DictFieldTranslator dictFieldTranslator = translators.get(annotation.fieldTranslator());
-
-                //如果是集合
-                if (Collection.class.isAssignableFrom(sourcefield.getType()) && fieldValue != null) {
-                    Object collect = ((Collection) fieldValue)
-                            .stream()
-                            .map(x -> dictFieldTranslator.searchDictValue(dictObject, sourcefield, x, annotation))
-                            .collect(Collectors.toList());
-                    return collect;
-                }
-
+        //如果是基本类型
+        return fieldPlan.translate(dictObject, fieldValue);
+    }
 
-                //如果是基本类型
-                return dictFieldTranslator.searchDictValue(dictObject, sourcefield, fieldValue, annotation);
-            } catch (IllegalAccessException e) {
-                throw new RuntimeException(e);
-            }
+    /**
+     * 获取翻译器实例, 一个翻译器类型全局只有一个实例
+     *
+     * @param translatorClass 翻译器类型
+     * @param field           来源字段 仅用于错误日志
+     * @param annotation      来源注解 仅用于错误日志
+     * @return
+     */
+    static DictFieldTranslator getFieldTranslator(Class<?> translatorClass, Field field, DictMapping annotation) {
+        DictFieldTranslator translator = translators.get(translatorClass);
+        if (translator != null) {
+            return translator;
+        }
+        try {
+            return translators.computeIfAbsent(translatorClass, k -> {
+                try {
+                    return (DictFieldTranslator) k.getDeclaredConstructor().newInstance();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        } catch (Exception e) {
+            RuntimeException runtimeException = new RuntimeException("字典解析失败! 无法获取到翻译器");
+            log.error("字典解析失败! 请检查是否已经实现了DictFieldTranslator接口? field=[{}] annotation=[{}]", field, annotation, runtimeException);
+            throw runtimeException;
         }
-        return null;
     }
 
     /**
      * 获取字典项值（key）
+     * 第一次查找某个字典类型时才构建它的反向字典
      *
      * @param dictCode  字典类型编码
      * @param dictValue 字典名称（value）
-     * @return
+     * @return 没有找到返回null
      */
     public static String searchDictKey(String dictCode, String dictValue) throws RuntimeException {
         if (dictValue == null) {
             return null;
         }
-        List<String> dictKeys = DICT_MAP_REVERSE.getOrDefault(dictCode, EMPTY_MAP_REVERSE).get(dictValue);
+        List<String> dictKeys = DictStoreConfig.current().getKeys(dictCode, dictValue);
+        if (dictKeys == null || dictKeys.isEmpty()) {
+            return null;
+        }
         if (dictKeys.size() > 1) {
             throw new RuntimeException(StrFormatter.format("字典项：{}，获取的结果不唯一，请检查数据", dictValue));
         }
@@ -346,7 +528,8 @@ public interface Dict {
         if (StrUtil.isBlank(dictCode)) {
             return Collections.emptyMap();
         }
-        return Collections.unmodifiableMap(DICT_MAP.get(dictCode));
+        Map<String, String> entries = DictStoreConfig.current().getEntries(dictCode);
+        return entries == null ? Collections.emptyMap() : entries;
     }
 
     /**
@@ -355,7 +538,7 @@ public interface Dict {
      * @return
      */
     public static Map<String, Map<String, String>> getAll() {
-        return Collections.unmodifiableMap(DICT_MAP);
+        return DictStoreConfig.current().snapshot();
     }
 
     /**
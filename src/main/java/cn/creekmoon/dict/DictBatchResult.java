@@ -0,0 +1,131 @@
+package cn.creekmoon.dict;
+
+import com.alibaba.fastjson2.JSONObject;
+
+import java.util.*;
+
+/**
+ * 批量翻译结果  按列存储
+ * <p>
+ * 每个字段一列, 数组下标与传入集合的顺序一致. 不需要每行一个JSONObject时可以直接按列读取.
+ * 列中的值: 普通字段为String, 业务对象为JSONObject, 集合为List.
+ */
+public class DictBatchResult {
+
+    private final int size;
+
+    /*k=字段名 v=每行的翻译结果  保持字段顺序*/
+    private final Map<String, Object[]> columns = new LinkedHashMap<>();
+
+    /*普通字段即使翻译结果为null也会输出, 业务对象和集合为null时不输出  与getDict保持一致*/
+    private final Set<String> keepNullColumns = new HashSet<>();
+
+    /*没有按列处理的行(null、类型不一致)  k=行号 v=该行单独翻译的结果*/
+    private final Map<Integer, JSONObject> rowOverrides = new HashMap<>();
+
+    DictBatchResult(int size) {
+        this.size = size;
+    }
+
+    /**
+     * 行数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 所有字段名
+     */
+    public Set<String> fieldNames() {
+        return Collections.unmodifiableSet(columns.keySet());
+    }
+
+    /**
+     * 获取一列翻译结果  没有按列处理的行在此为null, 请使用 {@link #toJSONObject(int)}
+     *
+     * @param fieldName 字段名
+     * @return 不存在时返回null
+     */
+    public Object[] getColumn(String fieldName) {
+        return columns.get(fieldName);
+    }
+
+    /**
+     * 获取某一行某个字段的翻译结果
+     *
+     * @param row       行号
+     * @param fieldName 字段名
+     * @return
+     */
+    public Object get(int row, String fieldName) {
+        JSONObject override = rowOverrides.get(row);
+        if (override != null || rowOverrides.containsKey(row)) {
+            return override == null ? null : override.get(fieldName);
+        }
+        Object[] column = columns.get(fieldName);
+        return column == null ? null : column[row];
+    }
+
+    /**
+     * 把某一行转换为JSONObject  结果与 {@link Dict#getDict(Object)} 一致
+     *
+     * @param row 行号
+     * @return 该行不可翻译时返回null
+     */
+    public JSONObject toJSONObject(int row) {
+        if (rowOverrides.containsKey(row)) {
+            return rowOverrides.get(row);
+        }
+        JSONObject result = new JSONObject(columns.size() * 2);
+        columns.forEach((fieldName, column) -> {
+            Object value = column[row];
+            if (value != null || keepNullColumns.contains(fieldName)) {
+                result.put(fieldName, value);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 转换为每行一个JSONObject
+     */
+    public List<JSONObject> toJSONObjects() {
+        List<JSONObject> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(toJSONObject(i));
+        }
+        return result;
+    }
+
+    /**
+     * 合并分段翻译的结果
+     *
+     * @param size  总行数
+     * @param parts k=该段第一行的行号 v=该段的结果
+     * @return
+     */
+    static DictBatchResult merge(int size, SortedMap<Integer, DictBatchResult> parts) {
+        DictBatchResult result = new DictBatchResult(size);
+        parts.forEach((offset, part) -> {
+            part.columns.forEach((fieldName, column) -> {
+                Object[] merged = result.columns.computeIfAbsent(fieldName, k -> new Object[size]);
+                System.arraycopy(column, 0, merged, offset, column.length);
+            });
+            result.keepNullColumns.addAll(part.keepNullColumns);
+            part.rowOverrides.forEach((row, value) -> result.rowOverrides.put(offset + row, value));
+        });
+        return result;
+    }
+
+    void putColumn(String fieldName, Object[] column, boolean keepNull) {
+        columns.put(fieldName, column);
+        if (keepNull) {
+            keepNullColumns.add(fieldName);
+        }
+    }
+
+    void putRow(int row, JSONObject value) {
+        rowOverrides.put(row, value);
+    }
+}
@@ -0,0 +1,273 @@
+package cn.creekmoon.dict;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+
+/**
+ * 批量翻译
+ * <p>
+ * 对同一类型的一批对象只获取一次翻译计划, 然后按字段逐列处理:
+ * <ul>
+ *     <li>普通字段: 使用默认翻译器时, 同一列中相同的值只翻译一次</li>
+ *     <li>业务对象字段: 整列的值按实际类型分组后递归批量翻译</li>
+ *     <li>集合字段: 所有行的集合元素展开后按实际类型分组, 递归批量翻译</li>
+ * </ul>
+ * 类型与指定类型不一致的行(子类、null)按单个对象处理, 结果与 {@link Dict#getDict(Object)} / {@link Dict#fillSelf(Object)} 一致.
+ */
+@Slf4j
+final class DictBatchTranslator {
+
+    private DictBatchTranslator() {
+    }
+
+    /**
+     * 批量翻译  按列返回结果
+     *
+     * @param rows 需要翻译的对象
+     * @param type 对象类型
+     * @return
+     */
+    static DictBatchResult translate(Object[] rows, Class<?> type) {
+        try {
+            return columns(rows, type);
+        } catch (Exception e) {
+            log.error("批量翻译字典失败! 将逐个对象翻译. type=[{}]", type.getName(), e);
+            DictBatchResult result = new DictBatchResult(rows.length);
+            for (int i = 0; i < rows.length; i++) {
+                result.putRow(i, Dict.getDict(rows[i]));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 批量自填充
+     *
+     * @param rows 需要填充的对象
+     * @param type 对象类型
+     */
+    static void fill(Object[] rows, Class<?> type) {
+        if (DictParallelConfig.isParallel(rows.length)) {
+            DictParallelConfig.forEachRange(rows.length, (from, to) -> fillRows(Arrays.copyOfRange(rows, from, to), type));
+            return;
+        }
+        fillRows(rows, type);
+    }
+
+    private static void fillRows(Object[] rows, Class<?> type) {
+        DictClassPlan plan = DictClassPlan.of(type);
+        if (!plan.translatable || Collection.class.isAssignableFrom(type)) {
+            for (Object row : rows) {
+                Dict.fillSelf(row);
+            }
+            return;
+        }
+        Object[] matched = matchedRows(rows, type, Dict::fillSelf);
+        for (DictFieldPlan fieldPlan : plan.allFields) {
+            if (fieldPlan.kind == DictFieldPlan.Kind.NESTED) {
+                List<Object> values = new ArrayList<>(matched.length);
+                for (Object row : matched) {
+                    if (row != null) {
+                        values.add(fieldPlan.get(row));
+                    }
+                }
+                fillGrouped(values);
+                continue;
+            }
+            if (fieldPlan.kind == DictFieldPlan.Kind.COLLECTION) {
+                List<Object> elements = new ArrayList<>();
+                for (Object row : matched) {
+                    Object collection = row == null ? null : fieldPlan.get(row);
+                    if (collection != null) {
+                        elements.addAll((Collection<?>) collection);
+                    }
+                }
+                fillGrouped(elements);
+                continue;
+            }
+            //如果field不是String类型,则跳过
+            if (!fieldPlan.fillable) {
+                continue;
+            }
+            Map<Object, String> memo = fieldPlan.isPureTranslator() ? new HashMap<>() : null;
+            for (Object row : matched) {
+                if (row != null) {
+                    fieldPlan.set(row, translateValue(fieldPlan, row, fieldPlan.get(row), memo));
+                }
+            }
+        }
+    }
+
+    /**
+     * 开启并行翻译且行数足够多时, 拆分成多段分别按列翻译后合并
+     */
+    private static DictBatchResult columns(Object[] rows, Class<?> type) {
+        if (!DictParallelConfig.isParallel(rows.length)) {
+            return translateColumns(rows, type);
+        }
+        SortedMap<Integer, DictBatchResult> parts = new ConcurrentSkipListMap<>();
+        DictParallelConfig.forEachRange(rows.length, (from, to) -> parts.put(from, translateColumns(Arrays.copyOfRange(rows, from, to), type)));
+        return DictBatchResult.merge(rows.length, parts);
+    }
+
+    private static DictBatchResult translateColumns(Object[] rows, Class<?> type) {
+        DictBatchResult result = new DictBatchResult(rows.length);
+        DictClassPlan plan = DictClassPlan.of(type);
+        if (!plan.translatable || Collection.class.isAssignableFrom(type)) {
+            for (int i = 0; i < rows.length; i++) {
+                result.putRow(i, Dict.getDict(rows[i]));
+            }
+            return result;
+        }
+        Object[] matched = matchedRows(rows, type, null);
+        for (int i = 0; i < rows.length; i++) {
+            if (matched[i] == null) {
+                result.putRow(i, Dict.getDict(rows[i]));
+            }
+        }
+        for (DictFieldPlan fieldPlan : plan.allFields) {
+            Object[] column = new Object[rows.length];
+            if (fieldPlan.kind == DictFieldPlan.Kind.NESTED) {
+                Object[] values = new Object[rows.length];
+                for (int i = 0; i < matched.length; i++) {
+                    values[i] = matched[i] == null ? null : fieldPlan.get(matched[i]);
+                }
+                translateGrouped(values, column);
+                result.putColumn(fieldPlan.name, column, false);
+                continue;
+            }
+            if (fieldPlan.kind == DictFieldPlan.Kind.COLLECTION) {
+                translateCollectionColumn(fieldPlan, matched, column);
+                result.putColumn(fieldPlan.name, column, false);
+                continue;
+            }
+            Map<Object, String> memo = fieldPlan.isPureTranslator() ? new HashMap<>() : null;
+            for (int i = 0; i < matched.length; i++) {
+                if (matched[i] != null) {
+                    column[i] = translateValue(fieldPlan, matched[i], fieldPlan.get(matched[i]), memo);
+                }
+            }
+            result.putColumn(fieldPlan.name, column, true);
+        }
+        return result;
+    }
+
+    /**
+     * 翻译集合字段的一整列  与 {@link DictFieldPlan#getCollectionDict(Object, Object)} 结果一致
+     */
+    private static void translateCollectionColumn(DictFieldPlan fieldPlan, Object[] matched, Object[] column) {
+        // 所有行中可递归翻译的元素, 以及它们的结果要写回的位置
+        List<Object> elements = new ArrayList<>();
+        List<List<Object>> targets = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        Map<Object, String> memo = fieldPlan.isPureTranslator() ? new HashMap<>() : null;
+        for (int i = 0; i < matched.length; i++) {
+            Object collectionValue = matched[i] == null ? null : fieldPlan.get(matched[i]);
+            if (collectionValue == null) {
+                continue;
+            }
+            Collection<?> collection = (Collection<?>) collectionValue;
+            List<Object> list = new ArrayList<>(collection.size());
+            boolean anyTranslatable = false;
+            for (Object element : collection) {
+                if (Dict.isTranslatable(element)) {
+                    anyTranslatable = true;
+                    elements.add(element);
+                    targets.add(list);
+                    positions.add(list.size());
+                    list.add(null);
+                } else {
+                    list.add(fieldPlan.isAnnotated() ? translateValue(fieldPlan, matched[i], element, memo) : null);
+                }
+            }
+            column[i] = fieldPlan.isAnnotated() || anyTranslatable ? list : null;
+        }
+        if (elements.isEmpty()) {
+            return;
+        }
+        Object[] dicts = new Object[elements.size()];
+        translateGrouped(elements.toArray(), dicts);
+        for (int i = 0; i < dicts.length; i++) {
+            targets.get(i).set(positions.get(i), dicts[i]);
+        }
+    }
+
+    /**
+     * 按实际类型分组后批量翻译  results[i] 为 values[i] 的翻译结果
+     */
+    private static void translateGrouped(Object[] values, Object[] results) {
+        Map<Class<?>, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                groups.computeIfAbsent(values[i].getClass(), k -> new ArrayList<>()).add(i);
+            }
+        }
+        groups.forEach((clazz, indexes) -> {
+            Object[] group = new Object[indexes.size()];
+            for (int j = 0; j < group.length; j++) {
+                group[j] = values[indexes.get(j)];
+            }
+            DictBatchResult groupResult = columns(group, clazz);
+            for (int j = 0; j < group.length; j++) {
+                results[indexes.get(j)] = groupResult.toJSONObject(j);
+            }
+        });
+    }
+
+    /**
+     * 按实际类型分组后批量填充
+     */
+    private static void fillGrouped(List<Object> values) {
+        Map<Class<?>, List<Object>> groups = new LinkedHashMap<>();
+        for (Object value : values) {
+            if (value != null) {
+                groups.computeIfAbsent(value.getClass(), k -> new ArrayList<>()).add(value);
+            }
+        }
+        groups.forEach((clazz, group) -> fill(group.toArray(), clazz));
+    }
+
+    /**
+     * 挑出类型与指定类型完全一致的行, 其他位置为null
+     *
+     * @param others 类型不一致的非null行的处理方式  为null时不处理
+     */
+    private static Object[] matchedRows(Object[] rows, Class<?> type, Consumer<Object> others) {
+        Object[] matched = new Object[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            Object row = rows[i];
+            if (row == null) {
+                continue;
+            }
+            if (row.getClass() == type) {
+                matched[i] = row;
+            } else if (others != null) {
+                others.accept(row);
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * 翻译单个值  memo不为null时同一列中相同的值只翻译一次
+     */
+    private static String translateValue(DictFieldPlan fieldPlan, Object row, Object value, Map<Object, String> memo) {
+        if (memo == null) {
+            return fieldPlan.translate(row, value);
+        }
+        String result = memo.get(value);
+        if (result == null && !memo.containsKey(value)) {
+            result = fieldPlan.translate(row, value);
+            memo.put(value, result);
+            return result;
+        }
+        DictMetrics metrics = DictMetricsConfig.metrics;
+        if (metrics != null) {
+            metrics.cachedValue(fieldPlan.dictCode);
+        }
+        return result;
+    }
+}
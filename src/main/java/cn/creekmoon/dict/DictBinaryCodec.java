@@ -0,0 +1,264 @@
+package cn.creekmoon.dict;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * 字典的二进制格式
+ * <p>
+ * 比JSON更紧凑, 解析时不需要词法分析, 用于本地快照文件和HTTP刷新(Content-Type为 {@link #CONTENT_TYPE}). 结构:
+ * <pre>
+ * int    魔数 "CDIC"
+ * byte   格式版本
+ * varint 元数据数量, 之后是 key/value 字符串对
+ * varint 字典值数量, 之后是去重后的字典值字符串                       (版本2)
+ * varint 字典类型数量, 之后每个字典类型为:
+ *        string 字典类型code, varint 字典项数量, 之后每个字典项为:
+ *        string 字典key, varint 字典值序号 + 1, 0 表示null         (版本2)
+ *        string 字典key, string 字典值                             (版本1)
+ * int    以上所有字节的CRC32
+ * </pre>
+ * 字符串为 varint(UTF-8字节数 + 1) 加 UTF-8字节, 0 表示null. varint为无符号LEB128.
+ * 不同字典类型中经常出现相同的字典值(是/否、启用/禁用等), 版本2只写一次, 解码后也共用同一个String实例.
+ * 编码使用版本2, 解码同时支持两个版本.
+ */
+public final class DictBinaryCodec {
+
+    /*魔数 "CDIC"*/
+    public static final int MAGIC = 0x43444943;
+
+    public static final byte FORMAT_VERSION = 2;
+
+    /*版本1  字典值不去重*/
+    static final byte FORMAT_VERSION_1 = 1;
+
+    /*HTTP刷新时二进制报文的Content-Type*/
+    public static final String CONTENT_TYPE = "application/x-creek-dict";
+
+    private DictBinaryCodec() {
+    }
+
+    /**
+     * 编码
+     *
+     * @param dictMap k1=字典类型code  k2=字典key  v=字典值
+     * @param meta    元数据  例如ETag、版本号, 没有时传空Map
+     * @return
+     */
+    public static byte[] encode(Map<String, ? extends Map<String, String>> dictMap, Map<String, String> meta) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+        try {
+            encode(dictMap, meta, out);
+        } catch (IOException e) {
+            // 写入内存不会发生IO异常
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 编码并写入输出流  不会关闭输出流
+     *
+     * @param dictMap k1=字典类型code  k2=字典key  v=字典值
+     * @param meta    元数据
+     * @param out     输出流
+     */
+    public static void encode(Map<String, ? extends Map<String, String>> dictMap, Map<String, String> meta, OutputStream out) throws IOException {
+        CRC32 crc = new CRC32();
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(out, crc), 8192));
+        data.writeInt(MAGIC);
+        data.writeByte(FORMAT_VERSION);
+        writeVarInt(data, meta.size());
+        for (Map.Entry<String, String> entry : meta.entrySet()) {
+            writeString(data, entry.getKey());
+            writeString(data, entry.getValue());
+        }
+        // 字典值按首次出现的顺序编号
+        Map<String, Integer> labels = new LinkedHashMap<>();
+        for (Map<String, String> entries : dictMap.values()) {
+            if (entries != null) {
+                for (String label : entries.values()) {
+                    if (label != null) {
+                        labels.putIfAbsent(label, labels.size());
+                    }
+                }
+            }
+        }
+        writeVarInt(data, labels.size());
+        for (String label : labels.keySet()) {
+            writeString(data, label);
+        }
+        writeVarInt(data, dictMap.size());
+        for (Map.Entry<String, ? extends Map<String, String>> code : dictMap.entrySet()) {
+            Map<String, String> entries = code.getValue() == null ? Collections.emptyMap() : code.getValue();
+            writeString(data, code.getKey());
+            writeVarInt(data, entries.size());
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                writeString(data, entry.getKey());
+                writeVarInt(data, entry.getValue() == null ? 0 : labels.get(entry.getValue()) + 1);
+            }
+        }
+        data.flush();
+        // CRC写在校验范围之外
+        new DataOutputStream(out).writeInt((int) crc.getValue());
+        out.flush();
+    }
+
+    /**
+     * 解码  从buffer当前位置读取到limit
+     *
+     * @param buffer 编码后的字节  可以是内存映射的文件
+     * @return
+     */
+    public static Payload decode(ByteBuffer buffer) {
+        ByteBuffer data = buffer.slice();
+        int length = data.remaining();
+        if (length < 9) {
+            throw new RuntimeException("字典二进制数据不完整!");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data.duplicate().limit(length - 4));
+        if ((int) crc.getValue() != data.getInt(length - 4)) {
+            throw new RuntimeException("字典二进制数据校验失败! 文件可能已损坏");
+        }
+        data.limit(length - 4);
+        if (data.getInt() != MAGIC) {
+            throw new RuntimeException("字典二进制数据格式错误! 魔数不匹配");
+        }
+        byte formatVersion = data.get();
+        if (formatVersion != FORMAT_VERSION && formatVersion != FORMAT_VERSION_1) {
+            throw new RuntimeException("字典二进制数据格式错误! 不支持的格式版本: " + formatVersion);
+        }
+        Reader reader = new Reader(data);
+        int metaSize = reader.readVarInt();
+        Map<String, String> meta = new LinkedHashMap<>(Math.max(16, (int) (metaSize / 0.75f) + 1));
+        for (int i = 0; i < metaSize; i++) {
+            meta.put(reader.readString(), reader.readString());
+        }
+        String[] labels = null;
+        if (formatVersion == FORMAT_VERSION) {
+            labels = new String[reader.readCount()];
+            for (int i = 0; i < labels.length; i++) {
+                labels[i] = reader.readString();
+            }
+        }
+        int codeSize = reader.readVarInt();
+        Map<String, Map<String, String>> dictMap = new HashMap<>(Math.max(16, (int) (codeSize / 0.75f) + 1));
+        for (int i = 0; i < codeSize; i++) {
+            String dictCode = reader.readString();
+            int entrySize = reader.readVarInt();
+            Map<String, String> entries = new HashMap<>(Math.max(16, (int) (entrySize / 0.75f) + 1));
+            for (int j = 0; j < entrySize; j++) {
+                String key = reader.readString();
+                entries.put(key, labels == null ? reader.readString() : reader.readLabel(labels));
+            }
+            dictMap.put(dictCode, entries);
+        }
+        if (data.hasRemaining()) {
+            throw new RuntimeException("字典二进制数据格式错误! 末尾有多余的数据");
+        }
+        return new Payload(meta, dictMap);
+    }
+
+    private static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length + 1);
+        out.write(bytes);
+    }
+
+    /**
+     * 解码结果
+     *
+     * @param meta    元数据
+     * @param dictMap k1=字典类型code  k2=字典key  v=字典值
+     */
+    public record Payload(Map<String, String> meta, Map<String, Map<String, String>> dictMap) {
+    }
+
+    /**
+     * 从ByteBuffer读取varint和字符串  非堆内存时复用同一个临时数组
+     */
+    private static final class Reader {
+
+        private final ByteBuffer data;
+
+        private byte[] buffer = new byte[64];
+
+        private Reader(ByteBuffer data) {
+            this.data = data;
+        }
+
+        int readVarInt() {
+            int result = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                byte b = data.get();
+                result |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new RuntimeException("字典二进制数据格式错误! varint过长");
+        }
+
+        /**
+         * 读取数量  每一项至少占一个字节, 超过剩余字节数说明数据有误
+         */
+        int readCount() {
+            int count = readVarInt();
+            if (count < 0 || count > data.remaining()) {
+                throw new RuntimeException("字典二进制数据格式错误! 数量越界");
+            }
+            return count;
+        }
+
+        String readLabel(String[] labels) {
+            int index = readVarInt();
+            if (index == 0) {
+                return null;
+            }
+            if (index < 0 || index > labels.length) {
+                throw new RuntimeException("字典二进制数据格式错误! 字典值序号越界");
+            }
+            return labels[index - 1];
+        }
+
+        String readString() {
+            int length = readVarInt() - 1;
+            if (length < 0) {
+                return null;
+            }
+            if (length > data.remaining()) {
+                throw new RuntimeException("字典二进制数据格式错误! 字符串长度越界");
+            }
+            if (data.hasArray()) {
+                String result = new String(data.array(), data.arrayOffset() + data.position(), length, StandardCharsets.UTF_8);
+                data.position(data.position() + length);
+                return result;
+            }
+            if (buffer.length < length) {
+                buffer = new byte[Math.max(length, buffer.length * 2)];
+            }
+            data.get(buffer, 0, length);
+            return new String(buffer, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+}
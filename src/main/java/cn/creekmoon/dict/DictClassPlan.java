@@ -0,0 +1,149 @@
+package cn.creekmoon.dict;
+
+import cn.hutool.core.util.ReflectUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 类级别的翻译计划
+ * <p>
+ * 每个Class只解析一次: 哪些字段带有@DictMapping注解、哪些字段需要递归进入业务对象或集合.
+ * getDict / fillSelf 的热路径上只读取字段值, 不再重复扫描字段、注解和业务包名.
+ * <p>
+ * 业务包名参与了计划的计算, 所以 {@link Dict#setGlobalBusinessPackageNames(String...)} 时会清空缓存.
+ */
+@Slf4j
+final class DictClassPlan {
+
+    private static final DictFieldPlan[] EMPTY_FIELDS = new DictFieldPlan[0];
+
+    /*翻译计划缓存 k=类型 v=翻译计划*/
+    private static final Map<Class<?>, DictClassPlan> PLANS = new ConcurrentHashMap<>(256);
+
+    final Class<?> type;
+
+    /*是否是可以进行递归翻译的对象*/
+    final boolean translatable;
+
+    /*编译期生成的翻译器  没有时为null*/
+    final DictGeneratedTranslator<Object> generated;
+
+    /*需要反射处理的字段, 同名字段只保留子类上的. 已经由生成类负责的字段不在其中*/
+    final DictFieldPlan[] fields;
+
+    /*所有字段  包含由生成类负责的字段*/
+    final DictFieldPlan[] allFields;
+
+    /*getDict结果是否只取决于注解字段的值  所有字段都使用默认翻译器, 且没有业务对象和集合字段*/
+    final boolean cacheable;
+
+    /*k=字段名 v=字段计划  包含所有字段*/
+    private final Map<String, DictFieldPlan> fieldsByName;
+
+    private DictClassPlan(Class<?> type) {
+        this.type = type;
+        this.translatable = Dict.class.isAssignableFrom(type)
+                || Collection.class.isAssignableFrom(type)
+                || Dict.isBusinessObjectType(type);
+        // 集合本身没有需要翻译的字段, 由调用方遍历元素
+        this.allFields = translatable && !Collection.class.isAssignableFrom(type) ? resolveFields(type) : EMPTY_FIELDS;
+        this.fieldsByName = new HashMap<>(allFields.length * 2);
+        for (DictFieldPlan fieldPlan : allFields) {
+            fieldsByName.put(fieldPlan.name, fieldPlan);
+        }
+        this.cacheable = allFields.length > 0
+                && Arrays.stream(allFields).allMatch(x -> x.kind == DictFieldPlan.Kind.VALUE && x.isPureTranslator());
+        this.generated = translatable ? loadGenerated(type) : null;
+        this.fields = generated == null
+                ? allFields
+                : Arrays.stream(allFields).filter(x -> !generated.fieldNames().contains(x.name)).toArray(DictFieldPlan[]::new);
+    }
+
+    /**
+     * 获取翻译计划
+     *
+     * @param clazz 类型
+     * @return
+     */
+    static DictClassPlan of(Class<?> clazz) {
+        DictClassPlan plan = PLANS.get(clazz);
+        if (plan != null) {
+            return plan;
+        }
+        return PLANS.computeIfAbsent(clazz, DictClassPlan::new);
+    }
+
+    /**
+     * 清空翻译计划缓存
+     */
+    static void clear() {
+        PLANS.clear();
+    }
+
+    /**
+     * 按字段名查找计划
+     *
+     * @param fieldName 字段名
+     * @return 找不到返回null
+     */
+    DictFieldPlan field(String fieldName) {
+        return fieldsByName.get(fieldName);
+    }
+
+    /**
+     * 查找编译期生成的翻译器
+     */
+    @SuppressWarnings("unchecked")
+    private static DictGeneratedTranslator<Object> loadGenerated(Class<?> type) {
+        if (!type.isAnnotationPresent(GenerateDictTranslator.class)) {
+            return null;
+        }
+        String className = DictGeneratedTranslator.translatorClassName(type.getName());
+        try {
+            Class<?> generatedClass = Class.forName(className, true, type.getClassLoader());
+            return (DictGeneratedTranslator<Object>) generatedClass.getDeclaredConstructor().newInstance();
+        } catch (ClassNotFoundException e) {
+            log.warn("未找到编译期生成的字典翻译器, 将使用反射翻译. 请检查是否启用了DictTranslatorProcessor? class=[{}]", className);
+            return null;
+        } catch (Exception e) {
+            log.error("编译期生成的字典翻译器初始化失败, 将使用反射翻译. class=[{}]", className, e);
+            return null;
+        }
+    }
+
+    private static DictFieldPlan[] resolveFields(Class<?> type) {
+        List<DictFieldPlan> result = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (Field field : ReflectUtil.getFields(type)) {
+            if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) {
+                continue;
+            }
+            // 子类字段在前, 同名的父类字段忽略
+            if (!names.add(field.getName())) {
+                continue;
+            }
+            DictMapping annotation = field.getAnnotation(DictMapping.class);
+            DictFieldPlan.Kind kind;
+            if (Collection.class.isAssignableFrom(field.getType())) {
+                kind = DictFieldPlan.Kind.COLLECTION;
+            } else if (Dict.isBusinessObjectType(field.getType())) {
+                kind = DictFieldPlan.Kind.NESTED;
+            } else if (annotation != null) {
+                kind = DictFieldPlan.Kind.VALUE;
+            } else {
+                continue;
+            }
+            DictFieldAccessor accessor = DictFieldAccessor.of(field);
+            if (accessor == null) {
+                log.warn("字典翻译计划忽略无法访问的字段! class=[{}] field=[{}]", type.getName(), field.getName());
+                continue;
+            }
+            result.add(new DictFieldPlan(field, accessor, kind, annotation));
+        }
+        return result.toArray(EMPTY_FIELDS);
+    }
+}
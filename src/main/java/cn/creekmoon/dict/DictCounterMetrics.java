@@ -0,0 +1,284 @@
+package cn.creekmoon.dict;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 内置的指标采集实现
+ * <p>
+ * 计数使用LongAdder, 多线程同时翻译时不会在同一个计数器上竞争.
+ * 开启直方图后, 耗时按2的幂分桶计数, 可以估算分位数.
+ */
+public class DictCounterMetrics implements DictMetrics {
+
+    /*是否记录耗时直方图*/
+    private final boolean histogram;
+
+    /*k=字典类型code v=命中统计*/
+    private final Map<String, LookupStats> lookups = new ConcurrentHashMap<>();
+
+    /*k=对象类型 v=翻译耗时统计*/
+    private final Map<Class<?>, TimerStats> translations = new ConcurrentHashMap<>();
+
+    /*k=对象类型 v=取自结果缓存的翻译次数*/
+    private final Map<Class<?>, LongAdder> cachedTranslations = new ConcurrentHashMap<>();
+
+    private final TimerStats refreshes;
+
+    private final LongAdder refreshFailures = new LongAdder();
+
+    /*上一次成功刷新的报文字节数*/
+    private volatile long lastRefreshPayloadBytes = 0L;
+
+    /*上一次成功刷新的时间戳  毫秒, 从未成功时为0*/
+    private volatile long lastRefreshSuccessTime = 0L;
+
+    /**
+     * @param histogram 是否记录耗时直方图
+     */
+    public DictCounterMetrics(boolean histogram) {
+        this.histogram = histogram;
+        this.refreshes = new TimerStats(histogram);
+    }
+
+    @Override
+    public void lookup(String dictCode, boolean hit) {
+        LookupStats stats = lookups.get(dictCode);
+        if (stats == null) {
+            stats = lookups.computeIfAbsent(dictCode, k -> new LookupStats());
+        }
+        (hit ? stats.hits : stats.misses).increment();
+    }
+
+    @Override
+    public void cachedValue(String dictCode) {
+        LookupStats stats = lookups.get(dictCode);
+        if (stats == null) {
+            stats = lookups.computeIfAbsent(dictCode, k -> new LookupStats());
+        }
+        stats.cached.increment();
+    }
+
+    @Override
+    public void cachedTranslation(Class<?> type) {
+        LongAdder count = cachedTranslations.get(type);
+        if (count == null) {
+            count = cachedTranslations.computeIfAbsent(type, k -> new LongAdder());
+        }
+        count.increment();
+    }
+
+    @Override
+    public void translated(Class<?> type, int count, long nanos) {
+        TimerStats stats = translations.get(type);
+        if (stats == null) {
+            stats = translations.computeIfAbsent(type, k -> new TimerStats(histogram));
+        }
+        stats.record(count, nanos);
+    }
+
+    @Override
+    public void refreshed(boolean success, long nanos, long payloadBytes) {
+        refreshes.record(1, nanos);
+        if (!success) {
+            refreshFailures.increment();
+            return;
+        }
+        if (payloadBytes > 0) {
+            lastRefreshPayloadBytes = payloadBytes;
+        }
+        lastRefreshSuccessTime = System.currentTimeMillis();
+    }
+
+    /**
+     * 所有字典类型的命中统计  k=字典类型code
+     */
+    public Map<String, LookupStats> getLookups() {
+        return Collections.unmodifiableMap(lookups);
+    }
+
+    /**
+     * 某个字典类型的命中统计
+     *
+     * @param dictCode 字典类型编码
+     * @return 没有查找过时返回null
+     */
+    public LookupStats getLookup(String dictCode) {
+        return lookups.get(dictCode);
+    }
+
+    /**
+     * 所有类型的翻译耗时统计  k=对象类型
+     */
+    public Map<Class<?>, TimerStats> getTranslations() {
+        return Collections.unmodifiableMap(translations);
+    }
+
+    /**
+     * 某个类型的翻译耗时统计
+     *
+     * @param type 对象类型
+     * @return 没有翻译过时返回null
+     */
+    public TimerStats getTranslation(Class<?> type) {
+        return translations.get(type);
+    }
+
+    /**
+     * 某个类型取自结果缓存的翻译次数
+     *
+     * @param type 对象类型
+     */
+    public long getCachedTranslations(Class<?> type) {
+        LongAdder count = cachedTranslations.get(type);
+        return count == null ? 0L : count.sum();
+    }
+
+    /**
+     * 刷新耗时统计  包含失败的刷新
+     */
+    public TimerStats getRefreshes() {
+        return refreshes;
+    }
+
+    public long getRefreshFailures() {
+        return refreshFailures.sum();
+    }
+
+    public long getLastRefreshPayloadBytes() {
+        return lastRefreshPayloadBytes;
+    }
+
+    public long getLastRefreshSuccessTime() {
+        return lastRefreshSuccessTime;
+    }
+
+    /**
+     * 字典命中统计
+     */
+    public static class LookupStats {
+
+        private final LongAdder hits = new LongAdder();
+
+        private final LongAdder misses = new LongAdder();
+
+        /*取自缓存、没有查找字典的字段值*/
+        private final LongAdder cached = new LongAdder();
+
+        public long getHits() {
+            return hits.sum();
+        }
+
+        public long getMisses() {
+            return misses.sum();
+        }
+
+        public long getCached() {
+            return cached.sum();
+        }
+    }
+
+    /**
+     * 耗时统计
+     */
+    public static class TimerStats {
+
+        /*直方图桶数  第i个桶记录 [2^(i-1), 2^i) 纳秒*/
+        private static final int BUCKETS = 65;
+
+        private final LongAdder calls = new LongAdder();
+
+        private final LongAdder count = new LongAdder();
+
+        private final LongAdder totalNanos = new LongAdder();
+
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+
+        /*没有开启直方图时为null*/
+        private final LongAdder[] buckets;
+
+        TimerStats(boolean histogram) {
+            if (histogram) {
+                buckets = new LongAdder[BUCKETS];
+                for (int i = 0; i < BUCKETS; i++) {
+                    buckets[i] = new LongAdder();
+                }
+            } else {
+                buckets = null;
+            }
+        }
+
+        void record(int itemCount, long nanos) {
+            calls.increment();
+            count.add(itemCount);
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            if (buckets != null) {
+                buckets[64 - Long.numberOfLeadingZeros(Math.max(0L, nanos))].increment();
+            }
+        }
+
+        /**
+         * 记录次数
+         */
+        public long getCalls() {
+            return calls.sum();
+        }
+
+        /**
+         * 处理的对象数量  批量接口一次记录多个
+         */
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+
+        /**
+         * 平均每次耗时, 纳秒
+         */
+        public double getMeanNanos() {
+            long currentCalls = calls.sum();
+            return currentCalls == 0 ? 0D : (double) totalNanos.sum() / currentCalls;
+        }
+
+        /**
+         * 估算分位数  返回所在桶的上界, 误差在2倍以内
+         *
+         * @param quantile 0~1之间, 例如0.99
+         * @return 没有开启直方图或者没有记录时返回-1
+         */
+        public long getQuantileNanos(double quantile) {
+            if (buckets == null) {
+                return -1L;
+            }
+            long[] counts = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets[i].sum();
+                total += counts[i];
+            }
+            if (total == 0) {
+                return -1L;
+            }
+            long target = (long) Math.ceil(total * Math.min(1D, Math.max(0D, quantile)));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= target && counts[i] > 0) {
+                    return i == 0 ? 0L : i >= 63 ? Long.MAX_VALUE : (1L << i) - 1;
+                }
+            }
+            return getMaxNanos();
+        }
+    }
+}
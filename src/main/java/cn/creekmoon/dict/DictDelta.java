@@ -0,0 +1,75 @@
+package cn.creekmoon.dict;
+
+import com.alibaba.fastjson2.JSONObject;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 增量字典报文
+ * <p>
+ * 服务端可以只返回变化的字典类型, 格式如下:
+ * <pre>
+ * {
+ *   "format": "delta",
+ *   "version": 12,
+ *   "full": false,
+ *   "codes": {
+ *     "orderStatus": {"version": 3, "added": {"4": "已退款"}, "removed": ["0"]},
+ *     "payType": {"version": 7, "entries": {"1": "支付宝", "2": "微信"}}
+ *   },
+ *   "removedCodes": ["oldCode"]
+ * }
+ * </pre>
+ * 客户端收到后会在下一次请求中带上 dictVersion=version 参数, 服务端据此只返回之后的变化.
+ */
+@Data
+public class DictDelta {
+
+    public static final String FORMAT = "delta";
+
+    /*报文格式  固定为delta, 用于和全量字典区分*/
+    private String format;
+
+    /*服务端字典版本*/
+    private Long version;
+
+    /*是否为全量  全量时之前通过此地址获取、但本次没有返回的字典类型会被删除*/
+    private boolean full;
+
+    /*k=字典类型code v=该字典类型的变化*/
+    private Map<String, CodeDelta> codes;
+
+    /*被删除的字典类型*/
+    private List<String> removedCodes;
+
+    /**
+     * 是否为增量报文
+     *
+     * @param jsonObject 远端返回的报文
+     * @return
+     */
+    public static boolean isDelta(JSONObject jsonObject) {
+        return FORMAT.equals(jsonObject.get("format"));
+    }
+
+    /**
+     * 单个字典类型的变化
+     */
+    @Data
+    public static class CodeDelta {
+
+        /*该字典类型的版本  不大于本地已应用的版本时忽略*/
+        private Long version;
+
+        /*不为空时整体替换该字典类型, 然后再应用added/removed*/
+        private Map<String, String> entries;
+
+        /*新增或修改的字典项*/
+        private Map<String, String> added;
+
+        /*删除的字典key*/
+        private List<String> removed;
+    }
+}
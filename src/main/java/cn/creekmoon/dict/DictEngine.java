@@ -0,0 +1,358 @@
+package cn.creekmoon.dict;
+
+import com.alibaba.fastjson2.JSONObject;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+
+/**
+ * 字典引擎  拥有独立的字典存储、结果缓存和刷新调度, 一个JVM中可以同时存在多套字典(例如每个租户一套)
+ * <p>
+ * 通过 {@link #call(Supplier)} / {@link #run(Runnable)} 在引擎中执行时, {@link Dict} 的所有翻译和查找方法都使用该引擎的字典,
+ * 不在任何引擎中执行时使用全局的字典. 引擎只绑定在当前线程上, 不同引擎的翻译互不加锁:
+ * <pre>
+ * DictEngine engine = new DictEngine("tenantA");
+ * engine.enableRefresh(DictSource.http("tenantA", "http://dict/tenantA", 60L));
+ * engine.run(() -&gt; Dict.fillSelf(orders));
+ * </pre>
+ * 开启并行翻译或流式翻译时, 其他线程处理的段和批同样在发起方的引擎中执行.
+ * <p>
+ * 翻译计划和翻译器实例由所有引擎共用: 它们只描述类的结构, 与字典内容无关, 翻译器查找字典时同样使用当前的引擎.
+ * 多租户场景可以使用 {@link DictTenants} 按租户创建和淘汰引擎.
+ */
+@Slf4j
+public final class DictEngine implements AutoCloseable {
+
+    /*当前线程所在的引擎*/
+    private static final ThreadLocal<DictEngine> CURRENT = new ThreadLocal<>();
+
+    /*是否使用过引擎  没有使用过时不读取ThreadLocal, 不影响全局字典的翻译性能*/
+    private static volatile boolean scoped = false;
+
+    /*所有引擎共用的刷新线程  守护线程, 随JVM退出*/
+    private static ScheduledExecutorService timer = null;
+
+    private static ExecutorService loadExecutor = null;
+
+    private final String name;
+
+    final DictStore store;
+
+    /*结果缓存  关闭时为null*/
+    volatile DictResultCache resultCache = null;
+
+    /*多值翻译结果缓存  由 DefaultDictFieldTranslator 维护*/
+    volatile DefaultDictFieldTranslator.MultiValueCache multiValueCache = null;
+
+    private DictRefreshScheduler scheduler = null;
+
+    private volatile boolean closed = false;
+
+    /**
+     * 使用默认的 {@link DictSnapshotStore} 创建引擎
+     *
+     * @param name 引擎名称  用于日志
+     */
+    public DictEngine(String name) {
+        this(name, new DictSnapshotStore());
+    }
+
+    /**
+     * @param name  引擎名称  用于日志
+     * @param store 字典存储  不能与其他引擎或全局共用
+     */
+    public DictEngine(String name, DictStore store) {
+        if (name == null || name.isBlank() || store == null) {
+            RuntimeException runtimeException = new RuntimeException("字典引擎配置错误! 名称和存储不能为空");
+            log.error("字典引擎配置错误! name=[{}] store=[{}]", name, store, runtimeException);
+            throw runtimeException;
+        }
+        this.name = name;
+        this.store = store;
+    }
+
+    /**
+     * 获取当前线程所在的引擎
+     *
+     * @return 不在任何引擎中执行时返回null
+     */
+    public static DictEngine current() {
+        return scoped ? CURRENT.get() : null;
+    }
+
+    /**
+     * 在引擎中执行  可以嵌套, 结束后恢复之前的引擎
+     *
+     * @param supplier 翻译等操作
+     * @return supplier的返回值
+     */
+    public <T> T call(Supplier<T> supplier) {
+        if (!scoped) {
+            scoped = true;
+        }
+        DictEngine previous = CURRENT.get();
+        if (previous == this) {
+            return supplier.get();
+        }
+        CURRENT.set(this);
+        try {
+            return supplier.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * 在引擎中执行  可以嵌套, 结束后恢复之前的引擎
+     *
+     * @param runnable 翻译等操作
+     */
+    public void run(Runnable runnable) {
+        call(() -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    /**
+     * 写入字典  与 {@link Dict#addDictMap(Map)} 一致
+     *
+     * @param dictMap k1=字典类型code  k2=字典key  v=字典值
+     */
+    public void addDictMap(Map<String, Map<String, String>> dictMap) {
+        store.putAll(dictMap);
+    }
+
+    /**
+     * 使用该引擎的字典执行 {@link Dict#getDict(Object)}
+     */
+    public JSONObject getDict(Object object) {
+        return call(() -> Dict.getDict(object));
+    }
+
+    /**
+     * 使用该引擎的字典执行 {@link Dict#fillSelf(Object)}
+     */
+    public void fillSelf(Object object) {
+        run(() -> Dict.fillSelf(object));
+    }
+
+    /**
+     * 使用该引擎的字典执行 {@link Dict#translateAll(Collection, Class)}
+     */
+    public <T> List<JSONObject> translateAll(Collection<T> objects, Class<T> clazz) {
+        return call(() -> Dict.translateAll(objects, clazz));
+    }
+
+    /**
+     * 使用该引擎的字典执行 {@link Dict#fillAll(Collection, Class)}
+     */
+    public <T> void fillAll(Collection<T> objects, Class<T> clazz) {
+        run(() -> Dict.fillAll(objects, clazz));
+    }
+
+    /**
+     * 查找字典值
+     *
+     * @param dictCode 字典类型编码
+     * @param dictKey  字典key
+     * @return 没找到返回null
+     */
+    public String searchDictValue(String dictCode, String dictKey) {
+        return store.get(dictCode, dictKey);
+    }
+
+    /**
+     * 获取该引擎的所有字典值
+     */
+    public Map<String, Map<String, String>> getAll() {
+        return store.snapshot();
+    }
+
+    /**
+     * 开启该引擎的结果缓存  与 {@link DictResultCacheConfig#enable(int, long)} 相同, 但只缓存该引擎的翻译结果
+     *
+     * @param maxSize   最多缓存的结果数量
+     * @param maxWeight 所有结果的权重上限
+     */
+    public void enableResultCache(int maxSize, long maxWeight) {
+        if (maxSize < 1 || maxWeight < 1) {
+            RuntimeException runtimeException = new RuntimeException("结果缓存配置错误! 容量必须大于0");
+            log.error("结果缓存配置错误! engine=[{}] maxSize=[{}] maxWeight=[{}]", name, maxSize, maxWeight, runtimeException);
+            throw runtimeException;
+        }
+        resultCache = new DictResultCache(maxSize, maxWeight);
+    }
+
+    /**
+     * 关闭该引擎的结果缓存
+     */
+    public void disableResultCache() {
+        resultCache = null;
+    }
+
+    /**
+     * 清空该引擎的结果缓存
+     */
+    public void clearResultCache() {
+        DictResultCache current = resultCache;
+        if (current != null) {
+            current.clear();
+        }
+    }
+
+    /**
+     * 获取该引擎结果缓存的统计信息
+     *
+     * @return 没有开启时返回null
+     */
+    public DictResultCacheConfig.Stats getResultCacheStats() {
+        return DictResultCacheConfig.stats(resultCache);
+    }
+
+    /**
+     * 开启定时刷新  使用默认的刷新策略 {@link DictRefreshPolicy#DEFAULT}
+     *
+     * @param source 字典来源
+     */
+    public void enableRefresh(DictSource source) {
+        enableRefresh(source, DictRefreshPolicy.DEFAULT);
+    }
+
+    /**
+     * 开启定时刷新并立即加载一次  来源加载到的字典为该引擎的全部字典, 本次没有的字典类型会被删除; 加载失败时保留上一次的字典
+     * <p>
+     * 所有引擎共用同一个计时线程, 加载在独立的线程中执行, 慢的来源只会推迟自己的下一次加载.
+     *
+     * @param source 字典来源
+     * @param policy 刷新策略
+     */
+    public synchronized void enableRefresh(DictSource source, DictRefreshPolicy policy) {
+        if (source == null || policy == null) {
+            RuntimeException runtimeException = new RuntimeException("字典引擎配置错误! 来源和刷新策略不能为空");
+            log.error("字典引擎配置错误! engine=[{}] source=[{}] policy=[{}]", name, source, policy, runtimeException);
+            throw runtimeException;
+        }
+        if (closed) {
+            RuntimeException runtimeException = new RuntimeException("字典引擎已关闭! 无法开启刷新");
+            log.error("字典引擎已关闭! engine=[{}]", name, runtimeException);
+            throw runtimeException;
+        }
+        if (scheduler != null) {
+            scheduler.stop();
+        }
+        DictRefreshScheduler current = new DictRefreshScheduler("引擎 " + name + " 来源 " + source.getName(), () -> load(source),
+                TimeUnit.SECONDS.toMillis(source.getRefreshInterval()), policy, timer(), loadExecutor);
+        scheduler = current;
+        current.start(true);
+    }
+
+    /**
+     * 立即刷新一次  与定时刷新合并执行; 没有开启刷新或熔断中时返回false
+     */
+    public CompletableFuture<Boolean> refreshNow() {
+        DictRefreshScheduler current = getScheduler();
+        return current == null ? CompletableFuture.completedFuture(false) : current.trigger();
+    }
+
+    /**
+     * 获取刷新调度  可以查看熔断状态和连续失败次数
+     *
+     * @return 没有开启刷新时返回null
+     */
+    public synchronized DictRefreshScheduler getScheduler() {
+        return scheduler;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public DictStore getStore() {
+        return store;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * 停止刷新并释放缓存  已加载的字典保持不变, 仍然可以翻译
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (scheduler != null) {
+            scheduler.stop();
+            scheduler = null;
+        }
+        resultCache = null;
+        multiValueCache = null;
+    }
+
+    @Override
+    public String toString() {
+        return "DictEngine[" + name + "]";
+    }
+
+    /**
+     * 加载一次并整体替换该引擎的字典  只写入有变化的字典类型
+     */
+    private boolean load(DictSource source) {
+        if (closed) {
+            return false;
+        }
+        try {
+            Map<String, Map<String, String>> dictMap = source.load();
+            if (dictMap == null) {
+                log.info("[字典引擎]======引擎[{}]的来源[{}]无变化====", name, source.getName());
+                return true;
+            }
+            Map<String, Map<String, String>> changes = new HashMap<>();
+            dictMap.forEach((dictCode, entries) -> {
+                Map<String, String> current = entries == null ? Collections.emptyMap() : entries;
+                if (!current.equals(store.getEntries(dictCode))) {
+                    changes.put(dictCode, current);
+                }
+            });
+            Set<String> removedCodes = new HashSet<>(store.snapshot().keySet());
+            removedCodes.removeAll(dictMap.keySet());
+            synchronized (this) {
+                // 关闭后才完成的加载结果不再写入
+                if (closed) {
+                    return false;
+                }
+                if (changes.isEmpty() && removedCodes.isEmpty()) {
+                    log.info("[字典引擎]======引擎[{}]与当前字典一致无须更新====", name);
+                    return true;
+                }
+                // 来源返回的字典项可能被调用方继续持有, 需要复制
+                DictStoreConfig.change(store, changes, removedCodes, true);
+            }
+            log.info("[字典引擎]======引擎[{}]更新成功, 变化{}个, 删除{}个====", name, changes.size(), removedCodes.size());
+            return true;
+        } catch (Exception e) {
+            log.error("[字典引擎]=======引擎[{}]的来源[{}]加载失败, 保留上一次的字典====", name, source.getName(), e);
+            return false;
+        }
+    }
+
+    private static synchronized ScheduledExecutorService timer() {
+        if (timer == null) {
+            timer = Executors.newSingleThreadScheduledExecutor(DictSourceConfig.daemonThreadFactory("dict-engine-scheduler"));
+            loadExecutor = DictSourceConfig.newLoadExecutor();
+        }
+        return timer;
+    }
+}
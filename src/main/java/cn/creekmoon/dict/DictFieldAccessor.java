@@ -0,0 +1,85 @@
+package cn.creekmoon.dict;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+
+/**
+ * 字段访问器
+ * <p>
+ * 在构建翻译计划时一次性开放字段访问权限, 并生成读写字段的 MethodHandle.
+ * 之后的读写不再切换 setAccessible, 也不再按字段名查找, 多线程下也是安全的.
+ */
+final class DictFieldAccessor {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final Field field;
+
+    private final MethodHandle getter;
+
+    /*字段不可写(例如record的字段)时为null*/
+    private final MethodHandle setter;
+
+    private DictFieldAccessor(Field field, MethodHandle getter, MethodHandle setter) {
+        this.field = field;
+        this.getter = getter;
+        this.setter = setter;
+    }
+
+    /**
+     * 创建字段访问器
+     *
+     * @param field 字段
+     * @return 字段无法访问时返回null
+     */
+    static DictFieldAccessor of(Field field) {
+        if (!field.trySetAccessible()) {
+            return null;
+        }
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodHandle getter;
+        try {
+            getter = lookup.unreflectGetter(field).asType(GETTER_TYPE);
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+        MethodHandle setter;
+        try {
+            setter = lookup.unreflectSetter(field).asType(SETTER_TYPE);
+        } catch (IllegalAccessException e) {
+            setter = null;
+        }
+        return new DictFieldAccessor(field, getter, setter);
+    }
+
+    boolean isWritable() {
+        return setter != null;
+    }
+
+    Object get(Object target) {
+        try {
+            return (Object) getter.invokeExact(target);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    void set(Object target, Object value) {
+        if (setter == null) {
+            throw new RuntimeException("字段不可写! field=" + field);
+        }
+        try {
+            setter.invokeExact(target, value);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package cn.creekmoon.dict;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 字段级别的翻译计划
+ * <p>
+ * 在构建 {@link DictClassPlan} 时一次性解析好: 字段类型、注解、字典编码、后缀、翻译器、字段访问器.
+ * 翻译时只读取/写入字段值.
+ */
+final class DictFieldPlan {
+
+    /**
+     * 字段处理方式
+     */
+    enum Kind {
+        /*业务对象, 递归进入*/
+        NESTED,
+        /*集合, 递归进入或逐个元素翻译*/
+        COLLECTION,
+        /*直接可翻译的值*/
+        VALUE
+    }
+
+    final Field field;
+
+    final DictFieldAccessor accessor;
+
+    final String name;
+
+    final Kind kind;
+
+    /*字段上的注解  没有注解时为null*/
+    final DictMapping annotation;
+
+    /*解析后的字典编码  没有注解时为null*/
+    final String dictCode;
+
+    final String suffix;
+
+    /*翻译器实例  没有注解时为null*/
+    final DictFieldTranslator translator;
+
+    /*fillSelf 是否可以回写  只有String类型的注解字段才会回写*/
+    final boolean fillable;
+
+    DictFieldPlan(Field field, DictFieldAccessor accessor, Kind kind, DictMapping annotation) {
+        this.field = field;
+        this.accessor = accessor;
+        this.name = field.getName();
+        this.kind = kind;
+        this.annotation = annotation;
+        if (annotation != null) {
+            this.dictCode = DictMapping.AUTO_DICT_CODE.equals(annotation.dictCode()) ? field.getName() : annotation.dictCode();
+            this.suffix = annotation.suffix();
+            this.translator = Dict.getFieldTranslator(annotation.fieldTranslator(), field, annotation);
+        } else {
+            this.dictCode = null;
+            this.suffix = "";
+            this.translator = null;
+        }
+        this.fillable = kind == Kind.VALUE && annotation != null && field.getType().equals(String.class) && accessor.isWritable();
+    }
+
+    boolean isAnnotated() {
+        return annotation != null;
+    }
+
+    Object get(Object target) {
+        return accessor.get(target);
+    }
+
+    void set(Object target, Object value) {
+        accessor.set(target, value);
+    }
+
+    /**
+     * 使用翻译器翻译单个值
+     *
+     * @param dictObject 来源翻译的整个对象
+     * @param value      要翻译的值
+     * @return 翻译结果
+     */
+    String translate(Object dictObject, Object value) {
+        return translator.searchDictValue(dictObject, field, value, annotation);
+    }
+
+    /**
+     * 翻译集合字段
+     * 集合元素可递归翻译的则递归进入, 否则使用字段上注解的翻译器逐个翻译.
+     * 没有注解且集合中没有可递归翻译的元素时返回null
+     *
+     * @param dictObject      来源翻译的整个对象
+     * @param collectionValue 集合字段的值
+     * @return
+     */
+    List<Object> getCollectionDict(Object dictObject, Object collectionValue) {
+        if (collectionValue == null) {
+            return null;
+        }
+        Collection<?> collection = (Collection<?>) collectionValue;
+        if (DictParallelConfig.isParallel(collection.size())) {
+            return getCollectionDictParallel(dictObject, collection.toArray());
+        }
+        List<Object> result = new ArrayList<>(collection.size());
+        boolean anyTranslatable = false;
+        for (Object element : collection) {
+            if (Dict.isTranslatable(element)) {
+                anyTranslatable = true;
+                result.add(Dict.getDict(element));
+            } else {
+                result.add(isAnnotated() ? translate(dictObject, element) : null);
+            }
+        }
+        return isAnnotated() || anyTranslatable ? result : null;
+    }
+
+    /**
+     * 并行翻译集合字段  结果与顺序翻译一致
+     */
+    private List<Object> getCollectionDictParallel(Object dictObject, Object[] elements) {
+        Object[] result = new Object[elements.length];
+        DictParallelConfig.forEachRange(elements.length, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                if (Dict.isTranslatable(elements[i])) {
+                    result[i] = Dict.getDict(elements[i]);
+                } else {
+                    result[i] = isAnnotated() ? translate(dictObject, elements[i]) : null;
+                }
+            }
+        });
+        if (!isAnnotated() && Arrays.stream(elements).noneMatch(Dict::isTranslatable)) {
+            return null;
+        }
+        return new ArrayList<>(Arrays.asList(result));
+    }
+
+    /**
+     * 翻译结果是否只取决于字段值  默认翻译器只查字典, 相同的值一定得到相同的结果, 批量翻译时可以按值去重
+     */
+    boolean isPureTranslator() {
+        return translator != null && translator.getClass() == DefaultDictFieldTranslator.class;
+    }
+}
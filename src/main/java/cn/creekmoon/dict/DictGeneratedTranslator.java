@@ -0,0 +1,56 @@
+package cn.creekmoon.dict;
+
+import com.alibaba.fastjson2.JSONObject;
+
+import java.util.Set;
+
+/**
+ * 编译期生成的翻译器
+ * <p>
+ * 由 {@link cn.creekmoon.dict.processor.DictTranslatorProcessor} 为标记了 {@link GenerateDictTranslator} 的类生成.
+ * 只负责 {@link #fieldNames()} 中的字段, 业务对象和集合等其他字段仍由 {@link Dict} 的翻译计划处理.
+ *
+ * @param <T> 被翻译的类型
+ */
+public interface DictGeneratedTranslator<T> {
+
+    /**
+     * 生成类的类名后缀
+     */
+    String CLASS_NAME_SUFFIX = "DictTranslator";
+
+    /**
+     * 生成类负责翻译的字段名
+     *
+     * @return
+     */
+    Set<String> fieldNames();
+
+    /**
+     * 把负责的字段翻译结果放入result
+     *
+     * @param object 当前对象
+     * @param result 翻译结果
+     */
+    void getDict(T object, JSONObject result);
+
+    /**
+     * 把负责的字段翻译结果填充到原始字段上
+     *
+     * @param object 当前对象
+     */
+    void fillSelf(T object);
+
+    /**
+     * 计算生成类的全限定名  与被翻译类同包, 内部类的$替换为_
+     * 例如 com.foo.Order$Item -> com.foo.Order_ItemDictTranslator
+     *
+     * @param binaryName 被翻译类的binary name
+     * @return
+     */
+    static String translatorClassName(String binaryName) {
+        int lastDot = binaryName.lastIndexOf('.');
+        String packageName = lastDot < 0 ? "" : binaryName.substring(0, lastDot + 1);
+        return packageName + binaryName.substring(lastDot + 1).replace('$', '_') + CLASS_NAME_SUFFIX;
+    }
+}
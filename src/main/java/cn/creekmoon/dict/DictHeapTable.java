@@ -0,0 +1,179 @@
+package cn.creekmoon.dict;
+
+import java.util.*;
+
+/**
+ * 堆内的字典类型数据
+ * <p>
+ * 字典项和数字索引在构建时一起生成. 反向字典只有少数字典类型会用到(例如导入校验), 在第一次反向查找时才构建,
+ * 之后一直缓存到该字典类型发生变化(变化时会生成新的实例).
+ * 反向字典只对真正重复的值保存数组, 其他值直接保存唯一的字典key.
+ */
+final class DictHeapTable extends DictTable {
+
+    /*k=字典key v=字典值  不可修改*/
+    private final Map<String, String> entries;
+
+    /*key都是整数时的数字索引  否则为null*/
+    private final DictNumericIndex numericIndex;
+
+    /*k=字典值 v=唯一的字典key(String) 或 重复时的所有字典key(String[])  第一次反向查找时构建*/
+    private volatile Map<String, Object> reverseIndex;
+
+    /*反向字典的只读视图*/
+    private final Map<String, List<String>> reverse = new ReverseView();
+
+    /**
+     * @param entries 不可修改的字典项  调用方保证不再修改
+     */
+    DictHeapTable(Map<String, String> entries) {
+        this.entries = entries;
+        this.numericIndex = DictNumericIndex.build(entries);
+    }
+
+    @Override
+    String get(String key) {
+        return entries.get(key);
+    }
+
+    @Override
+    String get(long key) {
+        if (numericIndex != null) {
+            return numericIndex.get(key);
+        }
+        return entries.isEmpty() ? null : entries.get(String.valueOf(key));
+    }
+
+    @Override
+    List<String> getKeys(String value) {
+        return toKeys(reverseIndex().get(value));
+    }
+
+    @Override
+    Map<String, String> entries() {
+        return entries;
+    }
+
+    @Override
+    Map<String, List<String>> reverse() {
+        return reverse;
+    }
+
+    @Override
+    DictNumericIndex numericIndex() {
+        return numericIndex;
+    }
+
+    /**
+     * 反向字典是否已经构建
+     */
+    boolean isReverseBuilt() {
+        return reverseIndex != null;
+    }
+
+    private Map<String, Object> reverseIndex() {
+        Map<String, Object> index = reverseIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = reverseIndex;
+                if (index == null) {
+                    index = buildReverseIndex(entries);
+                    reverseIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> buildReverseIndex(Map<String, String> entries) {
+        if (entries.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, Object> index = new HashMap<>(Math.max(16, (int) (entries.size() / 0.75f) + 1));
+        boolean duplicated = false;
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            String value = entry.getValue();
+            if (value == null) {
+                continue;
+            }
+            Object existing = index.putIfAbsent(value, entry.getKey());
+            if (existing == null) {
+                continue;
+            }
+            // 构建时先用ArrayList收集重复的key, 最后统一转成数组
+            if (existing instanceof String key) {
+                List<String> keys = new ArrayList<>(2);
+                keys.add(key);
+                keys.add(entry.getKey());
+                index.put(value, keys);
+                duplicated = true;
+            } else {
+                ((List<String>) existing).add(entry.getKey());
+            }
+        }
+        if (duplicated) {
+            index.replaceAll((value, keys) -> keys instanceof List<?> list ? list.toArray(new String[0]) : keys);
+        }
+        return index;
+    }
+
+    private static List<String> toKeys(Object keys) {
+        if (keys == null) {
+            return null;
+        }
+        if (keys instanceof String key) {
+            return Collections.singletonList(key);
+        }
+        return Collections.unmodifiableList(Arrays.asList((String[]) keys));
+    }
+
+    /**
+     * 反向字典的只读视图  k=字典值 v=字典key
+     */
+    private final class ReverseView extends AbstractMap<String, List<String>> {
+
+        @Override
+        public List<String> get(Object key) {
+            return toKeys(reverseIndex().get(key));
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return reverseIndex().containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return reverseIndex().size();
+        }
+
+        @Override
+        public Set<Entry<String, List<String>>> entrySet() {
+            Map<String, Object> index = reverseIndex();
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, List<String>>> iterator() {
+                    Iterator<Entry<String, Object>> iterator = index.entrySet().iterator();
+                    return new Iterator<>() {
+                        @Override
+                        public boolean hasNext() {
+                            return iterator.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, List<String>> next() {
+                            Entry<String, Object> entry = iterator.next();
+                            return new SimpleImmutableEntry<>(entry.getKey(), toKeys(entry.getValue()));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return index.size();
+                }
+            };
+        }
+    }
+}
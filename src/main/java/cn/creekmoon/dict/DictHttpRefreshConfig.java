@@ -1,12 +1,15 @@
 package cn.creekmoon.dict;
 
-import cn.hutool.crypto.digest.DigestUtil;
+import cn.hutool.http.Header;
 import cn.hutool.http.HttpRequest;
 import cn.hutool.http.HttpResponse;
+import cn.hutool.http.HttpStatus;
 import com.alibaba.fastjson2.JSONObject;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -15,46 +18,238 @@ import java.util.concurrent.TimeUnit;
 @Slf4j
 public class DictHttpRefreshConfig {
 
+    /*增量刷新时携带的版本参数名*/
+    public static final String VERSION_PARAM = "dictVersion";
+
     // 记录上一次的MD5, 不一致则刷新字典
     public static String lastMD5 = "md5";
 
+    // 记录上一次响应的ETag, 下次请求时通过If-None-Match带上, 远端返回304则无须下载
+    public static String lastETag = null;
+
+    // 记录上一次增量报文的版本, 下次请求时通过dictVersion参数带上. 远端返回全量字典时为null
+    public static Long lastVersion = null;
+
+    // 增量报文中每个字典类型已应用的版本 k=字典类型code v=版本
+    public static final Map<String, Long> codeVersions = new ConcurrentHashMap<>();
+
     // 创建ScheduledThreadPool，参数为线程池的大小
     public static ScheduledExecutorService scheduledThreadPool = null;
 
+    // 当前的刷新调度  未开启时为null
+    private static volatile DictRefreshScheduler scheduler = null;
+
+    // 写入字典和刷新状态时使用的锁  定时刷新与推送刷新共用, 写入和保存本地快照不会交错
+    static final Object REFRESH_LOCK = new Object();
+
 
     /**
-     * 定时通过HTTP刷新字典
+     * 定时通过HTTP刷新字典  使用默认的刷新策略 {@link DictRefreshPolicy#DEFAULT}
+     * <p>
+     * 支持条件请求: 远端返回ETag时, 下次请求会带上If-None-Match, 返回304则跳过.
+     * 支持增量报文: 远端返回 {@link DictDelta} 格式时只应用变化的字典类型, 并在下次请求中带上dictVersion参数.
+     * 支持压缩和二进制报文: 请求时声明接受gzip(以及classpath中有zstd-jni时的zstd)和 {@link DictBinaryCodec#CONTENT_TYPE},
+     * 服务端可以使用 {@link DictPayloadEncoder} 按请求头编码.
      *
-     * @param url             仅支持GET类型的地址,获取字典数据  预期数据为<Map<String, Map<String, String>>>
+     * @param url             仅支持GET类型的地址,获取字典数据  预期数据为<Map<String, Map<String, String>>> 或 {@link DictDelta}
      * @param refreshInterval 刷新间隔,单位秒
      */
     public static void enable(String url, Long refreshInterval) {
+        enable(url, refreshInterval, DictRefreshPolicy.DEFAULT);
+    }
+
+    /**
+     * 定时通过HTTP刷新字典
+     * <p>
+     * 每次的间隔按刷新策略随机抖动, 失败后退避, 连续失败后熔断.
+     * 已经从本地快照加载了字典时, 首次刷新也会随机延迟, 避免同时启动的实例一起请求; 否则立即刷新.
+     *
+     * @param url             仅支持GET类型的地址,获取字典数据  预期数据为<Map<String, Map<String, String>>> 或 {@link DictDelta}
+     * @param refreshInterval 刷新间隔,单位秒
+     * @param policy          刷新策略
+     */
+    public static synchronized void enable(String url, Long refreshInterval, DictRefreshPolicy policy) {
+        disable();
+        scheduledThreadPool = Executors.newScheduledThreadPool(1);
+        DictRefreshScheduler current = new DictRefreshScheduler("HTTP " + url, () -> refresh(url),
+                TimeUnit.SECONDS.toMillis(refreshInterval), policy, scheduledThreadPool, scheduledThreadPool);
+        // 推送连接正常时跳过定时轮询
+        current.setPaused(DictPushConfig::isConnected);
+        scheduler = current;
+        boolean hasLocalDict = DictLocalSnapshot.snapshotFile != null && !DictStoreConfig.store.snapshot().isEmpty();
+        current.start(!hasLocalDict);
+    }
+
+    /**
+     * 停止定时刷新  已加载的字典保持不变
+     */
+    public static synchronized void disable() {
+        DictRefreshScheduler current = scheduler;
+        if (current != null) {
+            current.stop();
+            scheduler = null;
+        }
         if (scheduledThreadPool != null) {
             scheduledThreadPool.shutdownNow();
+            scheduledThreadPool = null;
         }
-        if (scheduledThreadPool == null) {
-            scheduledThreadPool = Executors.newScheduledThreadPool(1);
+    }
+
+    /**
+     * 立即刷新一次  与定时刷新合并执行, 不会并发请求; 熔断中时直接返回false
+     *
+     * @return 刷新是否成功  没有开启定时刷新时返回false
+     */
+    public static CompletableFuture<Boolean> refreshNow() {
+        DictRefreshScheduler current = scheduler;
+        return current == null ? CompletableFuture.completedFuture(false) : current.trigger();
+    }
+
+    /**
+     * 获取当前的刷新调度  可以查看熔断状态和连续失败次数
+     *
+     * @return 没有开启定时刷新时返回null
+     */
+    public static DictRefreshScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * 执行一次刷新并记录指标
+     *
+     * @return 是否成功  远端无变化也视为成功
+     */
+    static boolean refresh(String url) {
+        DictMetrics metrics = DictMetricsConfig.metrics;
+        long start = System.nanoTime();
+        long payloadBytes = refreshOnce(url);
+        if (metrics != null) {
+            metrics.refreshed(payloadBytes >= 0, System.nanoTime() - start, Math.max(0L, payloadBytes));
         }
-        scheduledThreadPool.scheduleWithFixedDelay(() -> refresh(url), 0, refreshInterval, TimeUnit.SECONDS);
+        return payloadBytes >= 0;
     }
 
-    private static void refresh(String url) {
-        HttpRequest httpRequest = HttpRequest.get(url);
-        try (HttpResponse httpResponse = httpRequest.execute()) {
-            String body = httpResponse.body();
-            String currentMD5 = DigestUtil.md5Hex(body);
-            if (lastMD5.equals(currentMD5)) {
-                log.info("[定时刷新字典]======字典定时检查与远端一致无须更新====");
-                return;
+    /**
+     * 执行一次刷新
+     *
+     * @return 报文字节数, 没有下载报文时为0, 失败时为-1
+     */
+    private static long refreshOnce(String url) {
+        HttpRequest httpRequest = DictPayloadReader.negotiate(HttpRequest.get(url));
+        Long requestVersion = lastVersion;
+        if (requestVersion != null) {
+            httpRequest.form(VERSION_PARAM, requestVersion);
+        }
+        if (lastETag != null) {
+            httpRequest.header("If-None-Match", lastETag);
+        }
+        try (HttpResponse httpResponse = httpRequest.executeAsync()) {
+            if (httpResponse.getStatus() == HttpStatus.HTTP_NOT_MODIFIED) {
+                log.info("[定时刷新字典]======字典定时检查与远端一致无须更新(304)====");
+                return 0L;
+            }
+            if (!httpResponse.isOk()) {
+                log.error("[定时刷新字典]=======字典更新失败, 远端返回状态码{}====", httpResponse.getStatus());
+                return -1L;
+            }
+            // 报文只读成一次字节数组, 直接解析成字典项. 二进制报文按Content-Type识别
+            DictPayloadReader payloadReader = DictPayloadReader.read(httpResponse);
+            boolean delta = DictDelta.FORMAT.equals(payloadReader.payload.get("format"));
+            if (!delta && !payloadReader.isDictMap()) {
+                log.error("[定时刷新字典]=======字典更新失败, 无法识别的报文格式====");
+                return -1L;
+            }
+            synchronized (REFRESH_LOCK) {
+                if (lastMD5.equals(payloadReader.md5)) {
+                    // 内容一致但ETag变化(例如远端重新部署)时也要记录, 之后的刷新才能得到304
+                    lastETag = httpResponse.header(Header.ETAG);
+                    log.info("[定时刷新字典]======字典定时检查与远端一致无须更新====");
+                    return payloadReader.bytes;
+                }
+                if (delta) {
+                    if (!applyDelta(JSONObject.from(payloadReader.payload).toJavaObject(DictDelta.class))) {
+                        return payloadReader.bytes;
+                    }
+                } else {
+                    // 请求期间推送已经应用了更新的增量, 不带版本的全量报文可能更旧, 交给下一次刷新
+                    if (!Objects.equals(requestVersion, lastVersion)) {
+                        log.info("[定时刷新字典]======请求期间字典已通过推送更新, 忽略本次全量报文====");
+                        return payloadReader.bytes;
+                    }
+                    Map<String, Map<String, String>> dict = payloadReader.asDictMap();
+                    boolean copy = !payloadReader.isFlat();
+                    DictStoreConfig.change(dict, Collections.emptySet(), copy);
+                    lastVersion = null;
+                }
+                lastMD5 = payloadReader.md5;
+                lastETag = httpResponse.header(Header.ETAG);
+                // 保存到本地快照  下次启动或远端不可用时使用
+                DictLocalSnapshot.save();
             }
-            JSONObject jsonObject = JSONObject.parseObject(body);
-            Map<String, Map<String, String>> dict = jsonObject.toJavaObject(Map.class);
-            Dict.addDictMap(dict);
-            lastMD5 = currentMD5;
             log.info("[定时刷新字典]======字典定时更新成功====");
+            return payloadReader.bytes;
         } catch (Exception e) {
             log.error("[定时刷新字典]=======字典更新失败====", e);
+            return -1L;
+        }
+    }
+
+    /**
+     * 应用增量报文  所有变化一次性写入. 调用方需要持有 {@link #REFRESH_LOCK}
+     *
+     * @param delta 增量报文
+     * @return 是否应用  比已应用的版本更旧的全量报文会被忽略
+     */
+    static boolean applyDelta(DictDelta delta) {
+        Long previousVersion = lastVersion;
+        if (delta.isFull() && delta.getVersion() != null && previousVersion != null && delta.getVersion() < previousVersion) {
+            log.info("[定时刷新字典]======全量报文版本{}比已应用的版本{}旧, 已忽略====", delta.getVersion(), previousVersion);
+            return false;
+        }
+        Map<String, DictDelta.CodeDelta> codes = delta.getCodes() == null ? Collections.emptyMap() : delta.getCodes();
+        Map<String, Long> appliedVersions = new HashMap<>();
+        Set<String> removedCodes = new HashSet<>();
+        DictStore store = DictStoreConfig.store;
+        // 读取旧字典项到写入之间不能插入其他写入  默认存储的写入也使用该实例的锁
+        synchronized (store) {
+            Map<String, Map<String, String>> changes = new HashMap<>();
+            if (delta.getRemovedCodes() != null) {
+                removedCodes.addAll(delta.getRemovedCodes());
+            }
+            // 全量报文中没有出现的字典类型视为已删除
+            if (delta.isFull()) {
+                codeVersions.keySet().stream().filter(code -> !codes.containsKey(code)).forEach(removedCodes::add);
+            }
+            codes.forEach((dictCode, codeDelta) -> {
+                Long appliedVersion = codeVersions.get(dictCode);
+                if (!delta.isFull() && codeDelta.getVersion() != null && appliedVersion != null && codeDelta.getVersion() <= appliedVersion) {
+                    return;
+                }
+                Map<String, String> entries = new HashMap<>();
+                if (codeDelta.getEntries() != null) {
+                    entries.putAll(codeDelta.getEntries());
+                } else if (store.getEntries(dictCode) != null) {
+                    entries.putAll(store.getEntries(dictCode));
+                }
+                if (codeDelta.getAdded() != null) {
+                    entries.putAll(codeDelta.getAdded());
+                }
+                if (codeDelta.getRemoved() != null) {
+                    codeDelta.getRemoved().forEach(entries::remove);
+                }
+                changes.put(dictCode, entries);
+                appliedVersions.put(dictCode, codeDelta.getVersion() == null ? 0L : codeDelta.getVersion());
+            });
+            removedCodes.removeAll(changes.keySet());
+            store.change(changes, removedCodes);
+        }
+        removedCodes.forEach(codeVersions::remove);
+        codeVersions.putAll(appliedVersions);
+        // 推送和轮询交错时, 版本不会倒退
+        if (previousVersion == null || delta.getVersion() == null || delta.getVersion() > previousVersion) {
+            lastVersion = delta.getVersion();
         }
+        return true;
     }
 
 
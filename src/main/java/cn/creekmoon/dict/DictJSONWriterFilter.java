@@ -0,0 +1,192 @@
+package cn.creekmoon.dict;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
+import com.alibaba.fastjson2.JSONWriter;
+import com.alibaba.fastjson2.filter.AfterFilter;
+import com.alibaba.fastjson2.filter.Filter;
+import com.alibaba.fastjson2.filter.PropertyPreFilter;
+import com.alibaba.fastjson2.writer.FieldWriter;
+import com.alibaba.fastjson2.writer.ObjectWriter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+
+/**
+ * fastjson2序列化集成
+ * <p>
+ * 实现了 {@link Dict} 的对象序列化时会通过 getDict() 输出 "dict" 属性, 需要先构建JSONObject(嵌套的对象和集合还会构建更多), 然后再序列化一遍.
+ * 注册此过滤器后, 跳过 getDict() 的调用, 在序列化对象的同时按翻译计划把翻译结果直接写入 {@link JSONWriter}, 不再创建中间的JSONObject.
+ * 只接管没有重写 getDict() 并且原本会输出 "dict" 属性的类; 重写了 getDict() 或通过 {@code @JSONField(serialize = false)}、
+ * {@code @JSONType(ignores = "dict")}、{@link JSONWriter.Feature#IgnoreNonFieldGetter} 等隐藏了该属性的类仍按fastjson2原本的方式处理.
+ * 接管时输出结果与原来一致.
+ * <pre>
+ * JSON.toJSONString(order, DictJSONWriterFilter.INSTANCE);
+ * // Spring MVC
+ * fastJsonConfig.setWriterFilters(DictJSONWriterFilter.INSTANCE);
+ * </pre>
+ */
+@Slf4j
+public class DictJSONWriterFilter extends AfterFilter implements PropertyPreFilter {
+
+    /*getDict() 对应的属性名*/
+    public static final String DICT_PROPERTY = "dict";
+
+    public static final DictJSONWriterFilter INSTANCE = new DictJSONWriterFilter();
+
+    /*类是否使用 Dict 默认的 getDict()  重写过的按原来的方式调用*/
+    private static final ClassValue<Boolean> DEFAULT_GET_DICT = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return type.getMethod("getDict").getDeclaringClass() == Dict.class;
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+    };
+
+    /**
+     * 序列化为JSON字符串  使用此过滤器输出翻译结果
+     *
+     * @param object   需要序列化的对象
+     * @param features 序列化特性
+     * @return
+     */
+    public static String toJSONString(Object object, JSONWriter.Feature... features) {
+        return JSON.toJSONString(object, new Filter[]{INSTANCE}, features);
+    }
+
+    /**
+     * 跳过默认的 getDict() 属性, 由 {@link #writeAfter(JSONWriter, Object)} 直接写出
+     */
+    @Override
+    public boolean process(JSONWriter writer, Object source, String name) {
+        return !(source instanceof Dict && DICT_PROPERTY.equals(name) && DEFAULT_GET_DICT.get(source.getClass()));
+    }
+
+    @Override
+    public void writeAfter(JSONWriter writer, Object object) {
+        if (!(object instanceof Dict) || !DEFAULT_GET_DICT.get(object.getClass()) || !isWritten(writer, object.getClass())
+                || !Dict.isTranslatable(object)) {
+            return;
+        }
+        writer.writeName(DICT_PROPERTY);
+        writer.writeColon();
+        writeDict(writer, object);
+    }
+
+    /**
+     * 没有过滤器时 fastjson2 是否会输出 "dict" 属性  属性被隐藏时 {@link #process(JSONWriter, Object, String)} 不会被调用, 这里也不能写出
+     */
+    private static boolean isWritten(JSONWriter writer, Class<?> type) {
+        ObjectWriter<?> objectWriter = writer.getObjectWriter(type);
+        FieldWriter<?> fieldWriter = objectWriter == null ? null : objectWriter.getFieldWriter(DICT_PROPERTY);
+        if (fieldWriter == null) {
+            return false;
+        }
+        // 与 fastjson2 一致: 没有对应字段的getter在开启 IgnoreNonFieldGetter 时不输出
+        return fieldWriter.field != null || (writer.getFeatures(fieldWriter.features) & JSONWriter.Feature.IgnoreNonFieldGetter.mask) == 0;
+    }
+
+    @Override
+    public void writeAfter(Object object) {
+        // 已经在 writeAfter(JSONWriter, Object) 中写出
+    }
+
+    /**
+     * 写出一个对象的翻译结果  与 {@link Dict#getDict(Object)} 一致
+     */
+    static void writeDict(JSONWriter writer, Object object) {
+        DictMetrics metrics = DictMetricsConfig.metrics;
+        long start = metrics == null ? 0L : System.nanoTime();
+        DictClassPlan plan = DictClassPlan.of(object.getClass());
+        writer.startObject();
+        if (plan.generated != null) {
+            // 生成的翻译器只能输出到JSONObject
+            JSONObject generated = new JSONObject();
+            plan.generated.getDict(object, generated);
+            generated.forEach((name, value) -> writeValue(writer, name, value));
+        }
+        for (DictFieldPlan fieldPlan : plan.fields) {
+            try {
+                writeField(writer, object, fieldPlan);
+            } catch (Exception e) {
+                log.error("翻译字典失败！field=[{}]", fieldPlan.field, e);
+            }
+        }
+        writer.endObject();
+        if (metrics != null) {
+            metrics.translated(object.getClass(), 1, System.nanoTime() - start);
+        }
+    }
+
+    private static void writeField(JSONWriter writer, Object object, DictFieldPlan fieldPlan) {
+        Object value = fieldPlan.get(object);
+        // 如果是业务对象, 则递归进入
+        if (fieldPlan.kind == DictFieldPlan.Kind.NESTED) {
+            if (Dict.isTranslatable(value)) {
+                writer.writeName(fieldPlan.name);
+                writer.writeColon();
+                writeDict(writer, value);
+            }
+            return;
+        }
+        // 如果是集合类型, 则尝试递归进入
+        if (fieldPlan.kind == DictFieldPlan.Kind.COLLECTION) {
+            if (value != null) {
+                writeCollection(writer, object, fieldPlan, (Collection<?>) value);
+            }
+            return;
+        }
+        writeValue(writer, fieldPlan.name, fieldPlan.translate(object, value));
+    }
+
+    /**
+     * 与 {@link DictFieldPlan#getCollectionDict(Object, Object)} 一致: 元素可递归翻译的则递归进入, 否则使用注解的翻译器逐个翻译
+     */
+    private static void writeCollection(JSONWriter writer, Object object, DictFieldPlan fieldPlan, Collection<?> collection) {
+        if (!fieldPlan.isAnnotated() && collection.stream().noneMatch(Dict::isTranslatable)) {
+            return;
+        }
+        writer.writeName(fieldPlan.name);
+        writer.writeColon();
+        writer.startArray();
+        int i = 0;
+        for (Object element : collection) {
+            if (i++ > 0) {
+                writer.writeComma();
+            }
+            if (Dict.isTranslatable(element)) {
+                writeDict(writer, element);
+            } else if (fieldPlan.isAnnotated()) {
+                writeString(writer, fieldPlan.translate(object, element));
+            } else {
+                writer.writeNull();
+            }
+        }
+        writer.endArray();
+    }
+
+    private static void writeValue(JSONWriter writer, String name, Object value) {
+        // JSONObject中的null值默认不输出
+        if (value == null && !writer.isWriteNulls()) {
+            return;
+        }
+        writer.writeName(name);
+        writer.writeColon();
+        if (value instanceof String string) {
+            writer.writeString(string);
+        } else {
+            writer.writeAny(value);
+        }
+    }
+
+    private static void writeString(JSONWriter writer, String value) {
+        if (value == null) {
+            writer.writeNull();
+        } else {
+            writer.writeString(value);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package cn.creekmoon.dict;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.*;
+import java.util.*;
+
+
+/**
+ * 本地字典快照
+ * <p>
+ * 每次HTTP刷新成功后, 把当前字典以 {@link DictBinaryCodec} 格式写入本地文件(先写临时文件再原子替换).
+ * 启动时一次读入该文件并解码, 不需要等待第一次HTTP刷新就可以翻译, 远端不可用时也能使用上一次的字典.
+ * <p>
+ * 本地快照只补充当前还没有的字典类型, 不会覆盖已经加载的字典.
+ * 完整加载时会一并恢复ETag/MD5/增量版本, 之后的第一次HTTP刷新可以直接得到304或只下载增量.
+ */
+@Slf4j
+public class DictLocalSnapshot {
+
+    static final String META_MD5 = "md5";
+
+    static final String META_ETAG = "etag";
+
+    static final String META_VERSION = "version";
+
+    static final String META_CODE_VERSION_PREFIX = "codeVersion.";
+
+    // 本地快照文件  为null时不保存
+    public static volatile Path snapshotFile = null;
+
+    /**
+     * 开启本地快照  文件存在时立即加载
+     * 请在 {@link DictHttpRefreshConfig#enable(String, Long)} 之前调用
+     *
+     * @param path 本地快照文件路径
+     * @return 是否从本地文件加载了字典
+     */
+    public static boolean enable(String path) {
+        return enable(Paths.get(path));
+    }
+
+    /**
+     * 开启本地快照  文件存在时立即加载
+     *
+     * @param path 本地快照文件路径
+     * @return 是否从本地文件加载了字典
+     */
+    public static boolean enable(Path path) {
+        snapshotFile = path;
+        return load(path);
+    }
+
+    /**
+     * 关闭本地快照  不会删除已有的文件
+     */
+    public static void disable() {
+        snapshotFile = null;
+    }
+
+    /**
+     * 读取本地快照文件  解码后的字典都在堆内, 文件只读一次, 不需要保留映射
+     *
+     * @param path 本地快照文件路径
+     * @return 是否加载了字典  文件不存在或已损坏时返回false
+     */
+    public static boolean load(Path path) {
+        if (!Files.isRegularFile(path)) {
+            log.info("[本地字典快照]======本地快照不存在, 等待远端刷新. path={}====", path);
+            return false;
+        }
+        DictBinaryCodec.Payload payload;
+        try {
+            payload = DictBinaryCodec.decode(ByteBuffer.wrap(Files.readAllBytes(path)));
+        } catch (Exception e) {
+            log.error("[本地字典快照]=======本地快照读取失败, 已忽略. path={}====", path, e);
+            return false;
+        }
+        Set<String> skippedCodes = new HashSet<>();
+        DictStore store = DictStoreConfig.store;
+        // 判断是否已存在到写入之间不能插入其他写入
+        synchronized (store) {
+            Map<String, Map<String, String>> changes = new HashMap<>();
+            payload.dictMap().forEach((dictCode, entries) -> {
+                if (store.getEntries(dictCode) == null) {
+                    changes.put(dictCode, entries);
+                } else {
+                    skippedCodes.add(dictCode);
+                }
+            });
+            if (!changes.isEmpty()) {
+                DictStoreConfig.change(changes, Collections.emptySet(), false);
+            }
+        }
+        // 本地快照完整生效且还没有远端刷新过时, 才恢复刷新状态
+        if (skippedCodes.isEmpty() && DictHttpRefreshConfig.lastETag == null && DictHttpRefreshConfig.lastVersion == null) {
+            restoreMeta(payload.meta());
+        }
+        log.info("[本地字典快照]======本地快照加载成功, 字典类型{}个, 已存在而跳过{}个. path={}====",
+                payload.dictMap().size() - skippedCodes.size(), skippedCodes.size(), path);
+        return true;
+    }
+
+    /**
+     * 把当前字典写入本地快照文件
+     *
+     * @return 是否写入成功  没有开启时返回false
+     */
+    public static boolean save() {
+        Path path = snapshotFile;
+        return path != null && save(path);
+    }
+
+    /**
+     * 把当前字典写入指定文件  先写临时文件再替换, 读取方不会看到写了一半的文件
+     * <p>
+     * 多个来源、推送和定时刷新可能同时保存, 写入按顺序执行, 每次使用单独的临时文件, 后完成的写入总是包含最新的字典.
+     *
+     * @param path 文件路径
+     * @return 是否写入成功
+     */
+    public static synchronized boolean save(Path path) {
+        Path tempFile = null;
+        try {
+            Path directory = path.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            // 在锁内读取字典, 写入顺序与读取顺序一致
+            Map<String, Map<String, String>> dictMap = DictStoreConfig.store.snapshot();
+            tempFile = Files.createTempFile(directory, path.getFileName() + ".", ".tmp");
+            try (OutputStream out = Files.newOutputStream(tempFile)) {
+                DictBinaryCodec.encode(dictMap, currentMeta(), out);
+            }
+            try {
+                Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+            tempFile = null;
+            return true;
+        } catch (IOException e) {
+            log.error("[本地字典快照]=======本地快照写入失败. path={}====", path, e);
+            return false;
+        } finally {
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException e) {
+                    // 临时文件删除失败时忽略
+                }
+            }
+        }
+    }
+
+    private static Map<String, String> currentMeta() {
+        Map<String, String> meta = new LinkedHashMap<>();
+        meta.put(META_MD5, DictHttpRefreshConfig.lastMD5);
+        if (DictHttpRefreshConfig.lastETag != null) {
+            meta.put(META_ETAG, DictHttpRefreshConfig.lastETag);
+        }
+        if (DictHttpRefreshConfig.lastVersion != null) {
+            meta.put(META_VERSION, String.valueOf(DictHttpRefreshConfig.lastVersion));
+        }
+        DictHttpRefreshConfig.codeVersions.forEach((dictCode, version) -> meta.put(META_CODE_VERSION_PREFIX + dictCode, String.valueOf(version)));
+        return meta;
+    }
+
+    private static void restoreMeta(Map<String, String> meta) {
+        try {
+            if (meta.get(META_MD5) != null) {
+                DictHttpRefreshConfig.lastMD5 = meta.get(META_MD5);
+            }
+            DictHttpRefreshConfig.lastETag = meta.get(META_ETAG);
+            DictHttpRefreshConfig.lastVersion = meta.get(META_VERSION) == null ? null : Long.valueOf(meta.get(META_VERSION));
+            meta.forEach((key, value) -> {
+                if (key.startsWith(META_CODE_VERSION_PREFIX) && value != null) {
+                    DictHttpRefreshConfig.codeVersions.put(key.substring(META_CODE_VERSION_PREFIX.length()), Long.valueOf(value));
+                }
+            });
+        } catch (NumberFormatException e) {
+            log.error("[本地字典快照]=======本地快照中的刷新状态无效, 已忽略====", e);
+            DictHttpRefreshConfig.lastETag = null;
+            DictHttpRefreshConfig.lastVersion = null;
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package cn.creekmoon.dict;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * 堆外字典存储
+ * <p>
+ * 把数据量很大的字典类型(地区编码、商品SKU等)保存在内存映射文件中, 字典项和反向字典都不占用堆内存, 也不会增加GC的负担.
+ * 多个进程映射同一个文件时, 数据只在操作系统的页缓存中保存一份. 查找仍然通过 {@link Dict} 的方法进行, 调用方无感知.
+ * <p>
+ * 两种用法:
+ * <ul>
+ *     <li>{@link #write(Map, Path)} 由一个进程或构建任务生成文件, 各进程通过 {@link #load(Path)} 映射同一个文件</li>
+ *     <li>{@link #enable(Path, int)} 之后, 字典项数量达到阈值的字典类型在更新时自动写入目录下的文件并映射</li>
+ * </ul>
+ * 文件写入后不会再修改, 更新时总是生成新文件再替换.
+ * 自动转存生成的文件在被替换后立即删除(已有的映射仍然有效); 删除失败时(例如Windows下文件仍被映射)在映射不再被引用后删除,
+ * 进程异常退出留下的文件在下次开启时清理.
+ */
+@Slf4j
+public class DictMappedStore {
+
+    /*魔数 "CDMT"*/
+    static final int MAGIC = 0x43444D54;
+
+    static final byte FORMAT_VERSION = 1;
+
+    private static final String FILE_SUFFIX = ".dict";
+
+    // 自动转存的目录  为null时不转存
+    private static volatile Path offHeapDirectory = null;
+
+    // 达到该字典项数量的字典类型自动转存到堆外
+    private static volatile int minEntries = Integer.MAX_VALUE;
+
+    // 自动转存生成、还没有删除的文件  多个存储(例如每个引擎)可以转存同一个字典类型, 按文件记录
+    private static final Set<Path> offloadedFiles = ConcurrentHashMap.newKeySet();
+
+    // 转存得到的字典数据对应的文件  弱引用, 不影响Cleaner回收
+    private static final Map<DictTable, Path> offloadedTables = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private static final AtomicLong fileSequence = new AtomicLong();
+
+    /*映射不再被引用后删除对应的文件*/
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    /**
+     * 开启自动转存  之后更新的字典类型, 字典项数量达到阈值时保存到堆外. 只对默认的 {@link DictSnapshotStore} 生效
+     *
+     * @param directory  存放文件的目录
+     * @param minEntries 字典项数量阈值
+     */
+    public static void enable(Path directory, int minEntries) {
+        if (minEntries < 1) {
+            RuntimeException runtimeException = new RuntimeException("堆外字典配置错误! 阈值必须大于0");
+            log.error("堆外字典配置错误! minEntries=[{}]", minEntries, runtimeException);
+            throw runtimeException;
+        }
+        cleanDirectory(directory);
+        DictMappedStore.minEntries = minEntries;
+        DictMappedStore.offHeapDirectory = directory;
+    }
+
+    /**
+     * 删除已经退出的进程留下的转存文件  文件名中带有生成文件的进程号, 仍在运行的进程的文件不会删除
+     */
+    private static void cleanDirectory(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + FILE_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String[] parts = name.substring(0, name.length() - FILE_SUFFIX.length()).split("-");
+                if (parts.length < 4) {
+                    continue;
+                }
+                try {
+                    long pid = Long.parseLong(parts[parts.length - 2]);
+                    if (pid != ProcessHandle.current().pid() && ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false)) {
+                        continue;
+                    }
+                    if (pid == ProcessHandle.current().pid() && offloadedFiles.contains(file)) {
+                        continue;
+                    }
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                deleteQuietly(file);
+            }
+        } catch (IOException e) {
+            log.warn("[堆外字典]=======清理转存目录失败. path={}====", directory, e);
+        }
+    }
+
+    /**
+     * 关闭自动转存  已经转存的字典类型保持不变, 下次更新时回到堆内
+     */
+    public static void disable() {
+        offHeapDirectory = null;
+        minEntries = Integer.MAX_VALUE;
+    }
+
+    /**
+     * 把字典写入文件  先写临时文件再原子替换, 已经映射旧文件的进程不受影响
+     *
+     * @param dictMap k1=字典类型code  k2=字典key  v=字典值
+     * @param file    文件路径
+     */
+    public static void write(Map<String, ? extends Map<String, String>> dictMap, Path file) throws IOException {
+        List<String> codes = new ArrayList<>(dictMap.keySet());
+        List<byte[]> sections = new ArrayList<>(codes.size());
+        for (String code : codes) {
+            Map<String, String> entries = dictMap.get(code);
+            sections.add(buildSection(entries == null ? Collections.emptyMap() : entries));
+        }
+        // 文件头: 魔数 版本 字典类型数量, 之后每个字典类型为 code 数据段偏移 数据段长度
+        ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+        DataOutputStream header = new DataOutputStream(headerBytes);
+        header.writeInt(MAGIC);
+        header.writeByte(FORMAT_VERSION);
+        header.writeInt(codes.size());
+        int directorySize = 0;
+        for (String code : codes) {
+            directorySize += 4 + code.getBytes(StandardCharsets.UTF_8).length + 16;
+        }
+        long offset = 9 + directorySize;
+        for (int i = 0; i < codes.size(); i++) {
+            byte[] name = codes.get(i).getBytes(StandardCharsets.UTF_8);
+            header.writeInt(name.length);
+            header.write(name);
+            header.writeLong(offset);
+            header.writeLong(sections.get(i).length);
+            offset += sections.get(i).length;
+        }
+        header.flush();
+
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Path tempFile = file.resolveSibling(file.getFileName() + "." + fileSequence.incrementAndGet() + ".tmp");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tempFile), 65536)) {
+            headerBytes.writeTo(out);
+            for (byte[] section : sections) {
+                out.write(section);
+            }
+        }
+        try {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * 映射文件, 并替换当前快照中对应的字典类型
+     * 当前字典存储不是 {@link DictSnapshotStore} 时, 字典项会通过只读视图写入该存储
+     *
+     * @param file 由 {@link #write(Map, Path)} 生成的文件
+     * @return 加载的字典类型
+     */
+    public static Set<String> load(Path file) throws IOException {
+        Map<String, DictTable> tables = open(file);
+        DictStore store = DictStoreConfig.store;
+        if (store instanceof DictSnapshotStore snapshotStore) {
+            snapshotStore.changeTables(tables, Collections.emptySet());
+        } else {
+            Map<String, Map<String, String>> changes = new LinkedHashMap<>();
+            tables.forEach((dictCode, table) -> changes.put(dictCode, table.entries()));
+            store.change(changes, Collections.emptySet());
+        }
+        log.info("[堆外字典]======已映射字典文件, 字典类型{}个. path={}====", tables.size(), file);
+        return Collections.unmodifiableSet(tables.keySet());
+    }
+
+    /**
+     * 映射文件  每个字典类型单独映射, 关闭文件后映射仍然有效
+     */
+    static Map<String, DictTable> open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), Integer.MAX_VALUE));
+            if (header.remaining() < 9 || header.getInt() != MAGIC) {
+                throw new IOException("堆外字典文件格式错误! 魔数不匹配: " + file);
+            }
+            byte formatVersion = header.get();
+            if (formatVersion != FORMAT_VERSION) {
+                throw new IOException("堆外字典文件格式错误! 不支持的格式版本: " + formatVersion);
+            }
+            int codeCount = header.getInt();
+            Map<String, DictTable> tables = new LinkedHashMap<>(Math.max(16, (int) (codeCount / 0.75f) + 1));
+            for (int i = 0; i < codeCount; i++) {
+                byte[] name = new byte[header.getInt()];
+                header.get(name);
+                long offset = header.getLong();
+                long length = header.getLong();
+                if (length > Integer.MAX_VALUE || offset + length > channel.size()) {
+                    throw new IOException("堆外字典文件格式错误! 数据段越界: " + file);
+                }
+                ByteBuffer section = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+                DictMappedTable table = new DictMappedTable(section);
+                tables.put(new String(name, StandardCharsets.UTF_8), table.size() == 0 ? DictTable.EMPTY : table);
+            }
+            return tables;
+        }
+    }
+
+    /**
+     * 是否需要转存到堆外
+     */
+    static boolean isOffHeap(int size) {
+        return size >= minEntries && offHeapDirectory != null;
+    }
+
+    /**
+     * 把一个字典类型转存到堆外  失败时回到堆内, 不影响字典更新
+     *
+     * @param dictCode 字典类型code
+     * @param entries  字典项
+     * @param previous 同一个存储中被替换的字典数据  可以为null
+     * @return
+     */
+    static DictTable offload(String dictCode, Map<String, String> entries, DictTable previous) {
+        Path directory = offHeapDirectory;
+        if (directory == null) {
+            return DictTable.of(entries);
+        }
+        Path file = directory.resolve(fileName(dictCode));
+        try {
+            write(Collections.singletonMap(dictCode, entries), file);
+            DictTable table = open(file).get(dictCode);
+            offloadedFiles.add(file);
+            offloadedTables.put(table, file);
+            // 旧文件的映射仍然有效, 删除只释放目录项, 还在读取旧快照的线程不受影响
+            Path previousFile = previous == null ? null : offloadedTables.get(previous);
+            if (previousFile != null && deleteQuietly(previousFile)) {
+                offloadedFiles.remove(previousFile);
+            }
+            // 删除失败或字典类型回到堆内时, 在映射不再被引用后删除
+            CLEANER.register(table, () -> {
+                offloadedFiles.remove(file);
+                deleteQuietly(file);
+            });
+            return table;
+        } catch (Exception e) {
+            log.error("[堆外字典]=======字典类型转存堆外失败, 使用堆内存储. dictCode={}====", dictCode, e);
+            deleteQuietly(file);
+            return DictTable.of(entries);
+        }
+    }
+
+    /**
+     * 生成文件名  字典类型code中的特殊字符替换为下划线, 加上hash和序号避免冲突
+     */
+    private static String fileName(String dictCode) {
+        String safeCode = dictCode.replaceAll("[^A-Za-z0-9_-]", "_");
+        if (safeCode.length() > 64) {
+            safeCode = safeCode.substring(0, 64);
+        }
+        return safeCode + "-" + Integer.toHexString(dictCode.hashCode()) + "-" + ProcessHandle.current().pid() + "-" + fileSequence.incrementAndGet() + FILE_SUFFIX;
+    }
+
+    private static boolean deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+            return true;
+        } catch (IOException e) {
+            // Windows下仍被映射的文件无法删除, 映射不再被引用后或下次开启时再删
+            log.debug("[堆外字典]======删除旧文件失败, 稍后再删除. path={}====", file);
+            return false;
+        }
+    }
+
+    /**
+     * 构建一个字典类型的数据段  结构见 {@link DictMappedTable}
+     */
+    private static byte[] buildSection(Map<String, String> entries) throws IOException {
+        int size = 0;
+        for (String key : entries.keySet()) {
+            if (key != null) {
+                size++;
+            }
+        }
+        int slotCount = DictMappedTable.slotCount(size);
+        long poolStart = DictMappedTable.HEADER_SIZE + (long) slotCount * 8 + (long) size * DictMappedTable.ENTRY_SIZE;
+        // 字符串池  相同的值只写一次
+        ByteArrayOutputStream poolBytes = new ByteArrayOutputStream(Math.max(64, size * 16));
+        DataOutputStream pool = new DataOutputStream(poolBytes);
+        Map<String, Integer> valueOffsets = new HashMap<>();
+        int[] entryData = new int[size * 4];
+        int[] keySlots = new int[slotCount];
+        int[] valueSlots = new int[slotCount];
+        int mask = slotCount - 1;
+        int index = 0;
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            String key = entry.getKey();
+            String value = entry.getValue();
+            if (key == null) {
+                continue;
+            }
+            int keyOffset = (int) (poolStart + pool.size());
+            writePoolString(pool, key);
+            int valueOffset = -1;
+            if (value != null) {
+                Integer existing = valueOffsets.get(value);
+                if (existing == null) {
+                    valueOffset = (int) (poolStart + pool.size());
+                    writePoolString(pool, value);
+                    valueOffsets.put(value, valueOffset);
+                } else {
+                    valueOffset = existing;
+                }
+            }
+            if (poolStart + pool.size() > Integer.MAX_VALUE) {
+                throw new IOException("堆外字典数据段超过2GB, 请拆分字典类型");
+            }
+            entryData[index * 4] = key.hashCode();
+            entryData[index * 4 + 1] = keyOffset;
+            entryData[index * 4 + 2] = value == null ? 0 : value.hashCode();
+            entryData[index * 4 + 3] = valueOffset;
+            int slot = DictMappedTable.spread(key.hashCode()) & mask;
+            while (keySlots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            keySlots[slot] = index + 1;
+            if (value != null) {
+                slot = DictMappedTable.spread(value.hashCode()) & mask;
+                while (valueSlots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                valueSlots[slot] = index + 1;
+            }
+            index++;
+        }
+        pool.flush();
+        ByteBuffer section = ByteBuffer.allocate((int) poolStart + poolBytes.size());
+        section.putInt(size);
+        section.putInt(slotCount);
+        section.asIntBuffer().put(keySlots).put(valueSlots).put(entryData);
+        section.position((int) poolStart);
+        section.put(poolBytes.toByteArray());
+        return section.array();
+    }
+
+    private static void writePoolString(DataOutputStream pool, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        pool.writeInt(bytes.length);
+        pool.write(bytes);
+    }
+}
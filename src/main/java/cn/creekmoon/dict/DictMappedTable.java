@@ -0,0 +1,279 @@
+package cn.creekmoon.dict;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * 内存映射文件中的字典类型数据
+ * <p>
+ * 字典项不占用堆内存, 多个进程映射同一个文件时共享操作系统的页缓存. 一个字典类型在文件中的结构(偏移量都相对于该段的开头):
+ * <pre>
+ * int   字典项数量 N
+ * int   槽位数量 S  2的幂, 不小于2N
+ * int[S]  按字典key哈希的开放寻址索引  值为字典项下标+1, 0表示空槽
+ * int[S]  按字典值哈希的开放寻址索引  用于反向查找
+ * int[4N] 字典项: key的hashCode, key在字符串池中的偏移, 值的hashCode, 值在字符串池中的偏移(-1表示null)
+ * 字符串池: 每个字符串为 int(UTF-8字节数) 加 UTF-8字节, 相同的值只保存一次
+ * </pre>
+ * 只使用ByteBuffer的绝对位置读取, 多线程并发读取是安全的. 每次查找会把命中的值解码成新的String.
+ */
+final class DictMappedTable extends DictTable {
+
+    static final int HEADER_SIZE = 8;
+
+    static final int ENTRY_SIZE = 16;
+
+    private final ByteBuffer buffer;
+
+    private final int size;
+
+    private final int mask;
+
+    private final int keySlotsOffset;
+
+    private final int valueSlotsOffset;
+
+    private final int entriesOffset;
+
+    private final Map<String, String> entriesView;
+
+    private volatile Map<String, List<String>> reverseView;
+
+    /**
+     * @param buffer 一个字典类型的数据段
+     */
+    DictMappedTable(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.size = buffer.getInt(0);
+        int slotCount = buffer.getInt(4);
+        this.mask = slotCount - 1;
+        this.keySlotsOffset = HEADER_SIZE;
+        this.valueSlotsOffset = keySlotsOffset + slotCount * 4;
+        this.entriesOffset = valueSlotsOffset + slotCount * 4;
+        this.entriesView = new EntriesView();
+    }
+
+    /**
+     * 槽位数量  不小于字典项数量的2倍
+     */
+    static int slotCount(int size) {
+        return Integer.highestOneBit(Math.max(2, size * 2 - 1)) << 1;
+    }
+
+    /**
+     * 打散hashCode的低位  写入和读取必须一致
+     */
+    static int spread(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    int size() {
+        return size;
+    }
+
+    @Override
+    String get(String key) {
+        int entry = findEntry(key);
+        return entry < 0 ? null : readString(valueOffset(entry));
+    }
+
+    @Override
+    String get(long key) {
+        return get(Long.toString(key));
+    }
+
+    @Override
+    List<String> getKeys(String value) {
+        if (value == null) {
+            return null;
+        }
+        int hash = value.hashCode();
+        List<String> result = null;
+        int slot = spread(hash) & mask;
+        while (true) {
+            int entry = buffer.getInt(valueSlotsOffset + slot * 4) - 1;
+            if (entry < 0) {
+                break;
+            }
+            if (buffer.getInt(entryOffset(entry) + 8) == hash && equalsAt(valueOffset(entry), value)) {
+                if (result == null) {
+                    result = new ArrayList<>(1);
+                }
+                result.add(readString(keyOffset(entry)));
+            }
+            slot = (slot + 1) & mask;
+        }
+        return result == null ? null : Collections.unmodifiableList(result);
+    }
+
+    @Override
+    Map<String, String> entries() {
+        return entriesView;
+    }
+
+    @Override
+    Map<String, List<String>> reverse() {
+        Map<String, List<String>> view = reverseView;
+        if (view == null) {
+            view = new ReverseView();
+            reverseView = view;
+        }
+        return view;
+    }
+
+    private int findEntry(String key) {
+        if (key == null || size == 0) {
+            return -1;
+        }
+        int hash = key.hashCode();
+        int slot = spread(hash) & mask;
+        while (true) {
+            int entry = buffer.getInt(keySlotsOffset + slot * 4) - 1;
+            if (entry < 0) {
+                return -1;
+            }
+            if (buffer.getInt(entryOffset(entry)) == hash && equalsAt(keyOffset(entry), key)) {
+                return entry;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private int entryOffset(int entry) {
+        return entriesOffset + entry * ENTRY_SIZE;
+    }
+
+    private int keyOffset(int entry) {
+        return buffer.getInt(entryOffset(entry) + 4);
+    }
+
+    private int valueOffset(int entry) {
+        return buffer.getInt(entryOffset(entry) + 12);
+    }
+
+    private String readString(int offset) {
+        if (offset < 0) {
+            return null;
+        }
+        int length = buffer.getInt(offset);
+        byte[] bytes = new byte[length];
+        buffer.get(offset + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 比较字符串池中的字符串与s是否相等  ASCII部分逐字节比较, 不产生对象
+     */
+    private boolean equalsAt(int offset, String s) {
+        if (offset < 0) {
+            return false;
+        }
+        int length = buffer.getInt(offset);
+        int start = offset + 4;
+        if (length < s.length()) {
+            // UTF-8字节数不会少于字符数
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            byte b = buffer.get(start + i);
+            if (b < 0) {
+                // 遇到非ASCII字符, 解码后比较
+                return s.equals(readString(offset));
+            }
+            if (i >= s.length() || b != s.charAt(i)) {
+                return false;
+            }
+        }
+        return length == s.length();
+    }
+
+    /**
+     * 字典项的只读视图  get走哈希索引, 遍历时逐个解码
+     */
+    private final class EntriesView extends AbstractMap<String, String> {
+
+        @Override
+        public String get(Object key) {
+            return key instanceof String s ? DictMappedTable.this.get(s) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String s && findEntry(s) >= 0;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Set<Entry<String, String>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, String>> iterator() {
+                    return new Iterator<>() {
+                        private int entry = 0;
+
+                        @Override
+                        public boolean hasNext() {
+                            return entry < size;
+                        }
+
+                        @Override
+                        public Entry<String, String> next() {
+                            if (entry >= size) {
+                                throw new NoSuchElementException();
+                            }
+                            Entry<String, String> result = new SimpleImmutableEntry<>(readString(keyOffset(entry)), readString(valueOffset(entry)));
+                            entry++;
+                            return result;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+    }
+
+    /**
+     * 反向字典的只读视图  get走值的哈希索引, 遍历时才在堆内构建完整的反向字典
+     */
+    private final class ReverseView extends AbstractMap<String, List<String>> {
+
+        private volatile Map<String, List<String>> materialized;
+
+        @Override
+        public List<String> get(Object key) {
+            return key instanceof String s ? getKeys(s) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public Set<Entry<String, List<String>>> entrySet() {
+            Map<String, List<String>> map = materialized;
+            if (map == null) {
+                Map<String, List<String>> reverse = new HashMap<>();
+                entriesView.forEach((k, v) -> {
+                    if (v != null) {
+                        reverse.computeIfAbsent(v, x -> new ArrayList<>(1)).add(k);
+                    }
+                });
+                reverse.replaceAll((k, v) -> Collections.unmodifiableList(v));
+                map = Collections.unmodifiableMap(reverse);
+                materialized = map;
+            }
+            return map.entrySet();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package cn.creekmoon.dict;
+
+/**
+ * 字典指标采集接口
+ * <p>
+ * 通过 {@link DictMetricsConfig#enable(DictMetrics)} 注册后, 翻译和刷新过程中会回调对应的方法.
+ * 回调发生在翻译的热路径上, 实现需要线程安全且尽量轻量, 例如使用LongAdder计数, 或者转发到Micrometer的Counter/Timer.
+ * 没有注册时不会产生任何调用, 也不会读取时钟.
+ */
+public interface DictMetrics {
+
+    /*什么都不做的实现*/
+    DictMetrics NOOP = new DictMetrics() {
+    };
+
+    /**
+     * 翻译时查找了一次字典
+     * <p>
+     * 只在实际查找字典时回调: 翻译结果取自多值翻译缓存、批量翻译的同列去重或结果缓存时没有查找字典, 不会回调,
+     * 分别通过 {@link #cachedValue(String)} 和 {@link #cachedTranslation(Class)} 记录. 命中率统计的是实际的查找, 与缓存是否开启有关.
+     *
+     * @param dictCode 字典类型编码
+     * @param hit      是否找到了字典值  没找到时翻译结果为原值
+     */
+    default void lookup(String dictCode, boolean hit) {
+    }
+
+    /**
+     * 一个字段值的翻译结果取自多值翻译缓存或批量翻译的同列去重, 没有查找字典
+     *
+     * @param dictCode 字典类型编码
+     */
+    default void cachedValue(String dictCode) {
+    }
+
+    /**
+     * 一个对象的翻译结果取自结果缓存, 没有查找字典  之后仍然会回调 {@link #translated(Class, int, long)}
+     *
+     * @param type 对象类型
+     */
+    default void cachedTranslation(Class<?> type) {
+    }
+
+    /**
+     * 完成了一次翻译 (getDict / fillSelf / 批量接口)
+     * 嵌套的业务对象也会单独回调, 所以外层对象的耗时包含内层对象的耗时
+     *
+     * @param type  对象类型
+     * @param count 翻译的对象数量  批量接口为行数, 其他为1
+     * @param nanos 耗时, 纳秒
+     */
+    default void translated(Class<?> type, int count, long nanos) {
+    }
+
+    /**
+     * 完成了一次字典刷新
+     *
+     * @param success      是否成功  远端无变化(304或MD5一致)也视为成功
+     * @param nanos        耗时, 纳秒
+     * @param payloadBytes 报文字节数  没有下载报文时为0
+     */
+    default void refreshed(boolean success, long nanos, long payloadBytes) {
+    }
+}
@@ -0,0 +1,49 @@
+package cn.creekmoon.dict;
+
+/**
+ * 字典指标配置  默认关闭
+ * <p>
+ * 关闭时热路径上只有一次volatile读, 不读取时钟, 也不产生任何对象.
+ */
+public class DictMetricsConfig {
+
+    /*当前的指标采集  关闭时为null*/
+    static volatile DictMetrics metrics = null;
+
+    /**
+     * 使用内置的计数器开启指标采集
+     *
+     * @return 内置计数器, 可以从中读取统计结果
+     */
+    public static DictCounterMetrics enable() {
+        DictCounterMetrics counterMetrics = new DictCounterMetrics(false);
+        enable(counterMetrics);
+        return counterMetrics;
+    }
+
+    /**
+     * 使用自定义的实现开启指标采集  例如转发到Micrometer
+     *
+     * @param dictMetrics 指标采集实现
+     */
+    public static void enable(DictMetrics dictMetrics) {
+        metrics = dictMetrics == DictMetrics.NOOP ? null : dictMetrics;
+    }
+
+    /**
+     * 关闭指标采集
+     */
+    public static void disable() {
+        metrics = null;
+    }
+
+    /**
+     * 获取当前的指标采集
+     *
+     * @return 关闭时返回 {@link DictMetrics#NOOP}
+     */
+    public static DictMetrics getMetrics() {
+        DictMetrics current = metrics;
+        return current == null ? DictMetrics.NOOP : current;
+    }
+}
@@ -0,0 +1,203 @@
+package cn.creekmoon.dict;
+
+import java.util.Map;
+
+/**
+ * 数字字典key的索引
+ * <p>
+ * 大部分字典的key是"0".."20"这样的小整数. 当一个字典类型的所有key都是规范的整数写法时(没有前导0、正号、空格),
+ * 额外建立按数字查找的索引, Integer/Long字段翻译时不需要 String.valueOf, 也不需要计算字符串hash.
+ * <ul>
+ *     <li>key连续且范围不大: 直接用数组下标查找</li>
+ *     <li>key稀疏: 使用long为key的开放寻址哈希表</li>
+ * </ul>
+ */
+abstract class DictNumericIndex {
+
+    /*稠密数组最多允许的空位倍数*/
+    private static final int DENSE_FACTOR = 4;
+
+    /*稠密数组的最小允许长度  key都在这个范围内时总是使用数组*/
+    private static final int DENSE_MIN_LENGTH = 64;
+
+    /*无法按规范整数解析的标记*/
+    static final long NOT_CANONICAL = Long.MIN_VALUE;
+
+    /**
+     * 按数字key查找字典值
+     *
+     * @param key 字典key
+     * @return 没有找到返回null
+     */
+    abstract String get(long key);
+
+    /**
+     * 构建数字索引
+     *
+     * @param entries 字典项
+     * @return 有任意一个key不是规范的整数写法时返回null
+     */
+    static DictNumericIndex build(Map<String, String> entries) {
+        if (entries.isEmpty()) {
+            return null;
+        }
+        long[] keys = new long[entries.size()];
+        String[] values = new String[entries.size()];
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        int i = 0;
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            Long key = parseCanonical(entry.getKey());
+            if (key == null) {
+                return null;
+            }
+            keys[i] = key;
+            values[i] = entry.getValue();
+            min = Math.min(min, key);
+            max = Math.max(max, key);
+            i++;
+        }
+        long range = max - min + 1;
+        if (range > 0 && range <= Math.max(DENSE_MIN_LENGTH, (long) entries.size() * DENSE_FACTOR)) {
+            return new Dense(min, (int) range, keys, values);
+        }
+        return new Sparse(keys, values);
+    }
+
+    /**
+     * 解析规范的整数写法  "01" "+1" " 1" "-0" 这样的key用数字查找会和字符串查找结果不一致, 不能建立索引
+     */
+    static Long parseCanonical(String key) {
+        if (key == null) {
+            return null;
+        }
+        long result = parseCanonical(key, 0, key.length());
+        if (result != NOT_CANONICAL) {
+            return result;
+        }
+        // 超过18位的数字走完整的解析
+        if (key.length() > 18 && key.length() <= 20 && isCanonical(key, 0, key.length())) {
+            try {
+                return Long.parseLong(key);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 不产生对象地解析 chars[from, to) 中的规范整数写法
+     *
+     * @return 不是规范整数写法或者超过18位时返回 {@link #NOT_CANONICAL}
+     */
+    static long parseCanonical(CharSequence chars, int from, int to) {
+        if (!isCanonical(chars, from, to)) {
+            return NOT_CANONICAL;
+        }
+        boolean negative = chars.charAt(from) == '-';
+        int start = negative ? from + 1 : from;
+        if (to - start > 18) {
+            return NOT_CANONICAL;
+        }
+        long result = 0;
+        for (int i = start; i < to; i++) {
+            result = result * 10 + (chars.charAt(i) - '0');
+        }
+        return negative ? -result : result;
+    }
+
+    private static boolean isCanonical(CharSequence chars, int from, int to) {
+        if (to <= from) {
+            return false;
+        }
+        int start = chars.charAt(from) == '-' ? from + 1 : from;
+        if (start == to) {
+            return false;
+        }
+        // 不允许前导0, 也不允许-0
+        if (chars.charAt(start) == '0' && (to > start + 1 || start > from)) {
+            return false;
+        }
+        for (int i = start; i < to; i++) {
+            char c = chars.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 稠密索引  values[key - offset]
+     */
+    private static final class Dense extends DictNumericIndex {
+
+        private final long offset;
+
+        private final String[] values;
+
+        private Dense(long offset, int length, long[] keys, String[] values) {
+            this.offset = offset;
+            this.values = new String[length];
+            for (int i = 0; i < keys.length; i++) {
+                this.values[(int) (keys[i] - offset)] = values[i];
+            }
+        }
+
+        @Override
+        String get(long key) {
+            long index = key - offset;
+            return index >= 0 && index < values.length ? values[(int) index] : null;
+        }
+    }
+
+    /**
+     * 稀疏索引  线性探测的开放寻址哈希表
+     */
+    private static final class Sparse extends DictNumericIndex {
+
+        private final long[] keys;
+
+        private final String[] values;
+
+        /*槽位是否有值  key本身可能是0, 不能用0表示空槽*/
+        private final boolean[] used;
+
+        private final int mask;
+
+        private Sparse(long[] keys, String[] values) {
+            int capacity = Integer.highestOneBit(Math.max(2, keys.length * 2 - 1)) << 1;
+            this.keys = new long[capacity];
+            this.values = new String[capacity];
+            this.used = new boolean[capacity];
+            this.mask = capacity - 1;
+            for (int i = 0; i < keys.length; i++) {
+                int slot = hash(keys[i]) & mask;
+                while (used[slot]) {
+                    slot = (slot + 1) & mask;
+                }
+                this.keys[slot] = keys[i];
+                this.values[slot] = values[i];
+                this.used[slot] = true;
+            }
+        }
+
+        @Override
+        String get(long key) {
+            int slot = hash(key) & mask;
+            while (used[slot]) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            return null;
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
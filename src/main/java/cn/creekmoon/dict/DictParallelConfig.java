@@ -0,0 +1,203 @@
+package cn.creekmoon.dict;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+
+/**
+ * 并行翻译配置  默认关闭
+ * <p>
+ * 开启后, 元素数量达到阈值的集合会拆分成多段并行翻译:
+ * <ul>
+ *     <li>{@link Dict#fillSelf(Object)} 传入的集合, 以及对象中的集合字段</li>
+ *     <li>{@link Dict#getDict(Object)} 中的集合字段</li>
+ *     <li>{@link Dict#translateAll(java.util.Collection, Class)} / {@link Dict#fillAll(java.util.Collection, Class)}</li>
+ *     <li>{@link Dict#reverseFillAll(java.util.Collection)}</li>
+ * </ul>
+ * 使用ForkJoinPool时按阈值二分拆分, 嵌套的大集合在同一个池中继续拆分;
+ * 使用普通Executor时按阈值切段提交, 已经在并行任务中的嵌套集合不再提交, 避免有界线程池互相等待.
+ * <p>
+ * 线程安全: 字典快照不可变, 翻译计划和翻译器实例缓存在ConcurrentHashMap中, 默认翻译器无状态.
+ * 自定义的 {@link DictFieldTranslator} 全局只有一个实例, 开启并行后会被多个线程同时调用, 需要自行保证线程安全.
+ * 并行翻译过程中如果字典被刷新, 不同的段可能读取到不同版本的快照, 与顺序翻译时刷新的效果一致.
+ * 在 {@link DictEngine} 中发起的并行翻译, 每一段都在同一个引擎中执行.
+ */
+@Slf4j
+public class DictParallelConfig {
+
+    /*默认的拆分阈值  每段最多处理的元素数量*/
+    public static final int DEFAULT_THRESHOLD = 1024;
+
+    /*当前线程是否正在执行Executor提交的翻译任务*/
+    private static final ThreadLocal<Boolean> IN_EXECUTOR_TASK = new ThreadLocal<>();
+
+    private static volatile ForkJoinPool forkJoinPool = null;
+
+    private static volatile Executor executor = null;
+
+    private static volatile int threshold = DEFAULT_THRESHOLD;
+
+    /**
+     * 使用公共ForkJoinPool开启并行翻译
+     */
+    public static void enable() {
+        enable(ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * 使用指定的ForkJoinPool开启并行翻译
+     *
+     * @param pool      线程池
+     * @param threshold 拆分阈值, 集合元素数量不小于该值时才并行, 每段最多处理该数量的元素
+     */
+    public static void enable(ForkJoinPool pool, int threshold) {
+        checkThreshold(threshold);
+        DictParallelConfig.threshold = threshold;
+        DictParallelConfig.executor = null;
+        DictParallelConfig.forkJoinPool = pool;
+    }
+
+    /**
+     * 使用指定的Executor开启并行翻译
+     *
+     * @param executor  线程池
+     * @param threshold 拆分阈值, 集合元素数量不小于该值时才并行, 每段最多处理该数量的元素
+     */
+    public static void enable(Executor executor, int threshold) {
+        if (executor instanceof ForkJoinPool pool) {
+            enable(pool, threshold);
+            return;
+        }
+        checkThreshold(threshold);
+        DictParallelConfig.threshold = threshold;
+        DictParallelConfig.forkJoinPool = null;
+        DictParallelConfig.executor = executor;
+    }
+
+    /**
+     * 关闭并行翻译  不会关闭传入的线程池
+     */
+    public static void disable() {
+        forkJoinPool = null;
+        executor = null;
+    }
+
+    public static boolean isEnabled() {
+        return forkJoinPool != null || executor != null;
+    }
+
+    public static int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * 指定数量的元素是否需要并行处理
+     */
+    static boolean isParallel(int size) {
+        return size >= threshold && isEnabled();
+    }
+
+    /**
+     * 把 [0, size) 拆分成多段处理  不需要并行时在当前线程处理整个区间
+     *
+     * @param size  元素数量
+     * @param task  处理 [from, to) 区间的元素
+     */
+    static void forEachRange(int size, RangeTask task) {
+        ForkJoinPool pool = forkJoinPool;
+        Executor currentExecutor = executor;
+        int currentThreshold = threshold;
+        if (size < currentThreshold || pool == null && currentExecutor == null) {
+            task.run(0, size);
+            return;
+        }
+        // 其他线程中执行的段使用发起方的引擎
+        DictEngine engine = DictEngine.current();
+        RangeTask range = engine == null ? task : (from, to) -> engine.run(() -> task.run(from, to));
+        if (pool != null) {
+            RangeAction action = new RangeAction(range, 0, size, currentThreshold);
+            // 已经在同一个池中时直接fork, 否则提交到池中等待完成
+            if (ForkJoinTask.getPool() == pool) {
+                action.invoke();
+            } else {
+                pool.invoke(action);
+            }
+            return;
+        }
+        if (Boolean.TRUE.equals(IN_EXECUTOR_TASK.get())) {
+            range.run(0, size);
+            return;
+        }
+        List<CompletableFuture<Void>> futures = new ArrayList<>(size / currentThreshold + 1);
+        for (int from = 0; from < size; from += currentThreshold) {
+            int start = from;
+            int end = Math.min(size, from + currentThreshold);
+            futures.add(CompletableFuture.runAsync(() -> {
+                IN_EXECUTOR_TASK.set(Boolean.TRUE);
+                try {
+                    range.run(start, end);
+                } finally {
+                    IN_EXECUTOR_TASK.remove();
+                }
+            }, currentExecutor));
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    private static void checkThreshold(int threshold) {
+        if (threshold < 1) {
+            RuntimeException runtimeException = new RuntimeException("并行翻译配置错误! 拆分阈值必须大于0");
+            log.error("并行翻译配置错误! threshold=[{}]", threshold, runtimeException);
+            throw runtimeException;
+        }
+    }
+
+    /**
+     * 处理 [from, to) 区间的元素
+     */
+    @FunctionalInterface
+    interface RangeTask {
+        void run(int from, int to);
+    }
+
+    /**
+     * 二分拆分直到不超过阈值
+     */
+    private static final class RangeAction extends RecursiveAction {
+
+        private final RangeTask range;
+
+        private final int from;
+
+        private final int to;
+
+        private final int threshold;
+
+        private RangeAction(RangeTask range, int from, int to, int threshold) {
+            this.range = range;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                range.run(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RangeAction(range, from, middle, threshold), new RangeAction(range, middle, to, threshold));
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package cn.creekmoon.dict;
+
+import cn.hutool.core.util.HexUtil;
+import com.alibaba.fastjson2.JSON;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 服务端编码字典报文
+ * <p>
+ * 按客户端请求头选择格式和压缩方式, 与 {@link DictHttpRefreshConfig} 配合使用:
+ * <ul>
+ *     <li>Accept包含 {@link DictBinaryCodec#CONTENT_TYPE} 时使用二进制格式, 否则为JSON</li>
+ *     <li>Accept-Encoding包含zstd且classpath中有zstd-jni时使用zstd, 包含gzip时使用gzip, 否则不压缩</li>
+ * </ul>
+ * <pre>
+ * DictPayloadEncoder.Encoded encoded = DictPayloadEncoder.encode(dictMap, request.getHeader("Accept"), request.getHeader("Accept-Encoding"));
+ * if (encoded.matches(request.getHeader("If-None-Match"))) {
+ *     response.setStatus(304);
+ *     return;
+ * }
+ * response.setContentType(encoded.contentType());
+ * if (encoded.contentEncoding() != null) {
+ *     response.setHeader("Content-Encoding", encoded.contentEncoding());
+ * }
+ * response.setHeader("ETag", encoded.eTag());
+ * response.getOutputStream().write(encoded.body());
+ * </pre>
+ * 编码的开销与字典大小成正比, 字典没有变化时请缓存返回值.
+ */
+public final class DictPayloadEncoder {
+
+    public static final String JSON_CONTENT_TYPE = "application/json;charset=UTF-8";
+
+    /*zstd-jni的压缩方法 Zstd.compress(byte[])  不存在时为null*/
+    private static final Method ZSTD_COMPRESS = findZstdCompress();
+
+    private DictPayloadEncoder() {
+    }
+
+    /**
+     * 按请求头编码
+     *
+     * @param dictMap        k1=字典类型code  k2=字典key  v=字典值
+     * @param accept         请求头Accept  可以为null
+     * @param acceptEncoding 请求头Accept-Encoding  可以为null
+     * @return
+     */
+    public static Encoded encode(Map<String, ? extends Map<String, String>> dictMap, String accept, String acceptEncoding) {
+        boolean binary = accepts(accept, DictBinaryCodec.CONTENT_TYPE);
+        byte[] body = binary ? DictBinaryCodec.encode(dictMap, Collections.emptyMap()) : JSON.toJSONBytes(dictMap);
+        // ETag按压缩前的报文计算, 与客户端计算的MD5一致
+        String eTag = "W/\"" + md5(body) + "\"";
+        String contentType = binary ? DictBinaryCodec.CONTENT_TYPE : JSON_CONTENT_TYPE;
+        if (ZSTD_COMPRESS != null && accepts(acceptEncoding, "zstd")) {
+            return new Encoded(zstd(body), contentType, "zstd", eTag);
+        }
+        if (accepts(acceptEncoding, "gzip")) {
+            return new Encoded(gzip(body), contentType, "gzip", eTag);
+        }
+        return new Encoded(body, contentType, null, eTag);
+    }
+
+    /**
+     * 请求头是否明确接受某个类型或编码  按逗号拆分后逐个比较名称(忽略大小写), q=0 表示不接受, 无法解析的q值视为不接受
+     * 不处理通配符: 只有客户端明确声明时才使用二进制格式和压缩
+     *
+     * @param header Accept或Accept-Encoding请求头
+     * @param token  类型或编码  例如 gzip
+     */
+    static boolean accepts(String header, String token) {
+        if (header == null) {
+            return false;
+        }
+        for (String element : header.split(",")) {
+            String[] parts = element.split(";");
+            if (!parts[0].trim().equalsIgnoreCase(token)) {
+                continue;
+            }
+            double quality = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.length() > 2 && parameter.substring(0, 2).equalsIgnoreCase("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (quality > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String md5(byte[] body) {
+        try {
+            return HexUtil.encodeHexStr(MessageDigest.getInstance("MD5").digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out, 8192)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            // 写入内存不会发生IO异常
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] zstd(byte[] body) {
+        try {
+            return (byte[]) ZSTD_COMPRESS.invoke(null, (Object) body);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("zstd压缩失败", e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("zstd压缩失败", e);
+        }
+    }
+
+    private static Method findZstdCompress() {
+        try {
+            return Class.forName("com.github.luben.zstd.Zstd").getMethod("compress", byte[].class);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * 编码结果
+     *
+     * @param body            报文
+     * @param contentType     响应头Content-Type
+     * @param contentEncoding 响应头Content-Encoding  不压缩时为null
+     * @param eTag            响应头ETag
+     */
+    public record Encoded(byte[] body, String contentType, String contentEncoding, String eTag) {
+
+        /**
+         * 请求头If-None-Match是否与ETag一致  一致时可以直接返回304
+         */
+        public boolean matches(String ifNoneMatch) {
+            return ifNoneMatch != null && ifNoneMatch.contains(eTag.substring(2));
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package cn.creekmoon.dict;
+
+import cn.hutool.core.util.HexUtil;
+import cn.hutool.http.Header;
+import cn.hutool.http.HttpRequest;
+import cn.hutool.http.HttpResponse;
+import com.alibaba.fastjson2.JSONException;
+import com.alibaba.fastjson2.JSONReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 字典报文解析
+ * <p>
+ * 报文只以字节数组的形式读取一次(不再转成String), 按字节计算MD5, 字典项直接解析成 Map&lt;String, String&gt;,
+ * 不再经过JSONObject中转. 解析期间内存中同时有报文字节和解析出的字典.
+ * <p>
+ * HTTP刷新时协商压缩和格式: 支持gzip/deflate, classpath中有zstd-jni时支持zstd;
+ * 远端返回 {@link DictBinaryCodec#CONTENT_TYPE} 时按 {@link DictBinaryCodec} 解码. MD5和字节数按解压后的报文计算.
+ */
+final class DictPayloadReader {
+
+    /*zstd-jni的解压流  不存在时为null*/
+    private static final Constructor<? extends InputStream> ZSTD_INPUT_STREAM = findZstdInputStream();
+
+    /*请求时携带的Accept  优先使用二进制格式*/
+    static final String ACCEPT = DictBinaryCodec.CONTENT_TYPE + ", application/json;q=0.9";
+
+    /*请求时携带的Accept-Encoding*/
+    static final String ACCEPT_ENCODING = ZSTD_INPUT_STREAM == null ? "gzip, deflate" : "zstd, gzip, deflate";
+
+    /*解析结果  k=顶层字段名  v=字典项(Map)或其他JSON值*/
+    final Map<String, Object> payload;
+
+    /*报文原始字节的MD5*/
+    final String md5;
+
+    /*报文原始字节数*/
+    final long bytes;
+
+    private DictPayloadReader(Map<String, Object> payload, String md5, long bytes) {
+        this.payload = payload;
+        this.md5 = md5;
+        this.bytes = bytes;
+    }
+
+    /**
+     * 解析报文
+     *
+     * @param inputStream 报文输入流 UTF-8编码的JSON对象
+     * @return
+     */
+    static DictPayloadReader read(InputStream inputStream) throws IOException {
+        // fastjson2从InputStream读取时同样会先读入整个报文, 这里直接读成字节数组, 避免再扩容复制一次
+        byte[] bytes = inputStream.readAllBytes();
+        try (JSONReader reader = JSONReader.of(bytes, 0, bytes.length, StandardCharsets.UTF_8)) {
+            return new DictPayloadReader(readPayload(reader), md5(bytes), bytes.length);
+        }
+    }
+
+    /**
+     * 解析二进制报文  结果与全量JSON报文一致
+     *
+     * @param inputStream {@link DictBinaryCodec} 格式的报文
+     * @return
+     */
+    static DictPayloadReader readBinary(InputStream inputStream) throws IOException {
+        // 二进制报文需要完整读取后才能校验CRC
+        byte[] bytes = inputStream.readAllBytes();
+        DictBinaryCodec.Payload decoded = DictBinaryCodec.decode(ByteBuffer.wrap(bytes));
+        Map<String, Object> payload = new LinkedHashMap<>(decoded.dictMap());
+        return new DictPayloadReader(payload, md5(bytes), bytes.length);
+    }
+
+    private static String md5(byte[] bytes) {
+        try {
+            return HexUtil.encodeHexStr(MessageDigest.getInstance("MD5").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 设置HTTP刷新请求的Accept和Accept-Encoding
+     */
+    static HttpRequest negotiate(HttpRequest httpRequest) {
+        return httpRequest.header(Header.ACCEPT, ACCEPT).header(Header.ACCEPT_ENCODING, ACCEPT_ENCODING);
+    }
+
+    /**
+     * 按响应的Content-Type和Content-Encoding解析HTTP刷新的报文
+     */
+    static DictPayloadReader read(HttpResponse httpResponse) throws IOException {
+        InputStream body = httpResponse.bodyStream();
+        // gzip和deflate已经由hutool解压
+        if ("zstd".equalsIgnoreCase(httpResponse.header(Header.CONTENT_ENCODING))) {
+            body = zstd(body);
+        }
+        String contentType = httpResponse.header(Header.CONTENT_TYPE);
+        if (contentType != null && contentType.regionMatches(true, 0, DictBinaryCodec.CONTENT_TYPE, 0, DictBinaryCodec.CONTENT_TYPE.length())) {
+            return readBinary(body);
+        }
+        return read(body);
+    }
+
+    private static InputStream zstd(InputStream body) throws IOException {
+        if (ZSTD_INPUT_STREAM == null) {
+            throw new IOException("远端返回了zstd压缩的报文, 但classpath中没有zstd-jni");
+        }
+        try {
+            return ZSTD_INPUT_STREAM.newInstance(body);
+        } catch (InvocationTargetException e) {
+            throw new IOException("zstd解压失败", e.getCause());
+        } catch (ReflectiveOperationException | LinkageError e) {
+            throw new IOException("zstd解压失败", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Constructor<? extends InputStream> findZstdInputStream() {
+        try {
+            Class<?> clazz = Class.forName("com.github.luben.zstd.ZstdInputStream");
+            return (Constructor<? extends InputStream>) clazz.getConstructor(InputStream.class);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * 是否为全量字典  即所有顶层字段都是字典项
+     */
+    boolean isDictMap() {
+        for (Object value : payload.values()) {
+            if (!(value instanceof Map)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 字典项的值是否都是字符串  是则可以直接交给快照, 不需要再复制一次
+     */
+    boolean isFlat() {
+        for (Object value : payload.values()) {
+            if (!(value instanceof Map<?, ?> entries)) {
+                return false;
+            }
+            for (Object entryValue : entries.values()) {
+                if (entryValue != null && !(entryValue instanceof String)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 按全量字典读取  调用前需要确认 {@link #isDictMap()}
+     */
+    @SuppressWarnings("unchecked")
+    Map<String, Map<String, String>> asDictMap() {
+        Map<String, Map<String, String>> dictMap = new HashMap<>(Math.max(16, (int) (payload.size() / 0.75f) + 1));
+        payload.forEach((k, v) -> dictMap.put(k, (Map<String, String>) v));
+        return dictMap;
+    }
+
+    private static Map<String, Object> readPayload(JSONReader reader) {
+        if (!reader.nextIfObjectStart()) {
+            throw new JSONException("字典报文必须是JSON对象");
+        }
+        Map<String, Object> payload = new LinkedHashMap<>();
+        while (!reader.nextIfObjectEnd()) {
+            String name = reader.readFieldName();
+            payload.put(name, reader.isObject() ? readEntries(reader) : reader.readAny());
+        }
+        return payload;
+    }
+
+    /**
+     * 读取一个JSON对象  简单值统一转为字符串, 嵌套的对象和数组(增量报文)原样读取
+     */
+    private static Map<String, Object> readEntries(JSONReader reader) {
+        reader.nextIfObjectStart();
+        Map<String, Object> entries = new HashMap<>();
+        while (!reader.nextIfObjectEnd()) {
+            String key = reader.readFieldName();
+            if (reader.isObject() || reader.isArray()) {
+                entries.put(key, reader.readAny());
+                continue;
+            }
+            Object value = reader.readAny();
+            entries.put(key, value == null ? null : value.toString());
+        }
+        return entries;
+    }
+}
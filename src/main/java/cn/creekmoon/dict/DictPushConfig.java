@@ -0,0 +1,357 @@
+package cn.creekmoon.dict;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * 推送刷新  通过SSE或长轮询接收字典变更, 变更立即生效
+ * <p>
+ * 请求头带上 Accept: text/event-stream, 以及已应用的增量版本(dictVersion参数)和上一个事件的ID(Last-Event-ID).
+ * 远端可以返回两种响应:
+ * <ul>
+ *     <li>SSE: Content-Type为text/event-stream, 连接保持打开, 每个事件为一次变更</li>
+ *     <li>长轮询: 其他Content-Type, 有变更时返回200和一次变更, 超时时返回204或304, 客户端随即重新请求</li>
+ * </ul>
+ * 变更的格式:
+ * <ul>
+ *     <li>事件名为invalidate: 只通知哪些字典类型变化了, 例如 {"codes":["orderStatus"]}, 客户端通过 {@link DictHttpRefreshConfig#refreshNow()} 拉取</li>
+ *     <li>其他事件: {@link DictDelta} 增量报文, 直接应用</li>
+ * </ul>
+ * 与 {@link DictHttpRefreshConfig} 配合使用: 连接正常时跳过定时轮询, 只保留一个空闲的长连接;
+ * 连接断开后恢复轮询, 并按退避间隔重连, 重连成功时立即拉取一次, 补上断开期间的变更.
+ * <p>
+ * 超过空闲超时(默认90秒)没有收到任何数据时视为连接已断开(例如负载均衡静默丢弃了空闲连接):
+ * SSE需要至少每30秒发送一次心跳(冒号开头的注释行), 长轮询需要在空闲超时之前返回.
+ */
+@Slf4j
+public class DictPushConfig {
+
+    public static final String EVENT_STREAM = "text/event-stream";
+
+    public static final String EVENT_INVALIDATE = "invalidate";
+
+    /*重连的起始间隔和最大间隔  毫秒*/
+    static volatile long retryMillis = 1000L;
+
+    static volatile long maxRetryMillis = 60_000L;
+
+    /*空闲超时  毫秒, 超过该时间没有收到任何数据时断开重连*/
+    static volatile long idleTimeoutMillis = 90_000L;
+
+    private static volatile PushClient client = null;
+
+    /**
+     * 开启推送刷新
+     *
+     * @param url 推送地址  SSE或长轮询
+     */
+    public static synchronized void enable(String url) {
+        disable();
+        client = new PushClient(url);
+        client.thread.start();
+    }
+
+    /**
+     * 关闭推送刷新  定时轮询恢复正常
+     */
+    public static synchronized void disable() {
+        PushClient current = client;
+        if (current != null) {
+            client = null;
+            current.stop();
+        }
+    }
+
+    /**
+     * 推送连接是否正常
+     */
+    public static boolean isConnected() {
+        PushClient current = client;
+        return current != null && current.connected;
+    }
+
+    /**
+     * 获取已接收的变更数量
+     */
+    public static long getReceivedCount() {
+        PushClient current = client;
+        return current == null ? 0L : current.received;
+    }
+
+    /**
+     * 处理一次变更
+     *
+     * @param event 事件名  长轮询时为null
+     * @param data  事件数据
+     */
+    static void apply(String event, String data) {
+        if (data == null || data.isBlank()) {
+            return;
+        }
+        if (EVENT_INVALIDATE.equals(event)) {
+            log.info("[推送刷新]======收到变更通知{}, 立即刷新====", data);
+            if (DictHttpRefreshConfig.getScheduler() == null) {
+                log.warn("[推送刷新]=======没有开启定时HTTP刷新, 无法拉取变更====");
+                return;
+            }
+            DictHttpRefreshConfig.refreshNow();
+            return;
+        }
+        JSONObject payload = JSON.parseObject(data);
+        if (!DictDelta.FORMAT.equals(payload.get("format"))) {
+            log.error("[推送刷新]=======无法识别的变更格式, event={}====", event);
+            return;
+        }
+        DictDelta delta = payload.toJavaObject(DictDelta.class);
+        // 与定时刷新共用一把锁, 同时到达的全量报文和推送的增量不会交错写入和保存
+        synchronized (DictHttpRefreshConfig.REFRESH_LOCK) {
+            if (!DictHttpRefreshConfig.applyDelta(delta)) {
+                return;
+            }
+            DictLocalSnapshot.save();
+        }
+        log.info("[推送刷新]======变更已生效, version={}====", delta.getVersion());
+    }
+
+    /**
+     * 推送连接  在单独的守护线程中读取, 断开后按退避间隔重连
+     */
+    private static final class PushClient implements Runnable {
+
+        private final String url;
+
+        private final Thread thread;
+
+        private final long idleTimeoutMillis = DictPushConfig.idleTimeoutMillis;
+
+        /*检查空闲超时  读取线程阻塞在readLine时由它关闭连接*/
+        private final ScheduledExecutorService watchdog =
+                Executors.newSingleThreadScheduledExecutor(DictSourceConfig.daemonThreadFactory("dict-push-watchdog"));
+
+        /*最后一次收到数据的时间*/
+        private volatile long lastActivityNanos = System.nanoTime();
+
+        private final HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        private volatile boolean stopped;
+
+        private volatile boolean connected;
+
+        private volatile long received;
+
+        private volatile InputStream body;
+
+        private String lastEventId;
+
+        private PushClient(String url) {
+            this.url = url;
+            this.thread = new Thread(this, "dict-push");
+            this.thread.setDaemon(true);
+            long period = Math.max(10L, idleTimeoutMillis / 4);
+            watchdog.scheduleWithFixedDelay(this::checkIdle, period, period, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * 超过空闲超时没有收到数据时关闭连接, 读取线程随即结束本次连接并重连
+         */
+        private void checkIdle() {
+            InputStream current = body;
+            if (current == null || System.nanoTime() - lastActivityNanos < TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis)) {
+                return;
+            }
+            log.warn("[推送刷新]=======超过{}毫秒没有收到数据, 断开重连并恢复定时轮询====", idleTimeoutMillis);
+            connected = false;
+            closeQuietly(current);
+        }
+
+        @Override
+        public void run() {
+            int failures = 0;
+            while (!stopped) {
+                try {
+                    if (connectOnce()) {
+                        failures = 0;
+                        continue;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (Exception e) {
+                    if (!stopped) {
+                        log.warn("[推送刷新]=======推送连接断开, 恢复定时轮询: {}====", e.toString());
+                    }
+                }
+                // 连接建立过则重新开始退避
+                if (connected) {
+                    failures = 0;
+                }
+                connected = false;
+                failures++;
+                try {
+                    Thread.sleep(retryDelay(failures));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            connected = false;
+        }
+
+        /**
+         * 请求一次  SSE时读取到连接关闭为止
+         *
+         * @return 是否正常结束, 正常结束时立即重新请求
+         */
+        private boolean connectOnce() throws IOException, InterruptedException {
+            String uri = url;
+            Long version = DictHttpRefreshConfig.lastVersion;
+            if (version != null) {
+                uri += (uri.contains("?") ? "&" : "?") + DictHttpRefreshConfig.VERSION_PARAM + "=" + URLEncoder.encode(version.toString(), StandardCharsets.UTF_8);
+            }
+            // 超时只限制等待响应头的时间, 长轮询需要在空闲超时之前返回
+            HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(uri)).header("Accept", EVENT_STREAM)
+                    .timeout(Duration.ofMillis(idleTimeoutMillis)).GET();
+            if (lastEventId != null) {
+                request.header("Last-Event-ID", lastEventId);
+            }
+            HttpResponse<InputStream> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+            lastActivityNanos = System.nanoTime();
+            body = response.body();
+            try (InputStream inputStream = response.body()) {
+                if (stopped) {
+                    return false;
+                }
+                int status = response.statusCode();
+                if (status == 204 || status == 304) {
+                    onConnected();
+                    return true;
+                }
+                if (status != 200) {
+                    log.error("[推送刷新]=======推送连接失败, 远端返回状态码{}====", status);
+                    return false;
+                }
+                onConnected();
+                String contentType = response.headers().firstValue("Content-Type").orElse("");
+                if (!contentType.startsWith(EVENT_STREAM)) {
+                    // 长轮询  一次响应为一次变更
+                    dispatch(null, new String(inputStream.readAllBytes(), StandardCharsets.UTF_8));
+                    return true;
+                }
+                readEvents(new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8)));
+                // 远端关闭了SSE连接
+                return false;
+            } finally {
+                body = null;
+            }
+        }
+
+        private void onConnected() {
+            if (connected) {
+                return;
+            }
+            connected = true;
+            log.info("[推送刷新]======推送连接成功, 暂停定时轮询====");
+            // 补上断开期间的变更
+            if (DictHttpRefreshConfig.getScheduler() != null) {
+                DictHttpRefreshConfig.refreshNow();
+            }
+        }
+
+        /**
+         * 按SSE格式读取事件  空行表示一个事件结束, 冒号开头的行为注释(心跳)
+         */
+        private void readEvents(BufferedReader reader) throws IOException {
+            String event = null;
+            StringBuilder data = new StringBuilder();
+            String line;
+            while (!stopped && (line = reader.readLine()) != null) {
+                // 包括心跳在内的任何一行都说明连接仍然可用
+                lastActivityNanos = System.nanoTime();
+                if (line.isEmpty()) {
+                    if (data.length() > 0) {
+                        dispatch(event, data.toString());
+                    }
+                    event = null;
+                    data.setLength(0);
+                    continue;
+                }
+                if (line.startsWith(":")) {
+                    continue;
+                }
+                int colon = line.indexOf(':');
+                String field = colon < 0 ? line : line.substring(0, colon);
+                String value = colon < 0 ? "" : line.substring(colon + 1);
+                if (value.startsWith(" ")) {
+                    value = value.substring(1);
+                }
+                switch (field) {
+                    case "event" -> event = value;
+                    case "data" -> {
+                        if (data.length() > 0) {
+                            data.append('\n');
+                        }
+                        data.append(value);
+                    }
+                    case "id" -> lastEventId = value;
+                    default -> {
+                        // 忽略retry等其他字段
+                    }
+                }
+            }
+        }
+
+        private void dispatch(String event, String data) {
+            try {
+                apply(event, data);
+                received++;
+            } catch (Exception e) {
+                log.error("[推送刷新]=======变更处理失败, event={}====", event, e);
+            }
+        }
+
+        private long retryDelay(int failures) {
+            long delay = failures > 30 ? maxRetryMillis : Math.min(maxRetryMillis, retryMillis << (failures - 1));
+            // 抖动±20%, 避免所有实例同时重连
+            return Math.max(1L, (long) (delay * (0.8 + 0.4 * ThreadLocalRandom.current().nextDouble())));
+        }
+
+        private void stop() {
+            stopped = true;
+            connected = false;
+            watchdog.shutdownNow();
+            InputStream current = body;
+            if (current != null) {
+                closeQuietly(current);
+            }
+            thread.interrupt();
+        }
+
+        private static void closeQuietly(InputStream inputStream) {
+            try {
+                inputStream.close();
+            } catch (IOException e) {
+                // 关闭时忽略
+            }
+        }
+    }
+}
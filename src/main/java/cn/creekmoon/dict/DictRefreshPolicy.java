@@ -0,0 +1,34 @@
+package cn.creekmoon.dict;
+
+import java.time.Duration;
+
+/**
+ * 定时刷新策略
+ * <p>
+ * 很多实例同时部署时, 固定间隔的刷新会让它们一直同时请求字典服务. 刷新策略控制:
+ * <ul>
+ *     <li>抖动: 每次的间隔在 刷新间隔 × (1 ± jitter) 之间随机</li>
+ *     <li>退避: 连续失败时间隔按 刷新间隔 × 2^失败次数 增长, 不超过maxBackoff</li>
+ *     <li>熔断: 连续失败failureThreshold次后停止请求openDuration, 之后只放行一次试探, 成功后恢复</li>
+ * </ul>
+ *
+ * @param jitter           抖动比例 [0, 1)  0为不抖动
+ * @param maxBackoff       失败退避的最大间隔  小于刷新间隔时按刷新间隔
+ * @param failureThreshold 连续失败多少次后熔断
+ * @param openDuration     熔断持续时间
+ */
+public record DictRefreshPolicy(double jitter, Duration maxBackoff, int failureThreshold, Duration openDuration) {
+
+    /*默认策略  抖动20%, 最多退避5分钟, 连续失败5次后熔断5分钟*/
+    public static final DictRefreshPolicy DEFAULT = new DictRefreshPolicy(0.2, Duration.ofMinutes(5), 5, Duration.ofMinutes(5));
+
+    public DictRefreshPolicy {
+        if (!(jitter >= 0 && jitter < 1) || maxBackoff == null || maxBackoff.isNegative()
+                || failureThreshold < 1 || openDuration == null || openDuration.isNegative()) {
+            RuntimeException runtimeException = new RuntimeException("刷新策略配置错误! jitter必须在[0, 1)之间, failureThreshold必须大于0, 时间不能为负数");
+            Dict.log.error("刷新策略配置错误! jitter=[{}] maxBackoff=[{}] failureThreshold=[{}] openDuration=[{}]",
+                    jitter, maxBackoff, failureThreshold, openDuration, runtimeException);
+            throw runtimeException;
+        }
+    }
+}
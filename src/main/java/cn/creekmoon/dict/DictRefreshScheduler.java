@@ -0,0 +1,272 @@
+package cn.creekmoon.dict;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.*;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 刷新调度  按 {@link DictRefreshPolicy} 抖动、退避和熔断
+ * <p>
+ * 手动触发和定时触发合并执行(single-flight): 已经有一次刷新在执行时, 新的触发直接返回同一个结果, 不会并发执行.
+ * 每次刷新结束后(无论由谁触发)重新计算下一次定时刷新的时间.
+ * <p>
+ * 计时线程只负责触发, 刷新在传入的Executor中执行.
+ */
+@Slf4j
+public final class DictRefreshScheduler {
+
+    /**
+     * 熔断状态
+     */
+    public enum CircuitState {
+        /*正常刷新*/
+        CLOSED,
+        /*熔断中  不会发起请求*/
+        OPEN,
+        /*熔断结束  下一次刷新为试探*/
+        HALF_OPEN
+    }
+
+    /*没有刷新间隔(只加载一次)时, 失败退避的起始间隔*/
+    private static final long MIN_BACKOFF_MILLIS = 1000L;
+
+    private final String name;
+
+    private final BooleanSupplier task;
+
+    private final long intervalMillis;
+
+    private final DictRefreshPolicy policy;
+
+    private final ScheduledExecutorService timer;
+
+    private final Executor executor;
+
+    /*以下字段由this的锁保护*/
+    private CompletableFuture<Boolean> inFlight;
+
+    private ScheduledFuture<?> next;
+
+    /*每次安排定时刷新时加1, 过期的定时任务不再执行*/
+    private long generation;
+
+    private int consecutiveFailures;
+
+    private CircuitState circuitState = CircuitState.CLOSED;
+
+    private long openUntilNanos;
+
+    private boolean stopped;
+
+    /*返回true时跳过定时刷新, 只保留计时  手动触发不受影响*/
+    private volatile BooleanSupplier paused = () -> false;
+
+    /**
+     * @param name           名称  用于日志
+     * @param task           执行一次刷新, 返回是否成功
+     * @param intervalMillis 刷新间隔, 毫秒  小于等于0时成功后不再定时刷新
+     * @param policy         刷新策略
+     * @param timer          计时线程
+     * @param executor       执行刷新的线程
+     */
+    DictRefreshScheduler(String name, BooleanSupplier task, long intervalMillis, DictRefreshPolicy policy,
+                         ScheduledExecutorService timer, Executor executor) {
+        this.name = name;
+        this.task = task;
+        this.intervalMillis = intervalMillis;
+        this.policy = policy == null ? DictRefreshPolicy.DEFAULT : policy;
+        this.timer = timer;
+        this.executor = executor;
+    }
+
+    /**
+     * 开始定时刷新
+     *
+     * @param immediately 是否立即刷新一次  否则首次刷新在 [0, 刷新间隔 × jitter] 之间随机延迟, 避免同时启动的实例一起请求
+     */
+    synchronized void start(boolean immediately) {
+        long delay = immediately || intervalMillis <= 0 ? 0L : (long) (intervalMillis * policy.jitter() * ThreadLocalRandom.current().nextDouble());
+        scheduleLocked(delay);
+    }
+
+    /**
+     * 设置暂停条件  例如推送连接正常时不需要轮询
+     */
+    void setPaused(BooleanSupplier paused) {
+        this.paused = paused == null ? () -> false : paused;
+    }
+
+    /**
+     * 停止定时刷新  正在执行的刷新不会被中断
+     */
+    synchronized void stop() {
+        stopped = true;
+        generation++;
+        if (next != null) {
+            next.cancel(false);
+            next = null;
+        }
+    }
+
+    /**
+     * 立即刷新一次
+     * <p>
+     * 已经有刷新在执行时返回同一个结果; 熔断中或已停止时不会刷新, 直接返回false.
+     *
+     * @return 刷新是否成功
+     */
+    public CompletableFuture<Boolean> trigger() {
+        CompletableFuture<Boolean> future;
+        synchronized (this) {
+            if (inFlight != null) {
+                return inFlight;
+            }
+            if (stopped) {
+                return CompletableFuture.completedFuture(false);
+            }
+            if (circuitState == CircuitState.OPEN) {
+                long remainingNanos = openUntilNanos - System.nanoTime();
+                if (remainingNanos > 0) {
+                    log.warn("[字典刷新]=======[{}]熔断中, 跳过本次刷新====", name);
+                    if (next == null) {
+                        scheduleLocked(TimeUnit.NANOSECONDS.toMillis(remainingNanos) + 1);
+                    }
+                    return CompletableFuture.completedFuture(false);
+                }
+                circuitState = CircuitState.HALF_OPEN;
+            }
+            future = new CompletableFuture<>();
+            inFlight = future;
+        }
+        try {
+            executor.execute(() -> run(future));
+        } catch (RejectedExecutionException e) {
+            synchronized (this) {
+                inFlight = null;
+            }
+            future.complete(false);
+        }
+        return future;
+    }
+
+    private void run(CompletableFuture<Boolean> future) {
+        boolean success = false;
+        try {
+            success = task.getAsBoolean();
+        } catch (Throwable e) {
+            log.error("[字典刷新]=======[{}]刷新失败====", name, e);
+        } finally {
+            synchronized (this) {
+                inFlight = null;
+                onComplete(success);
+            }
+            future.complete(success);
+        }
+    }
+
+    /**
+     * 记录结果并安排下一次定时刷新
+     */
+    private void onComplete(boolean success) {
+        if (success) {
+            consecutiveFailures = 0;
+            circuitState = CircuitState.CLOSED;
+            if (intervalMillis > 0) {
+                scheduleLocked(jitter(intervalMillis));
+            } else if (next != null) {
+                next.cancel(false);
+                next = null;
+            }
+            return;
+        }
+        consecutiveFailures++;
+        if (circuitState == CircuitState.HALF_OPEN || consecutiveFailures >= policy.failureThreshold()) {
+            long openMillis = Math.max(policy.openDuration().toMillis(), 1L);
+            if (circuitState != CircuitState.OPEN) {
+                log.error("[字典刷新]=======[{}]连续失败{}次, 熔断{}毫秒====", name, consecutiveFailures, openMillis);
+            }
+            circuitState = CircuitState.OPEN;
+            openUntilNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(openMillis);
+            scheduleLocked(openMillis);
+            return;
+        }
+        scheduleLocked(jitter(backoffMillis(consecutiveFailures)));
+    }
+
+    /**
+     * 失败退避的间隔  刷新间隔 × 2^失败次数, 不超过maxBackoff
+     */
+    long backoffMillis(int failures) {
+        long base = Math.max(intervalMillis, MIN_BACKOFF_MILLIS);
+        long max = Math.max(policy.maxBackoff().toMillis(), base);
+        if (failures >= 62 || base > (max >> Math.min(failures, 62))) {
+            return max;
+        }
+        return Math.min(max, base << failures);
+    }
+
+    /**
+     * 在 delay × (1 ± jitter) 之间随机
+     */
+    long jitter(long delay) {
+        double jitter = policy.jitter();
+        if (jitter == 0) {
+            return delay;
+        }
+        double factor = 1 - jitter + 2 * jitter * ThreadLocalRandom.current().nextDouble();
+        return Math.max(1L, (long) (delay * factor));
+    }
+
+    private void scheduleLocked(long delayMillis) {
+        if (next != null) {
+            next.cancel(false);
+            next = null;
+        }
+        if (stopped) {
+            return;
+        }
+        long current = ++generation;
+        try {
+            next = timer.schedule(() -> tick(current), delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // 计时线程已关闭
+            stopped = true;
+        }
+    }
+
+    private void tick(long scheduledGeneration) {
+        synchronized (this) {
+            if (scheduledGeneration != generation) {
+                return;
+            }
+            next = null;
+            if (inFlight == null && circuitState == CircuitState.CLOSED && paused.getAsBoolean()) {
+                scheduleLocked(jitter(Math.max(intervalMillis, MIN_BACKOFF_MILLIS)));
+                return;
+            }
+        }
+        trigger();
+    }
+
+    /**
+     * 获取熔断状态
+     */
+    public synchronized CircuitState getCircuitState() {
+        return circuitState;
+    }
+
+    /**
+     * 获取连续失败次数
+     */
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    /**
+     * 是否正在刷新
+     */
+    public synchronized boolean isRefreshing() {
+        return inFlight != null;
+    }
+}
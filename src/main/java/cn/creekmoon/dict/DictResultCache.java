@@ -0,0 +1,405 @@
+package cn.creekmoon.dict;
+
+import com.alibaba.fastjson2.JSONObject;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * getDict结果缓存
+ * <p>
+ * key为 类型 + 所有注解字段的值, 只缓存 {@link DictClassPlan#cacheable} 的类型, 且字段值都是不可变的简单类型.
+ * 字典存储或其版本号变化时整体失效.
+ * <p>
+ * 淘汰策略参考W-TinyLFU:
+ * <ul>
+ *     <li>新条目先进入容量为1%的窗口LRU, 窗口满时最久未访问的条目成为候选</li>
+ *     <li>主区满时, 候选与主区最久未访问的条目比较访问频率, 频率更高的留下</li>
+ *     <li>访问频率由Count-Min Sketch估算, 累计次数达到容量的10倍时全部减半, 让旧的热点逐渐冷却</li>
+ * </ul>
+ * 条数和权重(结果中字段名与字典值的字符数之和)都不能超过上限.
+ * 读取不加锁; 命中后调整LRU顺序时只尝试加锁, 拿不到锁时跳过, 不阻塞翻译线程.
+ */
+final class DictResultCache {
+
+    final int maxSize;
+
+    final long maxWeight;
+
+    private final int windowMax;
+
+    private final Map<Key, Node> data;
+
+    private final FrequencySketch sketch;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /*两个LRU链表的哨兵  head.next最久未访问, head.prev最近访问. 由lock保护*/
+    private final Node window = Node.sentinel();
+
+    private final Node main = Node.sentinel();
+
+    private int windowCount;
+
+    private int mainCount;
+
+    private long weight;
+
+    /*当前对应的字典存储和版本号*/
+    private volatile State state = new State(null, -1L, 0L);
+
+    final LongAdder hits = new LongAdder();
+
+    final LongAdder misses = new LongAdder();
+
+    final LongAdder evictions = new LongAdder();
+
+    DictResultCache(int maxSize, long maxWeight) {
+        this.maxSize = maxSize;
+        this.maxWeight = maxWeight;
+        this.windowMax = Math.max(1, maxSize / 100);
+        this.data = new ConcurrentHashMap<>(Math.min(maxSize, 1 << 16));
+        this.sketch = new FrequencySketch(maxSize);
+    }
+
+    /**
+     * 生成缓存key
+     *
+     * @return 类型不可缓存, 或字段值不是不可变的简单类型时返回null
+     */
+    static Key key(Object object, DictClassPlan plan) {
+        if (!plan.cacheable) {
+            return null;
+        }
+        DictFieldPlan[] fields = plan.allFields;
+        Object[] values = new Object[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            Object value = fields[i].get(object);
+            if (value != null && !isImmutable(value)) {
+                return null;
+            }
+            values[i] = value;
+        }
+        return new Key(plan.type, values);
+    }
+
+    private static boolean isImmutable(Object value) {
+        return value instanceof String
+                || value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte
+                || value instanceof Boolean || value instanceof Character || value instanceof Enum<?>
+                || value instanceof BigDecimal || value instanceof BigInteger;
+    }
+
+    /**
+     * 同步字典版本  字典存储或版本号变化时清空缓存
+     *
+     * @return 当前的缓存代数, 读写缓存时使用
+     */
+    long epoch() {
+        DictStore store = DictStoreConfig.current();
+        long version = store.getVersion();
+        State current = state;
+        if (current.store == store && current.version == version) {
+            return current.epoch;
+        }
+        lock.lock();
+        try {
+            current = state;
+            if (current.store != store || current.version != version) {
+                clearLocked();
+                current = new State(store, version, current.epoch + 1);
+                state = current;
+            }
+            return current.epoch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return 没有命中返回null  返回值是缓存中的实例, 调用方不能修改
+     */
+    JSONObject get(Key key, long epoch) {
+        sketch.increment(key.hash);
+        Node node = data.get(key);
+        if (node == null || node.epoch != epoch) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        if (lock.tryLock()) {
+            try {
+                // 等待锁期间条目可能已经被淘汰或清空
+                if (node.prev != null && data.get(key) == node) {
+                    unlink(node);
+                    append(node.inWindow ? window : main, node);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return node.value;
+    }
+
+    /**
+     * 放入缓存  计算结果期间字典版本发生变化时不放入
+     */
+    void put(Key key, long epoch, JSONObject result) {
+        long entryWeight = weigh(result);
+        if (entryWeight > maxWeight) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (state.epoch != epoch || data.containsKey(key)) {
+                return;
+            }
+            Node node = new Node(key, new JSONObject(result), entryWeight, epoch);
+            data.put(key, node);
+            node.inWindow = true;
+            append(window, node);
+            windowCount++;
+            weight += entryWeight;
+            evict();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        return data.size();
+    }
+
+    long weight() {
+        lock.lock();
+        try {
+            return weight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void clear() {
+        lock.lock();
+        try {
+            clearLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void clearLocked() {
+        data.clear();
+        window.prev = window.next = window;
+        main.prev = main.next = main;
+        windowCount = 0;
+        mainCount = 0;
+        weight = 0;
+    }
+
+    /**
+     * 窗口溢出的条目与主区的淘汰对象比较频率, 然后按条数和权重上限继续淘汰
+     */
+    private void evict() {
+        while (windowCount > windowMax) {
+            Node candidate = window.next;
+            unlink(candidate);
+            windowCount--;
+            candidate.inWindow = false;
+            append(main, candidate);
+            mainCount++;
+            while (isOverflow()) {
+                Node victim = main.next;
+                if (victim == candidate) {
+                    remove(candidate);
+                    break;
+                }
+                if (sketch.frequency(candidate.key.hash) > sketch.frequency(victim.key.hash)) {
+                    remove(victim);
+                } else {
+                    remove(candidate);
+                    break;
+                }
+            }
+        }
+        // 权重较大的条目可能在窗口未满时就超过上限
+        while (isOverflow()) {
+            remove(main.next != main ? main.next : window.next);
+        }
+    }
+
+    private boolean isOverflow() {
+        return windowCount + mainCount > maxSize || weight > maxWeight;
+    }
+
+    private void remove(Node node) {
+        unlink(node);
+        if (node.inWindow) {
+            windowCount--;
+        } else {
+            mainCount--;
+        }
+        weight -= node.weight;
+        data.remove(node.key, node);
+        evictions.increment();
+    }
+
+    private static void append(Node head, Node node) {
+        node.prev = head.prev;
+        node.next = head;
+        head.prev.next = node;
+        head.prev = node;
+    }
+
+    private static void unlink(Node node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = null;
+        node.next = null;
+    }
+
+    private static long weigh(JSONObject result) {
+        long total = 0;
+        for (Map.Entry<String, Object> entry : result.entrySet()) {
+            total += entry.getKey().length();
+            if (entry.getValue() instanceof String value) {
+                total += value.length();
+            }
+        }
+        return Math.max(1, total);
+    }
+
+    /**
+     * 缓存key  类型 + 所有注解字段的值
+     */
+    static final class Key {
+
+        private final Class<?> type;
+
+        private final Object[] values;
+
+        private final int hash;
+
+        private Key(Class<?> type, Object[] values) {
+            this.type = type;
+            this.values = values;
+            this.hash = 31 * type.hashCode() + Arrays.hashCode(values);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other && hash == other.hash && type == other.type && Arrays.equals(values, other.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private record State(DictStore store, long version, long epoch) {
+    }
+
+    private static final class Node {
+
+        private final Key key;
+
+        private final JSONObject value;
+
+        private final long weight;
+
+        private final long epoch;
+
+        private boolean inWindow;
+
+        private Node prev;
+
+        private Node next;
+
+        private Node(Key key, JSONObject value, long weight, long epoch) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.epoch = epoch;
+        }
+
+        private static Node sentinel() {
+            Node head = new Node(null, null, 0, 0);
+            head.prev = head;
+            head.next = head;
+            return head;
+        }
+    }
+
+    /**
+     * 访问频率估算  4行Count-Min Sketch, 每个计数器最大15
+     * 计数在锁外进行, 并发时允许少量误差
+     */
+    private static final class FrequencySketch {
+
+        private static final int[] SEEDS = {0x97CB3127, 0xB1B2F9A5, 0x8E7A3D1B, 0xC2B2AE35};
+
+        private static final int MAX_COUNT = 15;
+
+        private final byte[][] rows = new byte[SEEDS.length][];
+
+        private final int mask;
+
+        private final int sampleSize;
+
+        private int additions;
+
+        private FrequencySketch(int maxSize) {
+            int width = Integer.highestOneBit(Math.max(16, Math.min(maxSize, 1 << 24) * 2 - 1));
+            for (int i = 0; i < rows.length; i++) {
+                rows[i] = new byte[width];
+            }
+            this.mask = width - 1;
+            this.sampleSize = (int) Math.min(Integer.MAX_VALUE, 10L * maxSize);
+        }
+
+        private int index(int hash, int row) {
+            int h = hash * SEEDS[row];
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        void increment(int hash) {
+            boolean added = false;
+            for (int row = 0; row < rows.length; row++) {
+                int index = index(hash, row);
+                if (rows[row][index] < MAX_COUNT) {
+                    rows[row][index]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        int frequency(int hash) {
+            int frequency = MAX_COUNT;
+            for (int row = 0; row < rows.length; row++) {
+                frequency = Math.min(frequency, rows[row][index(hash, row)]);
+            }
+            return frequency;
+        }
+
+        /**
+         * 所有计数减半
+         */
+        private void reset() {
+            additions = 0;
+            for (byte[] row : rows) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = (byte) (row[i] >>> 1);
+                }
+            }
+        }
+    }
+}
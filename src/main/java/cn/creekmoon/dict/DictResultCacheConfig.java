@@ -0,0 +1,108 @@
+package cn.creekmoon.dict;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * getDict结果缓存配置  默认关闭
+ * <p>
+ * 列表接口经常反复返回同一批引用数据(仓库、承运商等), 每次 {@link Dict#getDict(Object)} 都会得到相同的结果.
+ * 开启后, 同一类型且注解字段值完全相同的对象直接复用上一次的翻译结果(返回副本, 可以随意修改).
+ * {@link Dict#addDictMap(java.util.Map)}、HTTP刷新等任何写入使字典版本变化后, 缓存整体失效.
+ * <p>
+ * 只缓存所有注解字段都使用默认翻译器、且没有业务对象和集合字段的类型; 注解字段的值需要是String、整数、枚举等不可变类型.
+ */
+@Slf4j
+public class DictResultCacheConfig {
+
+    /*当前的结果缓存  关闭时为null*/
+    static volatile DictResultCache cache = null;
+
+    /**
+     * 开启结果缓存  不限制权重
+     *
+     * @param maxSize 最多缓存的结果数量
+     */
+    public static void enable(int maxSize) {
+        enable(maxSize, Long.MAX_VALUE);
+    }
+
+    /**
+     * 开启结果缓存
+     *
+     * @param maxSize   最多缓存的结果数量
+     * @param maxWeight 所有结果的权重上限  权重为结果中字段名与字典值的字符数之和
+     */
+    public static void enable(int maxSize, long maxWeight) {
+        if (maxSize < 1 || maxWeight < 1) {
+            RuntimeException runtimeException = new RuntimeException("结果缓存配置错误! 容量必须大于0");
+            log.error("结果缓存配置错误! maxSize=[{}] maxWeight=[{}]", maxSize, maxWeight, runtimeException);
+            throw runtimeException;
+        }
+        cache = new DictResultCache(maxSize, maxWeight);
+    }
+
+    /**
+     * 关闭结果缓存
+     */
+    public static void disable() {
+        cache = null;
+    }
+
+    public static boolean isEnabled() {
+        return cache != null;
+    }
+
+    /**
+     * 获取翻译使用的结果缓存  在 {@link DictEngine} 中执行时为该引擎的缓存, 引擎不会使用全局的缓存
+     */
+    static DictResultCache current() {
+        DictEngine engine = DictEngine.current();
+        return engine == null ? cache : engine.resultCache;
+    }
+
+    /**
+     * 清空当前的结果缓存  在 {@link DictEngine} 中执行时为该引擎的缓存
+     */
+    public static void clear() {
+        DictResultCache current = current();
+        if (current != null) {
+            current.clear();
+        }
+    }
+
+    /**
+     * 获取当前结果缓存的统计信息  在 {@link DictEngine} 中执行时为该引擎的缓存
+     *
+     * @return 关闭时返回null
+     */
+    public static Stats getStats() {
+        return stats(current());
+    }
+
+    static Stats stats(DictResultCache cache) {
+        if (cache == null) {
+            return null;
+        }
+        return new Stats(cache.size(), cache.weight(), cache.hits.sum(), cache.misses.sum(), cache.evictions.sum());
+    }
+
+    /**
+     * 结果缓存统计
+     *
+     * @param size      当前条数
+     * @param weight    当前权重
+     * @param hits      命中次数
+     * @param misses    未命中次数
+     * @param evictions 淘汰次数
+     */
+    public record Stats(int size, long weight, long hits, long misses, long evictions) {
+
+        /**
+         * 命中率
+         */
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package cn.creekmoon.dict;
+
+import java.util.*;
+
+/**
+ * 批量反向翻译结果
+ * <p>
+ * 没有找到字典key或者字典key不唯一的值不会抛出异常, 字段保持原值, 按 字典类型+字段+字典值 汇总在这里.
+ * 适合导入校验时一次性提示所有有问题的值.
+ */
+public class DictReverseReport {
+
+    /**
+     * 失败原因
+     */
+    public enum Reason {
+        /*没有找到字典key*/
+        UNMAPPED,
+        /*字典值对应多个字典key*/
+        AMBIGUOUS
+    }
+
+    /**
+     * 一类失败的值
+     *
+     * @param reason    失败原因
+     * @param dictCode  字典类型编码
+     * @param fieldName 字段名
+     * @param label     字典值  多值字段中为失败的那一项
+     * @param keys      字典值对应的所有字典key  只有AMBIGUOUS时有值
+     * @param count     出现次数
+     */
+    public record Issue(Reason reason, String dictCode, String fieldName, String label, List<String> keys, int count) {
+    }
+
+    private record IssueKey(Reason reason, String dictCode, String fieldName, String label) {
+    }
+
+    /*k=失败的值 v=汇总  保持出现顺序*/
+    private final Map<IssueKey, Issue> issues = new LinkedHashMap<>();
+
+    /*成功替换的字段数量*/
+    private long converted;
+
+    /**
+     * 是否所有值都已替换成字典key
+     */
+    public synchronized boolean isSuccess() {
+        return issues.isEmpty();
+    }
+
+    /**
+     * 成功替换的字段数量
+     */
+    public synchronized long getConverted() {
+        return converted;
+    }
+
+    /**
+     * 所有失败的值
+     */
+    public synchronized List<Issue> getIssues() {
+        return new ArrayList<>(issues.values());
+    }
+
+    /**
+     * 没有找到字典key的值
+     */
+    public List<Issue> getUnmapped() {
+        return getIssues(Reason.UNMAPPED);
+    }
+
+    /**
+     * 字典key不唯一的值
+     */
+    public List<Issue> getAmbiguous() {
+        return getIssues(Reason.AMBIGUOUS);
+    }
+
+    private synchronized List<Issue> getIssues(Reason reason) {
+        List<Issue> result = new ArrayList<>();
+        for (Issue issue : issues.values()) {
+            if (issue.reason() == reason) {
+                result.add(issue);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 记录一次成功替换
+     */
+    void converted() {
+        converted++;
+    }
+
+    /**
+     * 记录一次失败  相同的值累加次数
+     *
+     * @param issue 失败的值  次数为本次出现的次数
+     */
+    void add(Issue issue) {
+        issues.merge(new IssueKey(issue.reason(), issue.dictCode(), issue.fieldName(), issue.label()), issue,
+                (a, b) -> new Issue(a.reason(), a.dictCode(), a.fieldName(), a.label(), a.keys(), a.count() + b.count()));
+    }
+
+    /**
+     * 合并并行处理时各段的结果
+     */
+    synchronized void merge(DictReverseReport other) {
+        converted += other.converted;
+        other.issues.values().forEach(this::add);
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder builder = new StringBuilder("反向翻译: 成功").append(converted).append("个");
+        for (Issue issue : issues.values()) {
+            builder.append("; [").append(issue.fieldName()).append("] ").append(issue.label())
+                    .append(issue.reason() == Reason.UNMAPPED ? " 没有找到字典key" : " 对应多个字典key" + issue.keys())
+                    .append(" x").append(issue.count());
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,158 @@
+package cn.creekmoon.dict;
+
+import cn.hutool.core.util.StrUtil;
+
+import java.util.*;
+
+/**
+ * 批量反向翻译  字典值 -> 字典key, {@link Dict#fillSelf(Object)} 的逆操作
+ * <p>
+ * 对象按实际类型分组, 每组只获取一次翻译计划, 然后按字段逐列处理. 同一列中相同的字典值只查找一次.
+ * 业务对象字段和集合字段展开后按实际类型分组递归处理.
+ * <p>
+ * 只处理使用默认翻译器的String字段, 自定义翻译器的结果无法还原. 字段值的处理方式:
+ * <ul>
+ *     <li>去掉首尾空白后查找, 带有注解后缀时也能识别</li>
+ *     <li>整个值找不到且包含逗号时按多值处理, 每一项都找到才替换, 字典key用逗号拼接</li>
+ *     <li>找不到或不唯一时保持原值, 汇总到 {@link DictReverseReport}</li>
+ * </ul>
+ */
+final class DictReverseTranslator {
+
+    private DictReverseTranslator() {
+    }
+
+    /**
+     * 批量反向翻译
+     *
+     * @param rows   需要处理的对象
+     * @param report 汇总结果
+     */
+    static void fill(Object[] rows, DictReverseReport report) {
+        if (DictParallelConfig.isParallel(rows.length)) {
+            // 每段使用自己的汇总结果, 结束后合并, 处理过程中不需要加锁
+            DictParallelConfig.forEachRange(rows.length, (from, to) -> {
+                DictReverseReport part = new DictReverseReport();
+                fillGrouped(Arrays.asList(rows).subList(from, to), part);
+                report.merge(part);
+            });
+            return;
+        }
+        fillGrouped(Arrays.asList(rows), report);
+    }
+
+    /**
+     * 按实际类型分组后处理  集合会被展开
+     */
+    private static void fillGrouped(Collection<?> values, DictReverseReport report) {
+        Map<Class<?>, List<Object>> groups = new LinkedHashMap<>();
+        collect(values, groups);
+        groups.forEach((clazz, group) -> fillRows(group, clazz, report));
+    }
+
+    private static void collect(Collection<?> values, Map<Class<?>, List<Object>> groups) {
+        for (Object value : values) {
+            if (value instanceof Collection<?> collection) {
+                collect(collection, groups);
+            } else if (Dict.isTranslatable(value)) {
+                groups.computeIfAbsent(value.getClass(), k -> new ArrayList<>()).add(value);
+            }
+        }
+    }
+
+    private static void fillRows(List<Object> rows, Class<?> type, DictReverseReport report) {
+        DictClassPlan plan = DictClassPlan.of(type);
+        for (DictFieldPlan fieldPlan : plan.allFields) {
+            // 如果是集合类型或业务对象类型, 则整列递归进入
+            if (fieldPlan.kind != DictFieldPlan.Kind.VALUE) {
+                List<Object> values = new ArrayList<>(rows.size());
+                for (Object row : rows) {
+                    Object value = fieldPlan.get(row);
+                    if (value != null) {
+                        values.add(value);
+                    }
+                }
+                fillGrouped(values, report);
+                continue;
+            }
+            // 只有默认翻译器的结果可以还原
+            if (!fieldPlan.fillable || !fieldPlan.isPureTranslator()) {
+                continue;
+            }
+            Map<String, Resolved> memo = new HashMap<>();
+            for (Object row : rows) {
+                Object value = fieldPlan.get(row);
+                if (!(value instanceof String label) || StrUtil.isBlank(label)) {
+                    continue;
+                }
+                Resolved resolved = memo.computeIfAbsent(label, x -> resolve(fieldPlan, x));
+                if (resolved.key != null) {
+                    fieldPlan.set(row, resolved.key);
+                    report.converted();
+                } else {
+                    resolved.issues.forEach(report::add);
+                }
+            }
+        }
+    }
+
+    /**
+     * 查找一个字段值对应的字典key
+     */
+    private static Resolved resolve(DictFieldPlan fieldPlan, String label) {
+        DictStore store = DictStoreConfig.current();
+        Object single = lookup(store, fieldPlan, label.trim());
+        if (single instanceof String key) {
+            return new Resolved(key, null);
+        }
+        if (label.indexOf(',') < 0) {
+            return new Resolved(null, List.of((DictReverseReport.Issue) single));
+        }
+        // 多值  与翻译时一致, 末尾的空值会被忽略
+        StringBuilder keys = new StringBuilder(label.length());
+        List<DictReverseReport.Issue> issues = new ArrayList<>(1);
+        String[] tokens = label.split(",");
+        for (int i = 0; i < tokens.length; i++) {
+            if (i > 0) {
+                keys.append(',');
+            }
+            String token = tokens[i].trim();
+            if (token.isEmpty()) {
+                continue;
+            }
+            Object result = lookup(store, fieldPlan, token);
+            if (result instanceof String key) {
+                keys.append(key);
+            } else {
+                issues.add((DictReverseReport.Issue) result);
+            }
+        }
+        return issues.isEmpty() ? new Resolved(keys.toString(), null) : new Resolved(null, issues);
+    }
+
+    /**
+     * 查找单个字典值  带有注解后缀时去掉后缀再查找
+     *
+     * @return 唯一的字典key, 否则为 {@link DictReverseReport.Issue}
+     */
+    private static Object lookup(DictStore store, DictFieldPlan fieldPlan, String label) {
+        List<String> keys = store.getKeys(fieldPlan.dictCode, label);
+        String suffix = fieldPlan.suffix;
+        if (keys == null && !suffix.isEmpty() && label.length() > suffix.length() && label.endsWith(suffix)) {
+            keys = store.getKeys(fieldPlan.dictCode, label.substring(0, label.length() - suffix.length()).trim());
+        }
+        if (keys == null || keys.isEmpty()) {
+            return new DictReverseReport.Issue(DictReverseReport.Reason.UNMAPPED, fieldPlan.dictCode, fieldPlan.name, label, Collections.emptyList(), 1);
+        }
+        if (keys.size() > 1) {
+            return new DictReverseReport.Issue(DictReverseReport.Reason.AMBIGUOUS, fieldPlan.dictCode, fieldPlan.name, label, List.copyOf(keys), 1);
+        }
+        return keys.get(0);
+    }
+
+    /**
+     * 一个字段值的查找结果  key和issues只有一个有值
+     */
+    private record Resolved(String key, List<DictReverseReport.Issue> issues) {
+    }
+}
@@ -0,0 +1,372 @@
+package cn.creekmoon.dict;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 字典快照
+ * <p>
+ * 正向字典和反向字典一起构建, 构建完成后通过一次volatile引用替换发布.
+ * 快照本身不可变, 读取时无锁, 并且同一个快照内的正向/反向字典始终一致.
+ * 更新某个字典类型时只重建该类型的反向字典, 其他类型直接复用上一个快照中的实例.
+ * 快照的发布由 {@link DictSnapshotStore} 负责.
+ */
+public final class DictSnapshot {
+
+    static final DictSnapshot EMPTY = new DictSnapshot(0L, Collections.emptyMap());
+
+    /*版本号  每次发布新快照时+1*/
+    private final long version;
+
+    /**
+     * k=字典类型code  v=该字典类型的数据
+     */
+    private final Map<String, DictTable> tables;
+
+    /**
+     * k1=字典类型code  k2=字典key  v=字典值
+     */
+    private final Map<String, Map<String, String>> dictMap;
+
+    /**
+     * k1=字典类型code  k2=字典值  v=字典key
+     */
+    private final Map<String, Map<String, List<String>>> reverseMap;
+
+    private DictSnapshot(long version, Map<String, DictTable> tables) {
+        this.version = version;
+        this.tables = tables;
+        this.dictMap = tableView(tables, DictTable::entries);
+        this.reverseMap = tableView(tables, DictTable::reverse);
+    }
+
+    /**
+     * 获取当前生效的快照
+     *
+     * @return 在 {@link DictEngine} 中执行时为该引擎的快照. 当前字典存储不是 {@link DictSnapshotStore} 时返回空快照
+     */
+    public static DictSnapshot current() {
+        return DictStoreConfig.current() instanceof DictSnapshotStore snapshotStore ? snapshotStore.current() : EMPTY;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * 获取字典值
+     *
+     * @param dictCode 字典类型编码
+     * @param dictKey  字典key
+     * @return 没有找到返回null
+     */
+    public String get(String dictCode, String dictKey) {
+        DictTable table = tables.get(dictCode);
+        return table == null ? null : table.get(dictKey);
+    }
+
+    /**
+     * 按数字key获取字典值  字典类型的key都是整数时不需要转换成字符串
+     *
+     * @param dictCode 字典类型编码
+     * @param dictKey  字典key
+     * @return 没有找到返回null
+     */
+    public String get(String dictCode, long dictKey) {
+        DictTable table = tables.get(dictCode);
+        return table == null ? null : table.get(dictKey);
+    }
+
+    /**
+     * 获取字典值对应的所有字典key
+     *
+     * @param dictCode  字典类型编码
+     * @param dictValue 字典值
+     * @return 没有找到返回null
+     */
+    public List<String> getKeys(String dictCode, String dictValue) {
+        DictTable table = tables.get(dictCode);
+        return table == null ? null : table.getKeys(dictValue);
+    }
+
+    /**
+     * 获取字典类型下的所有字典值
+     *
+     * @param dictCode 字典类型编码
+     * @return 没有找到返回null
+     */
+    public Map<String, String> getEntries(String dictCode) {
+        DictTable table = tables.get(dictCode);
+        return table == null ? null : table.entries();
+    }
+
+    /**
+     * k1=字典类型code  k2=字典key  v=字典值  不可修改
+     */
+    public Map<String, Map<String, String>> getDictMap() {
+        return dictMap;
+    }
+
+    /**
+     * k1=字典类型code  k2=字典值  v=字典key  不可修改
+     */
+    public Map<String, Map<String, List<String>>> getReverseMap() {
+        return reverseMap;
+    }
+
+    DictTable getTable(String dictCode) {
+        return tables.get(dictCode);
+    }
+
+    /**
+     * 合并字典, 生成新快照  只有传入的字典类型会被替换并重建反向字典
+     *
+     * @param changes k1=字典类型code  k2=字典key  v=字典值
+     * @return 新快照
+     */
+    DictSnapshot putAll(Map<String, ? extends Map<String, String>> changes) {
+        return change(changes, Collections.emptySet());
+    }
+
+    /**
+     * 替换和删除字典类型, 生成新快照  只有变化的字典类型会重建反向字典
+     *
+     * @param changes      需要替换的字典类型 k1=字典类型code  k2=字典key  v=字典值
+     * @param removedCodes 需要删除的字典类型
+     * @return 新快照
+     */
+    DictSnapshot change(Map<String, ? extends Map<String, String>> changes, Collection<String> removedCodes) {
+        return change(changes, removedCodes, true);
+    }
+
+    /**
+     * 替换和删除字典类型, 生成新快照
+     *
+     * @param changes      需要替换的字典类型
+     * @param removedCodes 需要删除的字典类型
+     * @param copy         是否复制字典项  调用方保证字典项不再被修改且值都是String时可以直接接管, 省掉一次复制
+     * @return 新快照
+     */
+    DictSnapshot change(Map<String, ? extends Map<String, String>> changes, Collection<String> removedCodes, boolean copy) {
+        Map<String, DictTable> nextTables = new HashMap<>(tables);
+        for (String removedCode : removedCodes) {
+            nextTables.remove(removedCode);
+        }
+        changes.forEach((dictCode, entries) -> {
+            Map<String, String> owned = copy || entries == null ? copyEntries(entries) : Collections.unmodifiableMap(entries);
+            // 数据量很大的字典类型转存到堆外
+            nextTables.put(dictCode, DictMappedStore.isOffHeap(owned.size()) ? DictMappedStore.offload(dictCode, owned, tables.get(dictCode)) : DictTable.of(owned));
+        });
+        return new DictSnapshot(version + 1, Collections.unmodifiableMap(nextTables));
+    }
+
+    /**
+     * 直接替换和删除字典类型的数据, 生成新快照  用于已经构建好的数据, 例如内存映射的字典
+     *
+     * @param changes      需要替换的字典类型 k=字典类型code v=该字典类型的数据
+     * @param removedCodes 需要删除的字典类型
+     * @return 新快照
+     */
+    DictSnapshot changeTables(Map<String, DictTable> changes, Collection<String> removedCodes) {
+        Map<String, DictTable> nextTables = new HashMap<>(tables);
+        for (String removedCode : removedCodes) {
+            nextTables.remove(removedCode);
+        }
+        nextTables.putAll(changes);
+        return new DictSnapshot(version + 1, Collections.unmodifiableMap(nextTables));
+    }
+
+    /**
+     * 复制字典项  远端JSON中的数字等非字符串值会统一转为字符串
+     */
+    private static Map<String, String> copyEntries(Map<?, ?> entries) {
+        if (entries == null || entries.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> copy = new HashMap<>(Math.max(16, (int) (entries.size() / 0.75f) + 1));
+        entries.forEach((k, v) -> copy.put(String.valueOf(k), v == null ? null : String.valueOf(v)));
+        return Collections.unmodifiableMap(copy);
+    }
+
+    /**
+     * 把 字典类型code -> DictTable 映射成 字典类型code -> DictTable中的某个Map 的只读视图
+     */
+    private static <V> Map<String, V> tableView(Map<String, DictTable> tables, Function<DictTable, V> mapper) {
+        return new AbstractMap<>() {
+            @Override
+            public Set<Entry<String, V>> entrySet() {
+                return new AbstractSet<>() {
+                    @Override
+                    public Iterator<Entry<String, V>> iterator() {
+                        Iterator<Entry<String, DictTable>> iterator = tables.entrySet().iterator();
+                        return new Iterator<>() {
+                            @Override
+                            public boolean hasNext() {
+                                return iterator.hasNext();
+                            }
+
+                            @Override
+                            public Entry<String, V> next() {
+                                Entry<String, DictTable> entry = iterator.next();
+                                return new SimpleImmutableEntry<>(entry.getKey(), mapper.apply(entry.getValue()));
+                            }
+                        };
+                    }
+
+                    @Override
+                    public int size() {
+                        return tables.size();
+                    }
+                };
+            }
+
+            @Override
+            public V get(Object key) {
+                DictTable table = tables.get(key);
+                return table == null ? null : mapper.apply(table);
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return tables.containsKey(key);
+            }
+
+            @Override
+            public int size() {
+                return tables.size();
+            }
+        };
+    }
+
+    /**
+     * 创建一个总是读取当前快照的只读Map视图  用于兼容旧的静态字段
+     *
+     * @param supplier 从当前快照中取出的Map
+     * @return
+     */
+    static <V> Map<String, V> liveView(Supplier<Map<String, V>> supplier) {
+        return new AbstractMap<>() {
+            @Override
+            public Set<Entry<String, V>> entrySet() {
+                return supplier.get().entrySet();
+            }
+
+            @Override
+            public V get(Object key) {
+                return supplier.get().get(key);
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return supplier.get().containsKey(key);
+            }
+
+            @Override
+            public int size() {
+                return supplier.get().size();
+            }
+        };
+    }
+
+    /**
+     * 创建一个总是读取当前存储的反向字典只读视图  用于兼容旧的静态字段
+     * <p>
+     * 只在访问某个字典类型时通过 {@link DictStore#getEntries(String)} / {@link DictStore#getKeys(String, String)} 读取该类型,
+     * 不会像 {@link DictStore#reverseSnapshot()} 的默认实现那样每次都重建所有字典类型的反向字典.
+     *
+     * @param supplier 当前的存储
+     * @return k1=字典类型code  k2=字典值  v=字典key
+     */
+    static Map<String, Map<String, List<String>>> reverseLiveView(Supplier<DictStore> supplier) {
+        return new AbstractMap<>() {
+            @Override
+            public Set<Entry<String, Map<String, List<String>>>> entrySet() {
+                DictStore store = supplier.get();
+                return lazyEntrySet(store.snapshot().keySet(), dictCode -> reverseView(store, dictCode));
+            }
+
+            @Override
+            public Map<String, List<String>> get(Object key) {
+                DictStore store = supplier.get();
+                return key instanceof String && store.getEntries((String) key) != null ? reverseView(store, (String) key) : null;
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return key instanceof String && supplier.get().getEntries((String) key) != null;
+            }
+
+            @Override
+            public int size() {
+                return supplier.get().snapshot().size();
+            }
+        };
+    }
+
+    /**
+     * 一个字典类型的反向字典视图  按字典值查找时直接使用存储的反向查找
+     */
+    private static Map<String, List<String>> reverseView(DictStore store, String dictCode) {
+        return new AbstractMap<>() {
+            @Override
+            public Set<Entry<String, List<String>>> entrySet() {
+                return lazyEntrySet(dictValues(), dictValue -> store.getKeys(dictCode, dictValue));
+            }
+
+            @Override
+            public List<String> get(Object key) {
+                return key instanceof String ? store.getKeys(dictCode, (String) key) : null;
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return get(key) != null;
+            }
+
+            @Override
+            public int size() {
+                return dictValues().size();
+            }
+
+            private Set<String> dictValues() {
+                Map<String, String> entries = store.getEntries(dictCode);
+                Set<String> values = new LinkedHashSet<>();
+                if (entries != null) {
+                    entries.values().forEach(value -> {
+                        if (value != null) {
+                            values.add(value);
+                        }
+                    });
+                }
+                return values;
+            }
+        };
+    }
+
+    private static <V> Set<Map.Entry<String, V>> lazyEntrySet(Set<String> keys, Function<String, V> mapper) {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<String, V>> iterator() {
+                Iterator<String> iterator = keys.iterator();
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public Map.Entry<String, V> next() {
+                        String key = iterator.next();
+                        return new AbstractMap.SimpleImmutableEntry<>(key, mapper.apply(key));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return keys.size();
+            }
+        };
+    }
+}
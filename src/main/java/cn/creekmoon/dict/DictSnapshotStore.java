@@ -0,0 +1,96 @@
+package cn.creekmoon.dict;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * 基于 {@link DictSnapshot} 的字典存储  默认实现
+ * <p>
+ * 每次写入在旁路构建新快照, 然后通过一次volatile引用替换发布. 读取无锁, 写入方之间通过该实例的锁串行.
+ * 数据量很大的字典类型可以通过 {@link DictMappedStore} 保存到堆外.
+ */
+public final class DictSnapshotStore implements DictStore {
+
+    /*当前生效的快照*/
+    private volatile DictSnapshot current = DictSnapshot.EMPTY;
+
+    /**
+     * 获取当前生效的快照
+     *
+     * @return
+     */
+    public DictSnapshot current() {
+        return current;
+    }
+
+    /**
+     * 基于当前快照构建新快照并发布
+     * 写入方之间串行, 读取方不受影响
+     *
+     * @param updater 根据旧快照构建新快照
+     * @return 新快照
+     */
+    synchronized DictSnapshot update(UnaryOperator<DictSnapshot> updater) {
+        DictSnapshot next = updater.apply(current);
+        current = next;
+        return next;
+    }
+
+    @Override
+    public String get(String dictCode, String dictKey) {
+        return current.get(dictCode, dictKey);
+    }
+
+    @Override
+    public String get(String dictCode, long dictKey) {
+        return current.get(dictCode, dictKey);
+    }
+
+    @Override
+    public List<String> getKeys(String dictCode, String dictValue) {
+        return current.getKeys(dictCode, dictValue);
+    }
+
+    @Override
+    public Map<String, String> getEntries(String dictCode) {
+        return current.getEntries(dictCode);
+    }
+
+    @Override
+    public void change(Map<String, ? extends Map<String, String>> changes, Collection<String> removedCodes) {
+        update(snapshot -> snapshot.change(changes, removedCodes));
+    }
+
+    /**
+     * 替换和删除字典类型
+     *
+     * @param copy 是否复制字典项  调用方保证字典项不再被修改且值都是String时可以直接接管, 省掉一次复制
+     */
+    void change(Map<String, ? extends Map<String, String>> changes, Collection<String> removedCodes, boolean copy) {
+        update(snapshot -> snapshot.change(changes, removedCodes, copy));
+    }
+
+    /**
+     * 直接替换和删除字典类型的数据  用于已经构建好的数据, 例如内存映射的字典
+     */
+    void changeTables(Map<String, DictTable> changes, Collection<String> removedCodes) {
+        update(snapshot -> snapshot.changeTables(changes, removedCodes));
+    }
+
+    @Override
+    public Map<String, Map<String, String>> snapshot() {
+        return current.getDictMap();
+    }
+
+    @Override
+    public Map<String, Map<String, List<String>>> reverseSnapshot() {
+        return current.getReverseMap();
+    }
+
+    @Override
+    public long getVersion() {
+        return current.getVersion();
+    }
+}
@@ -0,0 +1,124 @@
+package cn.creekmoon.dict;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 字典来源
+ * <p>
+ * 通过 {@link DictSourceConfig#register(DictSource)} 注册后, 每个来源按自己的刷新间隔独立加载,
+ * 加载结果合并到同一个字典存储中. 每个字典类型只属于一个来源(先注册的优先), 来源之间互不影响.
+ * <p>
+ * 内置的来源: {@link #http}, {@link #classpath}, {@link #file}, {@link #supplier}, {@link #rows}.
+ */
+public interface DictSource {
+
+    /**
+     * 来源名称  全局唯一, 用于记录字典类型的归属
+     */
+    String getName();
+
+    /**
+     * 刷新间隔, 单位秒  小于等于0时只加载一次
+     */
+    long getRefreshInterval();
+
+    /**
+     * 加载该来源的全部字典  上一次出现而本次没有出现的字典类型会被删除
+     *
+     * @return k=字典类型code v=字典项  与上一次 {@link #merged()} 时相比没有变化时可以返回null
+     * @throws Exception 加载失败时保留上一次的字典
+     */
+    Map<String, Map<String, String>> load() throws Exception;
+
+    /**
+     * 本次加载的结果已经写入字典存储  有变化检查的来源在这里记录本次报文的标识(MD5、ETag等)
+     * <p>
+     * 写入失败时不会调用, 下一次加载仍然需要返回全部字典
+     */
+    default void merged() {
+    }
+
+    /**
+     * HTTP来源  与 {@link DictHttpRefreshConfig} 相同的全量报文格式(JSON或二进制), 支持压缩和ETag条件请求, 报文MD5一致时视为没有变化
+     *
+     * @param name            来源名称
+     * @param url             仅支持GET类型的地址  预期数据为<Map<String, Map<String, String>>>
+     * @param refreshInterval 刷新间隔,单位秒
+     * @return
+     */
+    static DictSource http(String name, String url, long refreshInterval) {
+        return new DictSources.HttpSource(name, url, refreshInterval);
+    }
+
+    /**
+     * classpath资源来源  报文MD5一致时视为没有变化
+     *
+     * @param name            来源名称
+     * @param resource        资源路径, 例如 dict/base-dict.json
+     * @param refreshInterval 刷新间隔,单位秒
+     * @return
+     */
+    static DictSource classpath(String name, String resource, long refreshInterval) {
+        return new DictSources.ClasspathSource(name, resource, refreshInterval);
+    }
+
+    /**
+     * 本地文件来源  文件的修改时间和大小都没有变化时不会读取
+     *
+     * @param name            来源名称
+     * @param path            JSON文件路径
+     * @param refreshInterval 刷新间隔,单位秒
+     * @return
+     */
+    static DictSource file(String name, Path path, long refreshInterval) {
+        return new DictSources.FileSource(name, path, refreshInterval);
+    }
+
+    /**
+     * 自定义来源  例如从配置中心或其他服务的SDK中获取
+     *
+     * @param name            来源名称
+     * @param supplier        返回全部字典  没有变化时可以返回null
+     * @param refreshInterval 刷新间隔,单位秒
+     * @return
+     */
+    static DictSource supplier(String name, Supplier<Map<String, Map<String, String>>> supplier, long refreshInterval) {
+        return new DictSources.SupplierSource(name, supplier, refreshInterval);
+    }
+
+    /**
+     * 逐行来源  适合数据库查询, 每一行为 字典类型code, 字典key, 字典值
+     * <pre>
+     * DictSource.rows("db", sink -&gt; jdbcTemplate.query("select code, k, v from sys_dict",
+     *         rs -&gt; { sink.accept(rs.getString(1), rs.getString(2), rs.getString(3)); }), 60L);
+     * </pre>
+     *
+     * @param name            来源名称
+     * @param loader          逐行写入字典项
+     * @param refreshInterval 刷新间隔,单位秒
+     * @return
+     */
+    static DictSource rows(String name, RowLoader loader, long refreshInterval) {
+        return new DictSources.RowSource(name, loader, refreshInterval);
+    }
+
+    /**
+     * 逐行加载字典项
+     */
+    @FunctionalInterface
+    interface RowLoader {
+
+        void load(RowSink sink) throws Exception;
+    }
+
+    /**
+     * 接收一行字典项
+     */
+    @FunctionalInterface
+    interface RowSink {
+
+        void accept(String dictCode, String key, String value);
+    }
+}
@@ -0,0 +1,330 @@
+package cn.creekmoon.dict;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * 多来源字典加载
+ * <p>
+ * 每个 {@link DictSource} 按自己的刷新间隔独立加载, 合并到同一个字典存储中:
+ * <ul>
+ *     <li>调度线程只负责计时, 加载在独立的线程中执行(JDK 21及以上使用虚拟线程), 慢的来源只会推迟自己的下一次加载</li>
+ *     <li>按 {@link DictRefreshPolicy} 抖动、退避和熔断; 手动刷新与定时刷新合并执行, 同一个来源不会重叠执行</li>
+ *     <li>每个字典类型只属于一个来源, 多个来源有同名字典类型时先注册的来源优先, 与加载完成的先后无关</li>
+ *     <li>来源上一次加载到而本次没有的字典类型会被删除; 其他来源也有该字典类型时, 立即改用其中优先的来源上一次加载到的字典项</li>
+ *     <li>加载失败或写入失败时保留上一次的字典, 下一次加载重新读取全部字典</li>
+ * </ul>
+ * 通过 {@link Dict#addDictMap(Map)} 或 {@link DictHttpRefreshConfig} 写入的字典类型不属于任何来源, 来源加载到同名字典类型时会覆盖.
+ */
+@Slf4j
+public class DictSourceConfig {
+
+    /*已注册的来源  k=来源名称*/
+    private static final Map<String, SourceState> SOURCES = new ConcurrentHashMap<>();
+
+    /*字典类型的归属  k=字典类型code v=来源名称. 写入时锁定该实例*/
+    private static final Map<String, String> OWNERS = new ConcurrentHashMap<>();
+
+    /*注册顺序  越小越优先*/
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private static ScheduledExecutorService scheduler = null;
+
+    private static ExecutorService loadExecutor = null;
+
+    /**
+     * 注册来源并立即开始加载  使用默认的刷新策略 {@link DictRefreshPolicy#DEFAULT}
+     *
+     * @param source 字典来源
+     */
+    public static void register(DictSource source) {
+        register(source, DictRefreshPolicy.DEFAULT);
+    }
+
+    /**
+     * 注册来源并立即开始加载  同名的来源会被替换, 已加载的字典类型和优先顺序由新来源接管
+     *
+     * @param source 字典来源
+     * @param policy 刷新策略
+     */
+    public static synchronized void register(DictSource source, DictRefreshPolicy policy) {
+        if (source == null) {
+            RuntimeException runtimeException = new RuntimeException("字典来源配置错误! 来源不能为空");
+            log.error("字典来源配置错误! source=null", runtimeException);
+            throw runtimeException;
+        }
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("dict-source-scheduler"));
+            loadExecutor = newLoadExecutor();
+        }
+        SourceState existing = SOURCES.get(source.getName());
+        SourceState state = new SourceState(source, existing == null ? SEQUENCE.incrementAndGet() : existing.order);
+        state.scheduler = new DictRefreshScheduler("来源 " + source.getName(), () -> load(state),
+                TimeUnit.SECONDS.toMillis(source.getRefreshInterval()), policy, scheduler, loadExecutor);
+        SourceState previous = SOURCES.put(source.getName(), state);
+        if (previous != null) {
+            previous.cancel();
+            synchronized (OWNERS) {
+                state.ownedCodes = previous.ownedCodes;
+                state.contested = previous.contested;
+            }
+        }
+        state.scheduler.start(true);
+    }
+
+    /**
+     * 注销来源  该来源的字典类型会被删除, 其他来源也有的字典类型改用其他来源的字典项
+     *
+     * @param name 来源名称
+     * @return 来源是否存在
+     */
+    public static synchronized boolean unregister(String name) {
+        SourceState state = SOURCES.remove(name);
+        if (state == null) {
+            return false;
+        }
+        state.cancel();
+        synchronized (OWNERS) {
+            Map<String, Map<String, String>> changes = new HashMap<>();
+            Set<String> removedCodes = release(state, state.ownedCodes, changes);
+            DictStoreConfig.change(changes, removedCodes, true);
+            state.ownedCodes = new HashSet<>();
+        }
+        return true;
+    }
+
+    /**
+     * 停止所有来源的加载  已加载的字典保持不变
+     */
+    public static synchronized void shutdown() {
+        SOURCES.values().forEach(SourceState::cancel);
+        SOURCES.clear();
+        synchronized (OWNERS) {
+            OWNERS.clear();
+        }
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            loadExecutor.shutdownNow();
+            scheduler = null;
+            loadExecutor = null;
+        }
+    }
+
+    /**
+     * 获取字典类型所属的来源
+     *
+     * @param dictCode 字典类型code
+     * @return 来源名称  不属于任何来源时返回null
+     */
+    public static String getOwner(String dictCode) {
+        return OWNERS.get(dictCode);
+    }
+
+    /**
+     * 获取所有字典类型的归属
+     *
+     * @return k=字典类型code v=来源名称
+     */
+    public static Map<String, String> getOwners() {
+        return Collections.unmodifiableMap(new HashMap<>(OWNERS));
+    }
+
+    /**
+     * 获取已注册的来源名称
+     */
+    public static Set<String> getSourceNames() {
+        return Collections.unmodifiableSet(new TreeSet<>(SOURCES.keySet()));
+    }
+
+    /**
+     * 立即加载一次  与定时加载合并执行, 不会重叠; 熔断中时直接返回false
+     *
+     * @param name 来源名称
+     * @return 是否加载成功  来源不存在时返回false
+     */
+    public static CompletableFuture<Boolean> refresh(String name) {
+        SourceState state = SOURCES.get(name);
+        return state == null ? CompletableFuture.completedFuture(false) : state.scheduler.trigger();
+    }
+
+    /**
+     * 获取来源的刷新调度  可以查看熔断状态和连续失败次数
+     *
+     * @param name 来源名称
+     * @return 来源不存在时返回null
+     */
+    public static DictRefreshScheduler getScheduler(String name) {
+        SourceState state = SOURCES.get(name);
+        return state == null ? null : state.scheduler;
+    }
+
+    /**
+     * 加载一次并合并到字典存储
+     */
+    private static boolean load(SourceState state) {
+        if (state.cancelled) {
+            return false;
+        }
+        String name = state.source.getName();
+        DictMetrics metrics = DictMetricsConfig.metrics;
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            Map<String, Map<String, String>> dictMap = state.source.load();
+            if (dictMap == null) {
+                log.info("[字典来源]======来源[{}]无变化====", name);
+            } else {
+                merge(state, dictMap);
+                // 写入成功后才记录报文标识, 写入失败时下一次仍然读取全部字典
+                state.source.merged();
+            }
+            success = true;
+        } catch (Exception e) {
+            log.error("[字典来源]=======来源[{}]加载失败, 保留上一次的字典====", name, e);
+        }
+        if (metrics != null) {
+            metrics.refreshed(success, System.nanoTime() - start, 0L);
+        }
+        return success;
+    }
+
+    /**
+     * 合并一个来源的加载结果  只写入有变化的字典类型
+     */
+    private static void merge(SourceState state, Map<String, Map<String, String>> dictMap) {
+        String name = state.source.getName();
+        DictStore store = DictStoreConfig.store;
+        Map<String, Map<String, String>> changes = new HashMap<>();
+        Set<String> removedCodes;
+        synchronized (OWNERS) {
+            // 注销后才拿到锁的加载结果不再写入
+            if (state.cancelled) {
+                return;
+            }
+            Set<String> ownedCodes = new HashSet<>();
+            Map<String, Map<String, String>> contested = new HashMap<>();
+            dictMap.forEach((dictCode, entries) -> {
+                Map<String, String> current = entries == null ? Collections.emptyMap() : entries;
+                String ownerName = OWNERS.get(dictCode);
+                SourceState owner = ownerName == null || ownerName.equals(name) ? null : SOURCES.get(ownerName);
+                if (owner != null && owner.order < state.order) {
+                    log.warn("[字典来源]=======字典类型[{}]已属于来源[{}], 忽略来源[{}]中的同名字典====", dictCode, ownerName, name);
+                    // 保留一份, 优先的来源不再提供该字典类型时直接使用
+                    contested.put(dictCode, new HashMap<>(current));
+                    return;
+                }
+                if (owner != null) {
+                    log.warn("[字典来源]=======字典类型[{}]由来源[{}]接管, 来源[{}]中的同名字典不再生效====", dictCode, name, ownerName);
+                    Map<String, String> previous = store.getEntries(dictCode);
+                    owner.ownedCodes.remove(dictCode);
+                    owner.contested.put(dictCode, previous == null ? new HashMap<>() : new HashMap<>(previous));
+                }
+                OWNERS.put(dictCode, name);
+                ownedCodes.add(dictCode);
+                if (!current.equals(store.getEntries(dictCode))) {
+                    changes.put(dictCode, current);
+                }
+            });
+            Set<String> releasedCodes = new HashSet<>(state.ownedCodes);
+            releasedCodes.removeAll(ownedCodes);
+            state.ownedCodes = ownedCodes;
+            state.contested = contested;
+            removedCodes = release(state, releasedCodes, changes);
+            if (changes.isEmpty() && removedCodes.isEmpty()) {
+                log.info("[字典来源]======来源[{}]与当前字典一致无须更新====", name);
+                return;
+            }
+            // 来源返回的字典项可能被调用方继续持有, 需要复制
+            DictStoreConfig.change(changes, removedCodes, true);
+        }
+        DictLocalSnapshot.save();
+        log.info("[字典来源]======来源[{}]更新成功, 变化{}个, 删除{}个====", name, changes.size(), removedCodes.size());
+    }
+
+    /**
+     * 释放一个来源的字典类型  其他来源也有该字典类型时转交给其中最优先的来源, 调用时需要持有OWNERS的锁
+     *
+     * @param changes 转交的字典项写入这里
+     * @return 没有其他来源、需要删除的字典类型
+     */
+    private static Set<String> release(SourceState from, Set<String> codes, Map<String, Map<String, String>> changes) {
+        String name = from.source.getName();
+        Set<String> removedCodes = new HashSet<>();
+        for (String dictCode : codes) {
+            OWNERS.remove(dictCode, name);
+            SourceState next = null;
+            for (SourceState candidate : SOURCES.values()) {
+                if (candidate != from && candidate.contested.containsKey(dictCode) && (next == null || candidate.order < next.order)) {
+                    next = candidate;
+                }
+            }
+            if (next == null) {
+                removedCodes.add(dictCode);
+                continue;
+            }
+            log.info("[字典来源]======字典类型[{}]由来源[{}]转交给来源[{}]====", dictCode, name, next.source.getName());
+            changes.put(dictCode, next.contested.remove(dictCode));
+            next.ownedCodes.add(dictCode);
+            OWNERS.put(dictCode, next.source.getName());
+        }
+        return removedCodes;
+    }
+
+    /**
+     * 加载使用的线程  JDK 21及以上每个任务使用一个虚拟线程, 否则使用守护线程的缓存线程池
+     */
+    static ExecutorService newLoadExecutor() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Executors.newCachedThreadPool(daemonThreadFactory("dict-source-loader"));
+        }
+    }
+
+    static ThreadFactory daemonThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * 一个来源的加载状态
+     */
+    private static final class SourceState {
+
+        private final DictSource source;
+
+        /*注册顺序  越小越优先*/
+        private final long order;
+
+        private volatile boolean cancelled;
+
+        private DictRefreshScheduler scheduler;
+
+        /*该来源拥有的字典类型  由OWNERS的锁保护*/
+        private Set<String> ownedCodes = new HashSet<>();
+
+        /*该来源也有、但属于更优先来源的字典类型及其字典项  由OWNERS的锁保护*/
+        private Map<String, Map<String, String>> contested = new HashMap<>();
+
+        private SourceState(DictSource source, long order) {
+            this.source = source;
+            this.order = order;
+        }
+
+        private void cancel() {
+            cancelled = true;
+            scheduler.stop();
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package cn.creekmoon.dict;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.http.Header;
+import cn.hutool.http.HttpRequest;
+import cn.hutool.http.HttpResponse;
+import cn.hutool.http.HttpStatus;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 内置的字典来源实现
+ */
+@Slf4j
+final class DictSources {
+
+    private DictSources() {
+    }
+
+    /**
+     * 解析全量字典报文
+     *
+     * @param lastMD5 上一次报文的MD5
+     * @return 与上一次报文一致时返回null
+     */
+    private static DictPayloadReader readPayload(String name, InputStream inputStream, String lastMD5) throws IOException {
+        return checkPayload(name, DictPayloadReader.read(inputStream), lastMD5);
+    }
+
+    private static DictPayloadReader checkPayload(String name, DictPayloadReader payloadReader, String lastMD5) {
+        if (payloadReader.md5.equals(lastMD5)) {
+            return null;
+        }
+        if (!payloadReader.isDictMap()) {
+            throw new IllegalStateException("字典来源[" + name + "]加载失败! 无法识别的报文格式");
+        }
+        return payloadReader;
+    }
+
+    abstract static class AbstractSource implements DictSource {
+
+        private final String name;
+
+        private final long refreshInterval;
+
+        AbstractSource(String name, long refreshInterval) {
+            if (StrUtil.isBlank(name)) {
+                RuntimeException runtimeException = new RuntimeException("字典来源配置错误! 来源名称不能为空");
+                log.error("字典来源配置错误! name=[{}]", name, runtimeException);
+                throw runtimeException;
+            }
+            this.name = name;
+            this.refreshInterval = refreshInterval;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public long getRefreshInterval() {
+            return refreshInterval;
+        }
+
+        @Override
+        public String toString() {
+            return getClass().getSimpleName() + "[" + name + "]";
+        }
+    }
+
+    static final class HttpSource extends AbstractSource {
+
+        private final String url;
+
+        private volatile String lastETag;
+
+        private volatile String lastMD5;
+
+        /*已加载但还没有写入成功的报文标识*/
+        private volatile String pendingETag;
+
+        private volatile String pendingMD5;
+
+        HttpSource(String name, String url, long refreshInterval) {
+            super(name, refreshInterval);
+            this.url = url;
+        }
+
+        @Override
+        public Map<String, Map<String, String>> load() throws IOException {
+            HttpRequest httpRequest = DictPayloadReader.negotiate(HttpRequest.get(url));
+            if (lastETag != null) {
+                httpRequest.header("If-None-Match", lastETag);
+            }
+            try (HttpResponse httpResponse = httpRequest.executeAsync()) {
+                if (httpResponse.getStatus() == HttpStatus.HTTP_NOT_MODIFIED) {
+                    return null;
+                }
+                if (!httpResponse.isOk()) {
+                    throw new IllegalStateException("字典来源[" + getName() + "]加载失败! 远端返回状态码" + httpResponse.getStatus());
+                }
+                DictPayloadReader payloadReader = checkPayload(getName(), DictPayloadReader.read(httpResponse), lastMD5);
+                if (payloadReader == null) {
+                    // 内容没有变化, ETag可以直接记录
+                    lastETag = httpResponse.header(Header.ETAG);
+                    return null;
+                }
+                pendingETag = httpResponse.header(Header.ETAG);
+                pendingMD5 = payloadReader.md5;
+                return payloadReader.asDictMap();
+            }
+        }
+
+        @Override
+        public void merged() {
+            if (pendingMD5 != null) {
+                lastETag = pendingETag;
+                lastMD5 = pendingMD5;
+                pendingMD5 = null;
+            }
+        }
+    }
+
+    static final class ClasspathSource extends AbstractSource {
+
+        private final String resource;
+
+        private volatile String lastMD5;
+
+        private volatile String pendingMD5;
+
+        ClasspathSource(String name, String resource, long refreshInterval) {
+            super(name, refreshInterval);
+            this.resource = StrUtil.removePrefix(resource, "/");
+        }
+
+        @Override
+        public Map<String, Map<String, String>> load() throws IOException {
+            ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+            if (classLoader == null) {
+                classLoader = DictSources.class.getClassLoader();
+            }
+            InputStream inputStream = classLoader.getResourceAsStream(resource);
+            if (inputStream == null) {
+                throw new IllegalStateException("字典来源[" + getName() + "]加载失败! 找不到资源" + resource);
+            }
+            try (inputStream) {
+                DictPayloadReader payloadReader = readPayload(getName(), inputStream, lastMD5);
+                if (payloadReader == null) {
+                    return null;
+                }
+                pendingMD5 = payloadReader.md5;
+                return payloadReader.asDictMap();
+            }
+        }
+
+        @Override
+        public void merged() {
+            if (pendingMD5 != null) {
+                lastMD5 = pendingMD5;
+                pendingMD5 = null;
+            }
+        }
+    }
+
+    static final class FileSource extends AbstractSource {
+
+        private final Path path;
+
+        private volatile String lastMD5;
+
+        /*上一次读取时文件的修改时间和大小*/
+        private volatile long lastModified = -1L;
+
+        private volatile long lastSize = -1L;
+
+        /*已读取但还没有写入成功的文件状态*/
+        private volatile String pendingMD5;
+
+        private volatile long pendingModified;
+
+        private volatile long pendingSize;
+
+        FileSource(String name, Path path, long refreshInterval) {
+            super(name, refreshInterval);
+            this.path = path;
+        }
+
+        @Override
+        public Map<String, Map<String, String>> load() throws IOException {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            long modified = attributes.lastModifiedTime().toMillis();
+            if (modified == lastModified && attributes.size() == lastSize) {
+                return null;
+            }
+            try (InputStream inputStream = Files.newInputStream(path)) {
+                DictPayloadReader payloadReader = readPayload(getName(), inputStream, lastMD5);
+                if (payloadReader == null) {
+                    // 内容没有变化, 文件状态可以直接记录
+                    lastModified = modified;
+                    lastSize = attributes.size();
+                    return null;
+                }
+                pendingModified = modified;
+                pendingSize = attributes.size();
+                pendingMD5 = payloadReader.md5;
+                return payloadReader.asDictMap();
+            }
+        }
+
+        @Override
+        public void merged() {
+            if (pendingMD5 != null) {
+                lastModified = pendingModified;
+                lastSize = pendingSize;
+                lastMD5 = pendingMD5;
+                pendingMD5 = null;
+            }
+        }
+    }
+
+    static final class SupplierSource extends AbstractSource {
+
+        private final Supplier<Map<String, Map<String, String>>> supplier;
+
+        SupplierSource(String name, Supplier<Map<String, Map<String, String>>> supplier, long refreshInterval) {
+            super(name, refreshInterval);
+            this.supplier = supplier;
+        }
+
+        @Override
+        public Map<String, Map<String, String>> load() {
+            return supplier.get();
+        }
+    }
+
+    static final class RowSource extends AbstractSource {
+
+        private final RowLoader loader;
+
+        RowSource(String name, RowLoader loader, long refreshInterval) {
+            super(name, refreshInterval);
+            this.loader = loader;
+        }
+
+        @Override
+        public Map<String, Map<String, String>> load() throws Exception {
+            Map<String, Map<String, String>> dictMap = new HashMap<>();
+            loader.load((dictCode, key, value) -> {
+                if (dictCode != null && key != null) {
+                    dictMap.computeIfAbsent(dictCode, k -> new HashMap<>()).put(key, value);
+                }
+            });
+            return dictMap;
+        }
+    }
+}
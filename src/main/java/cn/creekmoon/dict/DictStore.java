@@ -0,0 +1,116 @@
+package cn.creekmoon.dict;
+
+import java.util.*;
+
+/**
+ * 字典存储接口
+ * <p>
+ * {@link Dict} 的查找方法、默认翻译器和字典刷新都通过当前的存储读写字典, 调用方无感知.
+ * 默认实现为 {@link DictSnapshotStore}, 可以通过 {@link DictStoreConfig#setStore(DictStore)} 替换成针对业务特点优化的实现,
+ * 例如只读的完美哈希、堆外存储、本地+远端的分层存储.
+ * <p>
+ * 实现需要线程安全: 查找发生在翻译的热路径上, 应当无锁; 写入可能来自定时刷新线程.
+ */
+public interface DictStore {
+
+    /**
+     * 获取字典值
+     *
+     * @param dictCode 字典类型编码
+     * @param dictKey  字典key
+     * @return 没有找到返回null
+     */
+    String get(String dictCode, String dictKey);
+
+    /**
+     * 按数字key获取字典值  默认转换成字符串查找, 实现可以针对整数key优化
+     *
+     * @param dictCode 字典类型编码
+     * @param dictKey  字典key
+     * @return 没有找到返回null
+     */
+    default String get(String dictCode, long dictKey) {
+        return get(dictCode, Long.toString(dictKey));
+    }
+
+    /**
+     * 获取字典值对应的所有字典key
+     *
+     * @param dictCode  字典类型编码
+     * @param dictValue 字典值
+     * @return 没有找到返回null
+     */
+    List<String> getKeys(String dictCode, String dictValue);
+
+    /**
+     * 获取字典类型下的所有字典值
+     *
+     * @param dictCode 字典类型编码
+     * @return 不可修改, 没有找到返回null
+     */
+    Map<String, String> getEntries(String dictCode);
+
+    /**
+     * 替换和删除字典类型  所有变化需要一次性生效, 读取方不能看到更新了一半的字典
+     *
+     * @param changes      需要替换的字典类型 k1=字典类型code  k2=字典key  v=字典值
+     * @param removedCodes 需要删除的字典类型
+     */
+    void change(Map<String, ? extends Map<String, String>> changes, Collection<String> removedCodes);
+
+    /**
+     * 批量加载  传入的字典类型整体替换, 其他字典类型不变
+     *
+     * @param dictMap k1=字典类型code  k2=字典key  v=字典值
+     */
+    default void putAll(Map<String, ? extends Map<String, String>> dictMap) {
+        change(dictMap, Collections.emptySet());
+    }
+
+    /**
+     * 替换一个字典类型
+     *
+     * @param dictCode 字典类型编码
+     * @param entries  字典项  为null时删除该字典类型
+     */
+    default void replace(String dictCode, Map<String, String> entries) {
+        if (entries == null) {
+            change(Collections.emptyMap(), Collections.singleton(dictCode));
+        } else {
+            change(Collections.singletonMap(dictCode, entries), Collections.emptySet());
+        }
+    }
+
+    /**
+     * 获取所有字典  返回的Map不可修改, 之后的写入不影响已经返回的结果
+     *
+     * @return k1=字典类型code  k2=字典key  v=字典值
+     */
+    Map<String, Map<String, String>> snapshot();
+
+    /**
+     * 获取所有反向字典  默认根据 {@link #snapshot()} 逐个构建, 开销较大
+     *
+     * @return k1=字典类型code  k2=字典值  v=字典key
+     */
+    default Map<String, Map<String, List<String>>> reverseSnapshot() {
+        Map<String, Map<String, List<String>>> result = new HashMap<>();
+        snapshot().forEach((dictCode, entries) -> {
+            Map<String, List<String>> reverse = new HashMap<>();
+            entries.forEach((k, v) -> {
+                if (v != null) {
+                    reverse.computeIfAbsent(v, x -> new ArrayList<>(1)).add(k);
+                }
+            });
+            result.put(dictCode, Collections.unmodifiableMap(reverse));
+        });
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * 数据版本号  每次写入后都必须变化, 翻译结果缓存依赖它判断是否失效
+     *
+     * @return
+     */
+    long getVersion();
+}
@@ -0,0 +1,69 @@
+package cn.creekmoon.dict;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 字典存储配置  默认使用 {@link DictSnapshotStore}
+ */
+@Slf4j
+public class DictStoreConfig {
+
+    /*当前的字典存储*/
+    static volatile DictStore store = new DictSnapshotStore();
+
+    /**
+     * 替换字典存储  不会迁移已有的字典, 需要时请先调用 dictStore.putAll(Dict.getAll())
+     *
+     * @param dictStore 字典存储实现
+     */
+    public static void setStore(DictStore dictStore) {
+        if (dictStore == null) {
+            RuntimeException runtimeException = new RuntimeException("字典存储配置错误! 存储不能为空");
+            log.error("字典存储配置错误! dictStore=null", runtimeException);
+            throw runtimeException;
+        }
+        store = dictStore;
+    }
+
+    /**
+     * 获取当前的字典存储
+     *
+     * @return
+     */
+    public static DictStore getStore() {
+        return store;
+    }
+
+    /**
+     * 获取翻译使用的字典存储  在 {@link DictEngine} 中执行时为该引擎的存储, 否则为全局的字典存储
+     */
+    static DictStore current() {
+        DictEngine engine = DictEngine.current();
+        return engine == null ? store : engine.store;
+    }
+
+    /**
+     * 写入全局的字典存储  默认存储可以直接接管不再修改的字典项, 其他存储按 {@link DictStore#change(Map, Collection)} 写入
+     *
+     * @param copy 是否复制字典项
+     */
+    static void change(Map<String, ? extends Map<String, String>> changes, Collection<String> removedCodes, boolean copy) {
+        change(store, changes, removedCodes, copy);
+    }
+
+    /**
+     * 写入指定的字典存储
+     *
+     * @param copy 是否复制字典项
+     */
+    static void change(DictStore target, Map<String, ? extends Map<String, String>> changes, Collection<String> removedCodes, boolean copy) {
+        if (target instanceof DictSnapshotStore snapshotStore) {
+            snapshotStore.change(changes, removedCodes, copy);
+        } else {
+            target.change(changes, removedCodes);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package cn.creekmoon.dict;
+
+import com.alibaba.fastjson2.JSONObject;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * 流式翻译
+ * <p>
+ * 包装来源的Spliterator, 每次最多从来源读取一批元素, 按实际类型分组后使用 {@link DictBatchTranslator} 按列翻译
+ * (同一列中相同的值只查找一次字典), 然后逐个交给下游. 内存中最多只保留一批元素, 适合数据库游标等无界的数据.
+ * 批大小为1时逐个调用 {@link Dict#fillSelf(Object)} / {@link Dict#getDict(Object)}.
+ * <p>
+ * 支持拆分, 并行流中每个分段各自按批翻译.
+ */
+final class DictStreamTranslator {
+
+    /*默认批大小*/
+    static final int DEFAULT_BATCH_SIZE = 256;
+
+    private DictStreamTranslator() {
+    }
+
+    /**
+     * 逐批自填充后返回原对象
+     */
+    static <T> Spliterator<T> filling(Spliterator<T> source, int batchSize) {
+        return new BatchSpliterator<>(source, checkBatchSize(batchSize), DictStreamTranslator::fillBatch);
+    }
+
+    /**
+     * 逐批翻译, 返回每个对象的翻译结果  不可翻译的对象结果为null
+     */
+    static <T> Spliterator<JSONObject> dicts(Spliterator<T> source, int batchSize) {
+        return new BatchSpliterator<>(source, checkBatchSize(batchSize), DictStreamTranslator::dictBatch);
+    }
+
+    private static int checkBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            RuntimeException runtimeException = new RuntimeException("流式翻译配置错误! 批大小必须大于0");
+            Dict.log.error("流式翻译配置错误! batchSize=[{}]", batchSize, runtimeException);
+            throw runtimeException;
+        }
+        return batchSize;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object[] fillBatch(Object[] batch) {
+        if (batch.length == 1) {
+            Dict.fillSelf(batch[0]);
+            return batch;
+        }
+        groupByClass(batch).forEach((clazz, indexes) -> {
+            List<Object> group = new ArrayList<>(indexes.size());
+            for (int index : indexes) {
+                group.add(batch[index]);
+            }
+            Dict.fillAll((Collection) group, (Class) clazz);
+        });
+        return batch;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object[] dictBatch(Object[] batch) {
+        Object[] results = new Object[batch.length];
+        if (batch.length == 1) {
+            results[0] = Dict.getDict(batch[0]);
+            return results;
+        }
+        groupByClass(batch).forEach((clazz, indexes) -> {
+            List<Object> group = new ArrayList<>(indexes.size());
+            for (int index : indexes) {
+                group.add(batch[index]);
+            }
+            DictBatchResult groupResult = Dict.translateColumns((Collection) group, (Class) clazz);
+            for (int j = 0; j < indexes.size(); j++) {
+                results[indexes.get(j)] = groupResult.toJSONObject(j);
+            }
+        });
+        return results;
+    }
+
+    /**
+     * 按实际类型分组  null元素不参与
+     */
+    private static Map<Class<?>, List<Integer>> groupByClass(Object[] batch) {
+        Map<Class<?>, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < batch.length; i++) {
+            if (batch[i] != null) {
+                groups.computeIfAbsent(batch[i].getClass(), k -> new ArrayList<>()).add(i);
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * 处理一批元素  返回与输入等长的结果
+     */
+    @FunctionalInterface
+    private interface BatchTask {
+
+        Object[] apply(Object[] batch);
+    }
+
+    /**
+     * 按批读取来源并翻译的Spliterator
+     */
+    private static final class BatchSpliterator<T, R> implements Spliterator<R> {
+
+        private final Spliterator<T> source;
+
+        private final int batchSize;
+
+        private final BatchTask task;
+
+        /*创建时所在的引擎  并行流中其他线程处理的批也使用该引擎*/
+        private final DictEngine engine;
+
+        /*当前批的结果和下一个要交给下游的位置*/
+        private Object[] results;
+
+        private int position;
+
+        private BatchSpliterator(Spliterator<T> source, int batchSize, BatchTask task) {
+            this(source, batchSize, task, DictEngine.current());
+        }
+
+        private BatchSpliterator(Spliterator<T> source, int batchSize, BatchTask task, DictEngine engine) {
+            this.source = source;
+            this.batchSize = batchSize;
+            this.task = task;
+            this.engine = engine;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean tryAdvance(Consumer<? super R> action) {
+            if (results == null || position >= results.length) {
+                if (!nextBatch()) {
+                    return false;
+                }
+            }
+            R result = (R) results[position];
+            // 交给下游后不再引用, 避免长时间持有整批对象
+            results[position++] = null;
+            action.accept(result);
+            return true;
+        }
+
+        private boolean nextBatch() {
+            List<Object> batch = new ArrayList<>(Math.min(batchSize, DEFAULT_BATCH_SIZE));
+            while (batch.size() < batchSize && source.tryAdvance(batch::add)) {
+                // 读取到批满或来源结束
+            }
+            if (batch.isEmpty()) {
+                results = null;
+                return false;
+            }
+            Object[] elements = batch.toArray();
+            results = engine == null ? task.apply(elements) : engine.call(() -> task.apply(elements));
+            position = 0;
+            return true;
+        }
+
+        @Override
+        public Spliterator<R> trySplit() {
+            // 已经读取的一批在拆分出的前半段之前, 拆分会打乱顺序
+            if (results != null && position < results.length) {
+                return null;
+            }
+            Spliterator<T> prefix = source.trySplit();
+            return prefix == null ? null : new BatchSpliterator<>(prefix, batchSize, task, engine);
+        }
+
+        @Override
+        public long estimateSize() {
+            long buffered = results == null ? 0 : results.length - position;
+            long remaining = source.estimateSize();
+            return remaining == Long.MAX_VALUE ? remaining : remaining + buffered;
+        }
+
+        @Override
+        public int characteristics() {
+            // 翻译会修改或替换元素, 不再保证排序和去重
+            return source.characteristics() & (ORDERED | SIZED | SUBSIZED);
+        }
+    }
+}
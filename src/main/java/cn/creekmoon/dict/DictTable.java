@@ -0,0 +1,63 @@
+package cn.creekmoon.dict;
+
+import java.util.*;
+
+/**
+ * 单个字典类型的数据
+ * <p>
+ * 构建后不可变. 字典类型没有变化时, 新快照直接复用旧的实例.
+ * <ul>
+ *     <li>{@link DictHeapTable}: 字典项保存在堆内的HashMap中, 默认实现</li>
+ *     <li>{@link DictMappedTable}: 字典项保存在内存映射文件中, 用于数据量很大的字典类型</li>
+ * </ul>
+ */
+abstract class DictTable {
+
+    static final DictTable EMPTY = new DictHeapTable(Collections.emptyMap());
+
+    /**
+     * 使用堆内实现构建
+     *
+     * @param entries 不可修改的字典项  调用方保证不再修改
+     * @return
+     */
+    static DictTable of(Map<String, String> entries) {
+        return entries.isEmpty() ? EMPTY : new DictHeapTable(entries);
+    }
+
+    /**
+     * @return 没有找到返回null
+     */
+    abstract String get(String key);
+
+    /**
+     * 按数字key查找
+     *
+     * @return 没有找到返回null
+     */
+    abstract String get(long key);
+
+    /**
+     * 获取字典值对应的所有字典key
+     *
+     * @return 没有找到返回null
+     */
+    abstract List<String> getKeys(String value);
+
+    /**
+     * k=字典key v=字典值  不可修改
+     */
+    abstract Map<String, String> entries();
+
+    /**
+     * k=字典值 v=字典key  不可修改
+     */
+    abstract Map<String, List<String>> reverse();
+
+    /**
+     * key都是整数时的数字索引  没有时返回null
+     */
+    DictNumericIndex numericIndex() {
+        return null;
+    }
+}
@@ -0,0 +1,178 @@
+package cn.creekmoon.dict;
+
+import com.alibaba.fastjson2.JSONObject;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+
+/**
+ * 多租户字典  每个租户一个 {@link DictEngine}, 第一次使用时创建, 可以单独淘汰
+ * <p>
+ * 通过租户解析函数(例如从请求上下文中读取租户ID)找到当前租户的引擎后执行翻译, 不同租户的翻译互不影响:
+ * <pre>
+ * DictTenants tenants = new DictTenants(tenantId -&gt; {
+ *     DictEngine engine = new DictEngine(tenantId);
+ *     engine.enableRefresh(DictSource.http(tenantId, "http://dict/" + tenantId, 60L));
+ *     return engine;
+ * }, TenantContext::getTenantId);
+ * tenants.fillSelf(orders);
+ * </pre>
+ * 解析不到租户(返回null)时使用全局的字典.
+ */
+@Slf4j
+public final class DictTenants {
+
+    private final Map<String, DictEngine> engines = new ConcurrentHashMap<>();
+
+    private final Function<String, DictEngine> factory;
+
+    private final Supplier<String> tenantResolver;
+
+    /**
+     * @param factory        按租户ID创建引擎  同一个租户只会调用一次(淘汰后再次使用时重新创建)
+     * @param tenantResolver 获取当前的租户ID
+     */
+    public DictTenants(Function<String, DictEngine> factory, Supplier<String> tenantResolver) {
+        if (factory == null || tenantResolver == null) {
+            RuntimeException runtimeException = new RuntimeException("多租户字典配置错误! 创建函数和租户解析函数不能为空");
+            log.error("多租户字典配置错误! factory=[{}] tenantResolver=[{}]", factory, tenantResolver, runtimeException);
+            throw runtimeException;
+        }
+        this.factory = factory;
+        this.tenantResolver = tenantResolver;
+    }
+
+    /**
+     * 获取租户的引擎  不存在时创建
+     *
+     * @param tenantId 租户ID
+     * @return
+     */
+    public DictEngine get(String tenantId) {
+        if (tenantId == null) {
+            RuntimeException runtimeException = new RuntimeException("多租户字典使用错误! 租户ID不能为空");
+            log.error("多租户字典使用错误! tenantId=null", runtimeException);
+            throw runtimeException;
+        }
+        DictEngine engine = engines.get(tenantId);
+        return engine != null ? engine : engines.computeIfAbsent(tenantId, this::create);
+    }
+
+    /**
+     * 获取当前租户的引擎
+     *
+     * @return 解析不到租户时返回null
+     */
+    public DictEngine current() {
+        String tenantId = tenantResolver.get();
+        return tenantId == null ? null : get(tenantId);
+    }
+
+    /**
+     * 淘汰租户的引擎  停止刷新并不再持有该租户的字典, 正在进行的翻译不受影响, 下次使用时重新创建
+     *
+     * @param tenantId 租户ID
+     * @return 租户的引擎是否存在
+     */
+    public boolean evict(String tenantId) {
+        DictEngine engine = tenantId == null ? null : engines.remove(tenantId);
+        if (engine == null) {
+            return false;
+        }
+        engine.close();
+        log.info("[多租户字典]======租户[{}]的字典已淘汰====", tenantId);
+        return true;
+    }
+
+    /**
+     * 淘汰所有租户的引擎
+     */
+    public void evictAll() {
+        new ArrayList<>(engines.keySet()).forEach(this::evict);
+    }
+
+    /**
+     * 获取已创建引擎的租户ID
+     */
+    public Set<String> getTenantIds() {
+        return Collections.unmodifiableSet(new TreeSet<>(engines.keySet()));
+    }
+
+    /**
+     * 在指定租户的引擎中执行
+     *
+     * @param tenantId 租户ID
+     * @param supplier 翻译等操作
+     * @return supplier的返回值
+     */
+    public <T> T call(String tenantId, Supplier<T> supplier) {
+        return get(tenantId).call(supplier);
+    }
+
+    /**
+     * 在当前租户的引擎中执行  解析不到租户时使用全局的字典
+     *
+     * @param supplier 翻译等操作
+     * @return supplier的返回值
+     */
+    public <T> T call(Supplier<T> supplier) {
+        DictEngine engine = current();
+        return engine == null ? supplier.get() : engine.call(supplier);
+    }
+
+    /**
+     * 使用当前租户的字典执行 {@link Dict#getDict(Object)}
+     */
+    public JSONObject getDict(Object object) {
+        return call(() -> Dict.getDict(object));
+    }
+
+    /**
+     * 使用当前租户的字典执行 {@link Dict#fillSelf(Object)}
+     */
+    public void fillSelf(Object object) {
+        call(() -> {
+            Dict.fillSelf(object);
+            return null;
+        });
+    }
+
+    /**
+     * 使用当前租户的字典执行 {@link Dict#translateAll(Collection, Class)}
+     */
+    public <T> List<JSONObject> translateAll(Collection<T> objects, Class<T> clazz) {
+        return call(() -> Dict.translateAll(objects, clazz));
+    }
+
+    /**
+     * 使用当前租户的字典执行 {@link Dict#fillAll(Collection, Class)}
+     */
+    public <T> void fillAll(Collection<T> objects, Class<T> clazz) {
+        call(() -> {
+            Dict.fillAll(objects, clazz);
+            return null;
+        });
+    }
+
+    /**
+     * 使用当前租户的字典查找字典值
+     */
+    public String searchDictValue(String dictCode, String dictKey) {
+        return call(() -> Dict.searchDictValue(dictCode, dictKey));
+    }
+
+    private DictEngine create(String tenantId) {
+        DictEngine engine = factory.apply(tenantId);
+        if (engine == null) {
+            RuntimeException runtimeException = new RuntimeException("多租户字典配置错误! 创建函数返回了空的引擎");
+            log.error("多租户字典配置错误! tenantId=[{}]", tenantId, runtimeException);
+            throw runtimeException;
+        }
+        log.info("[多租户字典]======租户[{}]的字典引擎已创建====", tenantId);
+        return engine;
+    }
+}
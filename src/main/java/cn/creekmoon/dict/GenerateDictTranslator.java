@@ -0,0 +1,16 @@
+package cn.creekmoon.dict;
+
+import java.lang.annotation.*;
+
+/**
+ * 为类生成编译期翻译器
+ * <p>
+ * 启用 {@link cn.creekmoon.dict.processor.DictTranslatorProcessor} 注解处理器后,
+ * 会为标记了此注解的类生成 XxxDictTranslator, 其中带有@DictMapping注解的简单类型字段会用直接的字段访问和字典查找代码翻译.
+ * {@link Dict#getDict(Object)} / {@link Dict#fillSelf(Object)} 发现生成类后会优先使用, 找不到时退回反射翻译.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface GenerateDictTranslator {
+}
@@ -0,0 +1,315 @@
+package cn.creekmoon.dict.processor;
+
+import cn.creekmoon.dict.DictGeneratedTranslator;
+import cn.creekmoon.dict.DictMapping;
+import cn.creekmoon.dict.GenerateDictTranslator;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.MirroredTypeException;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * 编译期翻译器生成
+ * <p>
+ * 为标记了 {@link GenerateDictTranslator} 的类生成 {@link DictGeneratedTranslator} 实现.
+ * 只生成带有@DictMapping注解、类型为基本类型或JDK类型(集合除外)的字段. 可见的字段直接读写, 不可见的字段(例如private)通过VarHandle读写,
+ * 与运行时的反射翻译一样只读写字段本身, 不经过getter/setter, 开启生成前后的翻译结果一致.
+ * 业务对象、集合、无法直接访问的字段不会生成, 运行时仍走反射翻译.
+ * <p>
+ * 此处理器是可选的, 没有注册到 META-INF/services, 需要在编译参数中显式启用, 例如maven:
+ * <pre>
+ * &lt;annotationProcessorPaths&gt;
+ *     &lt;path&gt;lombok&lt;/path&gt;
+ *     &lt;path&gt;common-dict&lt;/path&gt;
+ * &lt;/annotationProcessorPaths&gt;
+ * &lt;annotationProcessors&gt;
+ *     &lt;annotationProcessor&gt;lombok.launch.AnnotationProcessorHider$AnnotationProcessor&lt;/annotationProcessor&gt;
+ *     &lt;annotationProcessor&gt;cn.creekmoon.dict.processor.DictTranslatorProcessor&lt;/annotationProcessor&gt;
+ * &lt;/annotationProcessors&gt;
+ * </pre>
+ */
+@SupportedAnnotationTypes("cn.creekmoon.dict.GenerateDictTranslator")
+public class DictTranslatorProcessor extends AbstractProcessor {
+
+    private static final String DEFAULT_TRANSLATOR = "cn.creekmoon.dict.DefaultDictFieldTranslator";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(GenerateDictTranslator.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                error(element, "@GenerateDictTranslator 只能用于类");
+                continue;
+            }
+            TypeElement type = (TypeElement) element;
+            if (!isAccessible(type)) {
+                error(element, "@GenerateDictTranslator 不支持private类");
+                continue;
+            }
+            try {
+                generate(type);
+            } catch (IOException e) {
+                error(element, "生成字典翻译器失败! " + e.getMessage());
+            }
+        }
+        return false;
+    }
+
+    private void generate(TypeElement type) throws IOException {
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+        String generatedName = DictGeneratedTranslator.translatorClassName(binaryName);
+        String simpleName = generatedName.substring(generatedName.lastIndexOf('.') + 1);
+        String typeName = type.getQualifiedName() + (type.getTypeParameters().isEmpty() ? "" : "<" + String.join(", ", Collections.nCopies(type.getTypeParameters().size(), "?")) + ">");
+        List<FieldModel> fields = resolveFields(type, packageName);
+
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("/**\n * 由 DictTranslatorProcessor 生成, 请勿修改\n */\n");
+        source.append("@javax.annotation.processing.Generated(\"").append(DictTranslatorProcessor.class.getName()).append("\")\n");
+        source.append("public final class ").append(simpleName)
+                .append(" implements cn.creekmoon.dict.DictGeneratedTranslator<").append(typeName).append("> {\n\n");
+
+        source.append("    private static final java.util.Set<String> FIELD_NAMES = java.util.Set.of(");
+        for (int i = 0; i < fields.size(); i++) {
+            source.append(i == 0 ? "" : ", ").append(literal(fields.get(i).name));
+        }
+        source.append(");\n\n");
+
+        // 自定义翻译器需要Field和注解实例, 不可见的字段需要VarHandle, 只在构造时反射获取一次
+        StringBuilder constructor = new StringBuilder();
+        boolean anyHandle = false;
+        for (int i = 0; i < fields.size(); i++) {
+            FieldModel field = fields.get(i);
+            if (field.defaultTranslator && !field.handle) {
+                continue;
+            }
+            source.append("    private final java.lang.reflect.Field field").append(i).append(";\n");
+            constructor.append("        this.field").append(i).append(" = cn.hutool.core.util.ReflectUtil.getField(")
+                    .append(type.getQualifiedName()).append(".class, ").append(literal(field.name)).append(");\n");
+            if (field.handle) {
+                anyHandle = true;
+                source.append("    private final java.lang.invoke.VarHandle handle").append(i).append(";\n");
+                constructor.append("        this.handle").append(i).append(" = handle(field").append(i).append(");\n");
+            }
+            if (field.defaultTranslator) {
+                source.append("\n");
+                continue;
+            }
+            source.append("    private final cn.creekmoon.dict.DictMapping mapping").append(i).append(";\n");
+            source.append("    private final cn.creekmoon.dict.DictFieldTranslator translator").append(i).append(";\n\n");
+            constructor.append("        this.mapping").append(i).append(" = field").append(i)
+                    .append(".getAnnotation(cn.creekmoon.dict.DictMapping.class);\n");
+            constructor.append("        this.translator").append(i).append(" = cn.creekmoon.dict.Dict.getFieldTranslator(mapping").append(i)
+                    .append(".fieldTranslator(), field").append(i).append(", mapping").append(i).append(");\n");
+        }
+        source.append("    public ").append(simpleName).append("() {\n").append(constructor).append("    }\n\n");
+        if (anyHandle) {
+            source.append("    private static java.lang.invoke.VarHandle handle(java.lang.reflect.Field field) {\n")
+                    .append("        try {\n")
+                    .append("            return java.lang.invoke.MethodHandles.privateLookupIn(field.getDeclaringClass(), java.lang.invoke.MethodHandles.lookup()).unreflectVarHandle(field);\n")
+                    .append("        } catch (IllegalAccessException e) {\n")
+                    .append("            throw new IllegalStateException(\"无法访问字段 \" + field, e);\n")
+                    .append("        }\n")
+                    .append("    }\n\n");
+        }
+
+        source.append("    @Override\n    public java.util.Set<String> fieldNames() {\n        return FIELD_NAMES;\n    }\n\n");
+
+        source.append("    @Override\n    public void getDict(").append(typeName).append(" object, com.alibaba.fastjson2.JSONObject result) {\n");
+        for (int i = 0; i < fields.size(); i++) {
+            FieldModel field = fields.get(i);
+            source.append("        result.put(").append(literal(field.name)).append(", ").append(translateExpression(field, i)).append(");\n");
+        }
+        source.append("    }\n\n");
+
+        source.append("    @Override\n    public void fillSelf(").append(typeName).append(" object) {\n");
+        for (int i = 0; i < fields.size(); i++) {
+            FieldModel field = fields.get(i);
+            if (field.writeExpression == null) {
+                continue;
+            }
+            source.append("        ").append(String.format(field.writeExpression, i, translateExpression(field, i))).append(";\n");
+        }
+        source.append("    }\n}\n");
+
+        try (Writer writer = processingEnv.getFiler().createSourceFile(generatedName, type).openWriter()) {
+            writer.write(source.toString());
+        }
+    }
+
+    private String translateExpression(FieldModel field, int index) {
+        String read = String.format(field.readExpression, index);
+        if (field.defaultTranslator) {
+            return "cn.creekmoon.dict.DefaultDictFieldTranslator.translate(" + literal(field.dictCode) + ", " + literal(field.suffix) + ", " + read + ")";
+        }
+        return "translator" + index + ".searchDictValue(object, field" + index + ", " + read + ", mapping" + index + ")";
+    }
+
+    /**
+     * 收集可以生成的字段  子类字段在前, 同名的父类字段忽略, 与运行时的翻译计划保持一致
+     */
+    private List<FieldModel> resolveFields(TypeElement type, String packageName) {
+        List<FieldModel> result = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        TypeElement current = type;
+        while (current != null && !current.getQualifiedName().contentEquals("java.lang.Object")) {
+            for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                if (field.getModifiers().contains(Modifier.STATIC)) {
+                    continue;
+                }
+                String name = field.getSimpleName().toString();
+                if (!names.add(name)) {
+                    continue;
+                }
+                DictMapping mapping = field.getAnnotation(DictMapping.class);
+                if (mapping == null || !isPlainValueType(field.asType())) {
+                    continue;
+                }
+                FieldModel model = resolveAccess(current, field, packageName);
+                if (model == null) {
+                    note(field, "String字段不可写, 运行时使用反射翻译");
+                    continue;
+                }
+                model.name = name;
+                model.dictCode = DictMapping.AUTO_DICT_CODE.equals(mapping.dictCode()) ? name : mapping.dictCode();
+                model.suffix = mapping.suffix();
+                model.defaultTranslator = DEFAULT_TRANSLATOR.equals(translatorName(mapping));
+                result.add(model);
+            }
+            TypeMirror superclass = current.getSuperclass();
+            current = superclass.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+        }
+        return result;
+    }
+
+    /**
+     * 解析字段的读写方式  与反射翻译一样直接读写字段, 不调用getter/setter, 自定义的getter/setter不会让两条路径的结果不同
+     * String字段必须可写, 否则交给反射处理以保证fillSelf的结果一致
+     */
+    private FieldModel resolveAccess(TypeElement declaring, VariableElement field, String packageName) {
+        String name = field.getSimpleName().toString();
+        Set<Modifier> modifiers = field.getModifiers();
+        boolean samePackage = processingEnv.getElementUtils().getPackageOf(declaring).getQualifiedName().contentEquals(packageName);
+        boolean directAccess = !modifiers.contains(Modifier.PRIVATE) && (modifiers.contains(Modifier.PUBLIC) || samePackage);
+        boolean isString = field.asType().toString().equals("java.lang.String");
+        if (isString && modifiers.contains(Modifier.FINAL)) {
+            return null;
+        }
+
+        FieldModel model = new FieldModel();
+        if (directAccess) {
+            model.readExpression = "object." + name;
+            model.writeExpression = "object." + name + " = %2$s";
+        } else {
+            // 不可见的字段通过VarHandle读写  %1$d为字段序号
+            model.handle = true;
+            model.readExpression = "((" + processingEnv.getTypeUtils().erasure(field.asType()) + ") handle%1$d.get(object))";
+            model.writeExpression = "handle%1$d.set(object, %2$s)";
+        }
+        if (!isString) {
+            model.writeExpression = null;
+        }
+        return model;
+    }
+
+    /**
+     * 基本类型或JDK中的非集合类型  其他类型运行时可能是业务对象, 交给反射处理
+     */
+    private boolean isPlainValueType(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return true;
+        }
+        if (type.getKind() != TypeKind.DECLARED) {
+            return false;
+        }
+        TypeMirror erasure = processingEnv.getTypeUtils().erasure(type);
+        TypeMirror collection = processingEnv.getTypeUtils().erasure(
+                processingEnv.getElementUtils().getTypeElement("java.util.Collection").asType());
+        if (processingEnv.getTypeUtils().isAssignable(erasure, collection)) {
+            return false;
+        }
+        return erasure.toString().startsWith("java.");
+    }
+
+    private boolean isAccessible(TypeElement type) {
+        Element current = type;
+        while (current instanceof TypeElement) {
+            if (current.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            current = current.getEnclosingElement();
+        }
+        return true;
+    }
+
+    private static String translatorName(DictMapping mapping) {
+        try {
+            return mapping.fieldTranslator().getName();
+        } catch (MirroredTypeException e) {
+            return e.getTypeMirror().toString();
+        }
+    }
+
+    private static String literal(String value) {
+        StringBuilder builder = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> builder.append("\\\"");
+                case '\\' -> builder.append("\\\\");
+                case '\n' -> builder.append("\\n");
+                case '\r' -> builder.append("\\r");
+                case '\t' -> builder.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        builder.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        builder.append(c);
+                    }
+                }
+            }
+        }
+        return builder.append('"').toString();
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private void note(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, message, element);
+    }
+
+    /**
+     * 可生成的字段
+     */
+    private static class FieldModel {
+        String name;
+        String dictCode;
+        String suffix;
+        boolean defaultTranslator;
+        /*是否通过VarHandle读写*/
+        boolean handle;
+        /*读取字段值的表达式  %1$d为字段序号*/
+        String readExpression;
+        /*写入字段值的语句模板  %1$d为字段序号, %2$s为写入的值; 不可写时为null*/
+        String writeExpression;
+    }
+}
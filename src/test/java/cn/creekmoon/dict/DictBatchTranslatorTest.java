@@ -0,0 +1,87 @@
+package cn.creekmoon.dict;
+
+import com.alibaba.fastjson2.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DictBatchTranslatorTest {
+
+    @Test
+    void batchTest() {
+        Dict.setGlobalBusinessPackageNames("cn.creekmoon.dict");
+
+        Map<String, Map<String, String>> dictMap = new HashMap<>();
+        dictMap.put("testDict", Map.of("1", "value", "2", "value2"));
+        Dict.addDictMap(dictMap);
+
+        // 同类型对象、null、子类混在一起
+        List<DictMappingTest.MyDictObject> objects = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            DictMappingTest.MyDictObject object = new DictMappingTest.MyDictObject();
+            object.setTestDict(String.valueOf(i % 3));
+            object.setLong1((long) (i % 2));
+            objects.add(object);
+        }
+        objects.add(null);
+        objects.add(new SubDictObject());
+
+        // 批量翻译结果与逐个getDict一致
+        List<JSONObject> batch = Dict.translateAll(objects, DictMappingTest.MyDictObject.class);
+        assertEquals(objects.size(), batch.size());
+        for (int i = 0; i < objects.size(); i++) {
+            assertEquals(Dict.getDict(objects.get(i)), batch.get(i));
+        }
+        System.out.println("batch[1] = " + batch.get(1));
+
+        // 按列读取
+        DictBatchResult columns = Dict.translateColumns(objects, DictMappingTest.MyDictObject.class);
+        assertEquals("value", columns.get(1, "testDict"));
+        assertEquals("value2", columns.getColumn("testDict")[2]);
+        assertEquals("0", columns.get(3, "testDict"));
+        assertEquals("1veryGood", ((JSONObject) columns.get(0, "simpleObject")).get("level"));
+        assertNull(columns.toJSONObject(100));
+        assertEquals("sub", columns.get(101, "subLevel"));
+        assertEquals(0, Dict.translateColumns(new ArrayList<DictMappingTest.MyDictObject>(), DictMappingTest.MyDictObject.class).size());
+
+        // 批量自填充结果与逐个fillSelf一致
+        List<DictMappingTest.MyDictObject> expected = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            DictMappingTest.MyDictObject object = new DictMappingTest.MyDictObject();
+            object.setTestDict(String.valueOf(i % 3));
+            expected.add(object);
+            object.fillSelf();
+        }
+        List<DictMappingTest.MyDictObject> filled = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            DictMappingTest.MyDictObject object = new DictMappingTest.MyDictObject();
+            object.setTestDict(String.valueOf(i % 3));
+            filled.add(object);
+        }
+        SubDictObject sub = new SubDictObject();
+        List<DictMappingTest.MyDictObject> filledWithSub = new ArrayList<>(filled);
+        filledWithSub.add(sub);
+        Dict.fillAll(filledWithSub, DictMappingTest.MyDictObject.class);
+        assertEquals(expected, filled);
+        assertEquals("value2", filled.get(2).getTestDict());
+        assertEquals("1veryGood", filled.get(0).getTestCollection().get(0).getLevel());
+        assertEquals("value", filled.get(0).getTestCollection().get(0).getTestCollection().get(0).getLevel());
+        assertEquals("1veryGood", sub.getLevel());
+        assertEquals("sub", sub.getSubLevel());
+    }
+
+    public static class SubDictObject extends DictMappingTest.MyDictObject {
+
+        @DictMapping(dictCode = "testDict")
+        String subLevel = "sub";
+
+        public String getSubLevel() {
+            return subLevel;
+        }
+    }
+}
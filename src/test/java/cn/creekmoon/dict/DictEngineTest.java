@@ -0,0 +1,145 @@
+package cn.creekmoon.dict;
+
+import lombok.Data;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DictEngineTest {
+
+    @Test
+    void engineTest() throws Exception {
+        Dict.setGlobalBusinessPackageNames("cn.creekmoon.dict");
+        Dict.addDictMap(Map.of("tenantStatus", Map.of("1", "全局启用", "0", "全局禁用")));
+
+        // 每个租户的同一个字典类型有不同的字典值
+        ThreadLocal<String> tenantContext = new ThreadLocal<>();
+        DictTenants tenants = new DictTenants(tenantId -> {
+            DictEngine engine = new DictEngine(tenantId);
+            engine.addDictMap(Map.of("tenantStatus", Map.of("1", tenantId + "启用", "0", tenantId + "禁用")));
+            return engine;
+        }, tenantContext::get);
+        tenants.get("A").enableResultCache(100, Long.MAX_VALUE);
+
+        // 不同租户并发翻译
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                String tenantId = i % 2 == 0 ? "A" : "B";
+                futures.add(executor.submit(() -> {
+                    tenantContext.set(tenantId);
+                    try {
+                        for (int j = 0; j < 200; j++) {
+                            TenantOrder order = order(j % 2);
+                            tenants.fillSelf(order);
+                            String expected = tenantId + (j % 2 == 1 ? "启用" : "禁用");
+                            if (!expected.equals(order.getStatus()) || !expected.equals(order.getItems().get(0).getStatus())
+                                    || !expected.equals(tenants.getDict(order(j % 2)).getString("status"))) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    } finally {
+                        tenantContext.remove();
+                    }
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                assertTrue(future.get());
+            }
+            System.out.println("tenant A cache hits = " + tenants.get("A").resultCache.hits.sum());
+            // 引擎的结果缓存可以单独查看和清空, 在引擎中执行时全局的配置方法也指向引擎的缓存
+            DictResultCacheConfig.Stats stats = tenants.get("A").getResultCacheStats();
+            assertTrue(stats.hits() > 0);
+            assertEquals(stats.size(), tenants.call("A", DictResultCacheConfig::getStats).size());
+            assertNull(DictResultCacheConfig.getStats());
+            assertNull(tenants.get("B").getResultCacheStats());
+            tenants.get("A").run(DictResultCacheConfig::clear);
+            assertEquals(0, tenants.get("A").getResultCacheStats().size());
+
+            // 并行翻译的其他线程同样使用租户的字典
+            DictParallelConfig.enable(pool, 16);
+            List<TenantOrder> orders = IntStream.range(0, 200).mapToObj(i -> order(1)).collect(Collectors.toList());
+            tenants.call("B", () -> {
+                Dict.fillSelf(orders);
+                return null;
+            });
+            assertTrue(orders.stream().allMatch(order -> "B启用".equals(order.getStatus()) && "B启用".equals(order.getItems().get(0).getStatus())));
+            assertEquals("B启用", tenants.get("B").translateAll(List.of(order(1)), TenantOrder.class).get(0).getString("status"));
+
+            // 流式翻译  并行流中的批在创建流时所在的引擎中执行
+            List<TenantOrder> streamed = tenants.get("A").call(() -> Dict.translating(
+                    IntStream.range(0, 500).mapToObj(i -> order(0)).collect(Collectors.toList()).parallelStream(), 16).collect(Collectors.toList()));
+            assertTrue(streamed.stream().allMatch(order -> "A禁用".equals(order.getStatus())));
+        } finally {
+            DictParallelConfig.disable();
+            executor.shutdown();
+            pool.shutdown();
+        }
+
+        // 不在引擎中时使用全局的字典, 引擎的写入不会影响全局
+        assertEquals("全局启用", Dict.searchDictValue("tenantStatus", "1"));
+        assertNull(tenantContext.get());
+        assertEquals("全局启用", tenants.searchDictValue("tenantStatus", "1"));
+        assertEquals("B禁用", tenants.call("B", () -> Dict.searchDictValue("tenantStatus", "0")));
+
+        // 引擎独立刷新  来源中没有的字典类型被删除
+        AtomicReference<Map<String, Map<String, String>>> loaded = new AtomicReference<>(
+                Map.of("tenantStatus", Map.of("1", "C启用"), "tenantOnly", Map.of("1", "C专有")));
+        try (DictEngine engine = new DictEngine("C")) {
+            engine.enableRefresh(DictSource.supplier("C", loaded::get, 60L));
+            assertTrue(engine.refreshNow().get(5, TimeUnit.SECONDS));
+            assertEquals("C专有", engine.searchDictValue("tenantOnly", "1"));
+            loaded.set(Map.of("tenantStatus", Map.of("1", "C启用v2")));
+            assertTrue(engine.refreshNow().get(5, TimeUnit.SECONDS));
+            assertEquals("C启用v2", engine.call(() -> Dict.searchDictValue("tenantStatus", "1")));
+            assertNull(engine.searchDictValue("tenantOnly", "1"));
+            assertNull(Dict.searchDictValue("tenantOnly", "1"));
+        }
+
+        // 淘汰后重新创建
+        DictEngine engineA = tenants.get("A");
+        assertEquals(Set.of("A", "B"), tenants.getTenantIds());
+        assertTrue(tenants.evict("A"));
+        assertTrue(engineA.isClosed());
+        assertFalse(tenants.evict("A"));
+        assertEquals(Set.of("B"), tenants.getTenantIds());
+        assertNotSame(engineA, tenants.get("A"));
+        tenants.evictAll();
+        assertTrue(tenants.getTenantIds().isEmpty());
+        assertNull(DictEngine.current());
+    }
+
+    private static TenantOrder order(int status) {
+        TenantOrder order = new TenantOrder();
+        order.setStatus(String.valueOf(status));
+        TenantItem item = new TenantItem();
+        item.setStatus(String.valueOf(status));
+        order.getItems().add(item);
+        return order;
+    }
+
+    @Data
+    public static class TenantOrder implements Dict {
+
+        @DictMapping(dictCode = "tenantStatus")
+        String status;
+
+        List<TenantItem> items = new ArrayList<>();
+    }
+
+    @Data
+    public static class TenantItem implements Dict {
+
+        @DictMapping(dictCode = "tenantStatus")
+        String status;
+    }
+}
@@ -1,9 +1,15 @@
 package cn.creekmoon.dict;
 
 
+import com.sun.net.httpserver.HttpServer;
 import org.junit.jupiter.api.Test;
 
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -107,6 +113,90 @@ class DictHttpRefreshConfigTest {
             }
         }
     }
-}
 
+    @Test
+    void testDeltaRefreshWithLocalServer() throws Exception {
+        // 本地模拟服务端: 首次返回全量增量报文, 之后按dictVersion返回变化, ETag一致时返回304
+        AtomicInteger requestCount = new AtomicInteger();
+        AtomicInteger notModifiedCount = new AtomicInteger();
+        // 远端重新部署后内容不变, ETag变化
+        AtomicBoolean redeployed = new AtomicBoolean(false);
+        String secondBody = "{\"format\":\"delta\",\"version\":2,\"codes\":{"
+                + "\"deltaA\":{\"version\":2,\"added\":{\"3\":\"三\"},\"removed\":[\"1\"]}},"
+                + "\"removedCodes\":[\"deltaB\"]}";
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/dict", exchange -> {
+            requestCount.incrementAndGet();
+            String query = exchange.getRequestURI().getQuery();
+            String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+            if (redeployed.get() ? "v3".equals(ifNoneMatch) : "v2".equals(ifNoneMatch)) {
+                notModifiedCount.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            String body;
+            String etag;
+            if (redeployed.get()) {
+                etag = "v3";
+                body = secondBody;
+            } else if (query == null || !query.contains(DictHttpRefreshConfig.VERSION_PARAM + "=1")) {
+                etag = "v1";
+                body = "{\"format\":\"delta\",\"version\":1,\"full\":true,\"codes\":{"
+                        + "\"deltaA\":{\"version\":1,\"entries\":{\"1\":\"一\",\"2\":\"二\"}},"
+                        + "\"deltaB\":{\"version\":1,\"entries\":{\"1\":\"壹\"}}}}";
+            } else {
+                etag = "v2";
+                body = secondBody;
+            }
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("ETag", etag);
+            exchange.sendResponseHeaders(200, bytes.length);
+            exchange.getResponseBody().write(bytes);
+            exchange.close();
+        });
+        server.start();
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/dict";
+        try {
+            DictHttpRefreshConfig.lastMD5 = "md5";
+            DictHttpRefreshConfig.lastETag = null;
+            DictHttpRefreshConfig.lastVersion = null;
+            DictHttpRefreshConfig.codeVersions.clear();
+
+            // 第一次: 全量
+            DictHttpRefreshConfig.refresh(url);
+            assertEquals("一", Dict.searchDictValue("deltaA", "1"));
+            assertEquals("壹", Dict.searchDictValue("deltaB", "1"));
+            assertEquals(1L, DictHttpRefreshConfig.lastVersion);
 
+            // 第二次: 增量, 只应用变化
+            DictHttpRefreshConfig.refresh(url);
+            assertEquals(Map.of("2", "二", "3", "三"), Dict.getKeysMap("deltaA"));
+            assertNull(Dict.getAll().get("deltaB"));
+            assertEquals(2L, DictHttpRefreshConfig.lastVersion);
+            assertEquals("v2", DictHttpRefreshConfig.lastETag);
+
+            // 第三次: 远端未变化, 返回304
+            long version = DictSnapshot.current().getVersion();
+            DictHttpRefreshConfig.refresh(url);
+            assertEquals(1, notModifiedCount.get());
+            assertEquals(3, requestCount.get());
+            assertEquals(version, DictSnapshot.current().getVersion());
+
+            // 第四次: 重新部署后内容一致, 记录新的ETag; 第五次得到304
+            redeployed.set(true);
+            DictHttpRefreshConfig.refresh(url);
+            assertEquals("v3", DictHttpRefreshConfig.lastETag);
+            assertEquals(version, DictSnapshot.current().getVersion());
+            DictHttpRefreshConfig.refresh(url);
+            assertEquals(2, notModifiedCount.get());
+            assertEquals(5, requestCount.get());
+        } finally {
+            server.stop(0);
+            DictHttpRefreshConfig.lastMD5 = "md5";
+            DictHttpRefreshConfig.lastETag = null;
+            DictHttpRefreshConfig.lastVersion = null;
+            DictHttpRefreshConfig.codeVersions.clear();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package cn.creekmoon.dict;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
+import com.alibaba.fastjson2.JSONWriter;
+import com.alibaba.fastjson2.annotation.JSONType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DictJSONWriterFilterTest {
+
+    @Test
+    void jsonWriterFilterTest() {
+        Dict.setGlobalBusinessPackageNames("cn.creekmoon.dict");
+        Dict.addDictMap(Map.of("writerStatus", Map.of("1", "启用", "2", "禁用"), "writerType", Map.of("A", "空运")));
+
+        WriterOrder order = new WriterOrder();
+        order.items.add(new WriterItem("1"));
+        order.items.add(new WriterItem("2"));
+        order.items.add(null);
+
+        // 原来的方式: 通过 getDict() 构建JSONObject再序列化
+        String expected = JSON.toJSONString(order);
+        String actual = DictJSONWriterFilter.toJSONString(order);
+        System.out.println(expected);
+        System.out.println(actual);
+        assertEquals(JSON.parseObject(expected), JSON.parseObject(actual));
+
+        JSONObject dict = JSON.parseObject(actual).getJSONObject("dict");
+        assertEquals("启用", dict.getString("status"));
+        assertEquals("9", dict.getString("missing"));
+        assertFalse(dict.containsKey("nullStatus"));
+        assertEquals("禁用", dict.getJSONObject("item").getString("status"));
+        assertEquals(List.of("空运", "B"), dict.getJSONArray("types"));
+        assertEquals("禁用", dict.getJSONArray("items").getJSONObject(1).getString("status"));
+        assertEquals("启用", JSON.parseObject(actual).getJSONArray("items").getJSONObject(0).getJSONObject("dict").getString("status"));
+
+        // 输出null值
+        String withNulls = DictJSONWriterFilter.toJSONString(order, JSONWriter.Feature.WriteNulls);
+        assertEquals(JSON.parseObject(JSON.toJSONString(order, JSONWriter.Feature.WriteNulls)), JSON.parseObject(withNulls));
+        assertTrue(JSON.parseObject(withNulls).getJSONObject("dict").containsKey("nullStatus"));
+
+        // 批量序列化
+        List<WriterItem> items = List.of(new WriterItem("1"), new WriterItem("2"));
+        assertEquals(JSON.parseArray(JSON.toJSONString(items)), JSON.parseArray(DictJSONWriterFilter.toJSONString(items)));
+
+        // 重写了 getDict() 的类仍然调用自己的 getDict()
+        CustomDictItem custom = new CustomDictItem();
+        int getDictCalls = CustomDictItem.getDictCalls;
+        String customJson = DictJSONWriterFilter.toJSONString(custom);
+        System.out.println(customJson);
+        assertEquals(getDictCalls + 1, CustomDictItem.getDictCalls);
+        assertEquals(JSON.parseObject(JSON.toJSONString(custom)), JSON.parseObject(customJson));
+        assertEquals("自定义", JSON.parseObject(customJson).getJSONObject("dict").getString("status"));
+
+        // 原本不会输出 dict 属性时也不输出
+        assertFalse(JSON.parseObject(DictJSONWriterFilter.toJSONString(new HiddenDictItem())).containsKey("dict"));
+        String ignored = DictJSONWriterFilter.toJSONString(new WriterItem("1"), JSONWriter.Feature.IgnoreNonFieldGetter);
+        assertEquals(JSON.parseObject(JSON.toJSONString(new WriterItem("1"), JSONWriter.Feature.IgnoreNonFieldGetter)), JSON.parseObject(ignored));
+        assertFalse(JSON.parseObject(ignored).containsKey("dict"));
+    }
+
+    public static class WriterOrder implements Dict {
+
+        @DictMapping(dictCode = "writerStatus")
+        private String status = "1";
+
+        @DictMapping(dictCode = "writerStatus")
+        private String missing = "9";
+
+        @DictMapping(dictCode = "writerStatus")
+        private String nullStatus;
+
+        @DictMapping(dictCode = "writerType")
+        private List<String> types = List.of("A", "B");
+
+        private WriterItem item = new WriterItem("2");
+
+        private List<WriterItem> items = new ArrayList<>();
+
+        public String getStatus() {
+            return status;
+        }
+
+        public String getMissing() {
+            return missing;
+        }
+
+        public String getNullStatus() {
+            return nullStatus;
+        }
+
+        public List<String> getTypes() {
+            return types;
+        }
+
+        public WriterItem getItem() {
+            return item;
+        }
+
+        public List<WriterItem> getItems() {
+            return items;
+        }
+    }
+
+    public static class WriterItem implements Dict {
+
+        @DictMapping(dictCode = "writerStatus")
+        private String status;
+
+        WriterItem(String status) {
+            this.status = status;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+    }
+
+    public static class CustomDictItem implements Dict {
+
+        static int getDictCalls = 0;
+
+        @DictMapping(dictCode = "writerStatus")
+        private String status = "1";
+
+        public String getStatus() {
+            return status;
+        }
+
+        @Override
+        public JSONObject getDict() {
+            getDictCalls++;
+            JSONObject dict = new JSONObject();
+            dict.put("status", "自定义");
+            return dict;
+        }
+    }
+
+    @JSONType(ignores = "dict")
+    public static class HiddenDictItem implements Dict {
+
+        @DictMapping(dictCode = "writerStatus")
+        private String status = "1";
+
+        public String getStatus() {
+            return status;
+        }
+    }
+}
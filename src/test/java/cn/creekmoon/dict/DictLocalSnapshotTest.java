@@ -0,0 +1,105 @@
+package cn.creekmoon.dict;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DictLocalSnapshotTest {
+
+    @Test
+    void localSnapshotTest(@TempDir Path tempDir) throws Exception {
+        // 编解码
+        Map<String, Map<String, String>> dictMap = new HashMap<>();
+        Map<String, String> entries = new HashMap<>();
+        entries.put("1", "启用");
+        entries.put("2", null);
+        entries.put("长key".repeat(100), "值");
+        dictMap.put("localCodec", entries);
+        byte[] bytes = DictBinaryCodec.encode(dictMap, Map.of("etag", "v1"));
+        DictBinaryCodec.Payload payload = DictBinaryCodec.decode(ByteBuffer.wrap(bytes));
+        assertEquals(dictMap, payload.dictMap());
+        assertEquals("v1", payload.meta().get("etag"));
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+        assertEquals(dictMap, DictBinaryCodec.decode(direct).dictMap());
+        bytes[bytes.length / 2] ^= 1;
+        assertThrows(RuntimeException.class, () -> DictBinaryCodec.decode(ByteBuffer.wrap(bytes)));
+
+        // 启动时加载  只补充还没有的字典类型
+        Dict.addDictMap(Map.of("localLive", Map.of("1", "远端")));
+        Path file = tempDir.resolve("dict/snapshot.bin");
+        Files.createDirectories(file.getParent());
+        Files.write(file, DictBinaryCodec.encode(Map.of("localOnly", Map.of("1", "本地"), "localLive", Map.of("1", "旧值")), Map.of()));
+        assertTrue(DictLocalSnapshot.load(file));
+        assertEquals("本地", Dict.searchDictValue("localOnly", "1"));
+        assertEquals("远端", Dict.searchDictValue("localLive", "1"));
+
+        // 损坏的文件不影响使用
+        Path broken = tempDir.resolve("broken.bin");
+        Files.write(broken, "not a snapshot".getBytes(StandardCharsets.UTF_8));
+        assertFalse(DictLocalSnapshot.load(broken));
+        assertFalse(DictLocalSnapshot.load(tempDir.resolve("missing.bin")));
+
+        // 刷新成功后保存
+        String body = "{\"localRefreshed\":{\"1\":\"刷新\"}}";
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/dict", exchange -> {
+            byte[] response = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("ETag", "local-v1");
+            exchange.sendResponseHeaders(200, response.length);
+            exchange.getResponseBody().write(response);
+            exchange.close();
+        });
+        server.start();
+        Path savedFile = tempDir.resolve("saved/snapshot.bin");
+        try {
+            assertFalse(DictLocalSnapshot.enable(savedFile));
+            DictHttpRefreshConfig.lastETag = null;
+            DictHttpRefreshConfig.lastVersion = null;
+            DictHttpRefreshConfig.refresh("http://127.0.0.1:" + server.getAddress().getPort() + "/dict");
+        } finally {
+            server.stop(0);
+            DictLocalSnapshot.disable();
+        }
+        assertTrue(Files.exists(savedFile));
+        DictBinaryCodec.Payload saved = DictBinaryCodec.decode(ByteBuffer.wrap(Files.readAllBytes(savedFile)));
+        System.out.println("saved meta = " + saved.meta() + ", size = " + Files.size(savedFile));
+        assertEquals("刷新", saved.dictMap().get("localRefreshed").get("1"));
+        assertEquals("本地", saved.dictMap().get("localOnly").get("1"));
+        assertEquals("local-v1", saved.meta().get(DictLocalSnapshot.META_ETAG));
+
+        // 多个线程同时保存  每次都成功, 文件完整, 不留下临时文件
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                futures.add(executor.submit(() -> DictLocalSnapshot.save(savedFile)));
+            }
+            for (Future<Boolean> future : futures) {
+                assertTrue(future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals("刷新", DictBinaryCodec.decode(ByteBuffer.wrap(Files.readAllBytes(savedFile))).dictMap().get("localRefreshed").get("1"));
+        try (Stream<Path> files = Files.list(savedFile.getParent())) {
+            assertEquals(List.of(savedFile), files.collect(Collectors.toList()));
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package cn.creekmoon.dict;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DictMappedStoreTest {
+
+    @Test
+    void mappedStoreTest(@TempDir Path tempDir) throws Exception {
+        Dict.setGlobalBusinessPackageNames("cn.creekmoon.dict");
+        Map<String, String> regions = new HashMap<>();
+        for (int i = 0; i < 5000; i++) {
+            regions.put(String.valueOf(100000 + i), "地区" + i);
+        }
+        regions.put("dup1", "重复");
+        regions.put("dup2", "重复");
+        regions.put("ascii", "plain");
+        regions.put("nullValue", null);
+
+        // 生成文件后映射
+        Path file = tempDir.resolve("shared/regions.dict");
+        DictMappedStore.write(Map.of("mappedRegion", regions), file);
+        assertEquals(1, DictMappedStore.load(file).size());
+        assertTrue(DictSnapshot.current().getTable("mappedRegion") instanceof DictMappedTable);
+
+        assertEquals("地区0", Dict.searchDictValue("mappedRegion", "100000"));
+        assertEquals("地区4999", Dict.searchDictValue("mappedRegion", 104999L));
+        assertEquals("地区1", Dict.searchDictValueOrSelf("mappedRegion", 100001));
+        assertEquals("999", Dict.searchDictValueOrSelf("mappedRegion", 999));
+        assertEquals("plain", Dict.searchDictValue("mappedRegion", "ascii"));
+        assertNull(Dict.searchDictValue("mappedRegion", "nullValue"));
+        assertNull(Dict.searchDictValue("mappedRegion", "asci"));
+        assertEquals("100002", Dict.searchDictKey("mappedRegion", "地区2"));
+        assertEquals("ascii", Dict.searchDictKey("mappedRegion", "plain"));
+        List<String> keys = DictSnapshot.current().getKeys("mappedRegion", "重复");
+        assertEquals(2, keys.size());
+        assertTrue(keys.containsAll(List.of("dup1", "dup2")));
+        assertNull(DictSnapshot.current().getKeys("mappedRegion", "不存在"));
+        // 遍历结果与原始数据一致
+        assertEquals(regions, new HashMap<>(Dict.getKeysMap("mappedRegion")));
+        assertEquals(List.of("100003"), DictSnapshot.current().getReverseMap().get("mappedRegion").get("地区3"));
+
+        // 多值翻译
+        MappedObject object = new MappedObject();
+        object.fillSelf();
+        assertEquals("地区0,地区1,999", object.getRegions());
+
+        // 自动转存: 达到阈值的字典类型保存到堆外, 其他仍在堆内
+        // 已经退出的进程留下的文件在开启时清理
+        Path offHeapDirectory = Files.createDirectories(tempDir.resolve("offheap"));
+        Path stale = Files.write(offHeapDirectory.resolve("offHeapRegion-0-" + Long.MAX_VALUE + "-1.dict"), new byte[]{1});
+        DictMappedStore.enable(offHeapDirectory, 1000);
+        assertFalse(Files.exists(stale));
+        try {
+            Dict.addDictMap(Map.of("offHeapRegion", regions, "onHeapSmall", Map.of("1", "小")));
+            assertTrue(DictSnapshot.current().getTable("offHeapRegion") instanceof DictMappedTable);
+            assertTrue(DictSnapshot.current().getTable("onHeapSmall") instanceof DictHeapTable);
+            assertEquals("地区10", Dict.searchDictValue("offHeapRegion", "100010"));
+            // 再次更新时替换文件
+            Dict.addDictMap(Map.of("offHeapRegion", regions));
+            assertEquals("地区11", Dict.searchDictValue("offHeapRegion", "100011"));
+            // 被替换的文件已删除, 目录中只剩当前的文件
+            try (Stream<Path> files = Files.list(offHeapDirectory)) {
+                assertEquals(1, files.count());
+            }
+            // 不同引擎转存同一个字典类型, 替换时只删除自己的旧文件
+            offloadInEngines(regions, offHeapDirectory);
+        } finally {
+            DictMappedStore.disable();
+        }
+        Dict.addDictMap(Map.of("offHeapRegion", Map.of("1", "回到堆内")));
+        assertTrue(DictSnapshot.current().getTable("offHeapRegion") instanceof DictHeapTable);
+        // 回到堆内后文件在映射不再被引用时删除
+        for (int i = 0; i < 50 && countFiles(offHeapDirectory) > 0; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        System.out.println("remaining offheap files = " + countFiles(offHeapDirectory));
+        assertEquals(0, countFiles(offHeapDirectory));
+    }
+
+    /**
+     * 引擎只在这个方法中使用, 返回后引擎的字典不再被引用
+     */
+    private static void offloadInEngines(Map<String, String> regions, Path offHeapDirectory) throws IOException {
+        DictEngine engineA = new DictEngine("mappedA");
+        DictEngine engineB = new DictEngine("mappedB");
+        engineA.addDictMap(Map.of("offHeapRegion", regions));
+        engineB.addDictMap(Map.of("offHeapRegion", regions));
+        assertEquals(3, countFiles(offHeapDirectory));
+        engineB.addDictMap(Map.of("offHeapRegion", regions));
+        assertEquals(3, countFiles(offHeapDirectory));
+        assertEquals("地区12", engineA.searchDictValue("offHeapRegion", "100012"));
+        assertEquals("地区12", engineB.searchDictValue("offHeapRegion", "100012"));
+        engineA.close();
+        engineB.close();
+    }
+
+    private static long countFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    public static class MappedObject implements Dict {
+
+        @DictMapping(dictCode = "mappedRegion")
+        String regions = "100000,100001,999";
+
+        public String getRegions() {
+            return regions;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package cn.creekmoon.dict;
+
+import com.sun.net.httpserver.HttpServer;
+import lombok.Data;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DictMetricsTest {
+
+    @Test
+    void metricsTest() throws Exception {
+        Dict.setGlobalBusinessPackageNames("cn.creekmoon.dict");
+        Map<String, Map<String, String>> dictMap = new HashMap<>();
+        dictMap.put("metricsStatus", Map.of("1", "启用", "2", "停用"));
+        Dict.addDictMap(dictMap);
+
+        // 默认关闭
+        assertSame(DictMetrics.NOOP, DictMetricsConfig.getMetrics());
+
+        DictCounterMetrics metrics = new DictCounterMetrics(true);
+        DictMetricsConfig.enable(metrics);
+        try {
+            MetricsObject object = new MetricsObject();
+            Dict.getDict(object);
+            Dict.fillSelf(new MetricsObject());
+            Dict.translateAll(List.of(new MetricsObject(), new MetricsObject()), MetricsObject.class);
+
+            // 单值: 1命中 3未命中; 多值: 1,2命中 3未命中
+            DictCounterMetrics.LookupStats lookup = metrics.getLookup("metricsStatus");
+            System.out.println("hits = " + lookup.getHits() + ", misses = " + lookup.getMisses());
+            assertTrue(lookup.getHits() >= 3);
+            assertTrue(lookup.getMisses() >= 2);
+            // 批量翻译时第二行的值取自同列去重, 没有查找字典, 单独计数
+            assertTrue(lookup.getCached() >= 3);
+
+            // 结果缓存命中时记录取自缓存的翻译
+            DictResultCacheConfig.enable(100, Long.MAX_VALUE);
+            try {
+                Dict.getDict(new MetricsObject());
+                Dict.getDict(new MetricsObject());
+            } finally {
+                DictResultCacheConfig.disable();
+            }
+            assertEquals(1, metrics.getCachedTranslations(MetricsObject.class));
+
+            DictCounterMetrics.TimerStats translation = metrics.getTranslation(MetricsObject.class);
+            assertEquals(5, translation.getCalls());
+            assertEquals(6, translation.getCount());
+            assertTrue(translation.getMaxNanos() > 0);
+            assertTrue(translation.getQuantileNanos(0.99) >= translation.getQuantileNanos(0.5));
+
+            // 刷新  成功一次, 失败一次
+            String body = "{\"metricsStatus\":{\"1\":\"启用\",\"2\":\"停用\",\"3\":\"注销\"}}";
+            HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/dict", exchange -> {
+                byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, bytes.length);
+                exchange.getResponseBody().write(bytes);
+                exchange.close();
+            });
+            server.createContext("/error", exchange -> {
+                exchange.sendResponseHeaders(500, -1);
+                exchange.close();
+            });
+            server.start();
+            try {
+                String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+                DictHttpRefreshConfig.lastETag = null;
+                DictHttpRefreshConfig.lastVersion = null;
+                DictHttpRefreshConfig.refresh(baseUrl + "/dict");
+                DictHttpRefreshConfig.refresh(baseUrl + "/error");
+            } finally {
+                server.stop(0);
+            }
+            assertEquals("注销", Dict.searchDictValue("metricsStatus", "3"));
+            assertEquals(2, metrics.getRefreshes().getCalls());
+            assertEquals(1, metrics.getRefreshFailures());
+            assertEquals(body.getBytes(StandardCharsets.UTF_8).length, metrics.getLastRefreshPayloadBytes());
+            assertTrue(metrics.getLastRefreshSuccessTime() > 0);
+        } finally {
+            DictMetricsConfig.disable();
+        }
+
+        // 关闭后不再记录
+        long calls = metrics.getTranslation(MetricsObject.class).getCalls();
+        Dict.getDict(new MetricsObject());
+        assertEquals(calls, metrics.getTranslation(MetricsObject.class).getCalls());
+    }
+
+    @Data
+    public static class MetricsObject implements Dict {
+
+        @DictMapping(dictCode = "metricsStatus")
+        String status = "1";
+
+        @DictMapping(dictCode = "metricsStatus")
+        Integer missing = 3;
+
+        @DictMapping(dictCode = "metricsStatus")
+        String multi = "1,2,3";
+    }
+}
@@ -0,0 +1,44 @@
+package cn.creekmoon.dict;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DictNumericIndexTest {
+
+    @Test
+    void numericKeyTest() {
+        Map<String, Map<String, String>> dictMap = new HashMap<>();
+        // 连续的小整数 -> 数组索引
+        dictMap.put("numDense", Map.of("0", "待处理", "1", "处理中", "2", "已完成", "-1", "已取消"));
+        // 稀疏的整数 -> 数字哈希表
+        dictMap.put("numSparse", Map.of("10000", "一万", "0", "零", "9000000000", "九十亿"));
+        // 非规范写法 -> 不建立数字索引, 按字符串查找
+        dictMap.put("numMixed", Map.of("01", "零一", "1", "一", "A", "甲"));
+        Dict.addDictMap(dictMap);
+
+        assertNotNull(DictNumericIndex.build(Map.of("0", "a", "5", "b")));
+        assertNull(DictNumericIndex.build(Map.of("01", "a")));
+        assertNull(DictNumericIndex.build(Map.of("+1", "a")));
+        assertNull(DictNumericIndex.build(Map.of("-0", "a")));
+
+        assertEquals("处理中", Dict.searchDictValue("numDense", 1));
+        assertEquals("已取消", Dict.searchDictValue("numDense", -1L));
+        assertNull(Dict.searchDictValue("numDense", 3));
+        assertEquals("一万", Dict.searchDictValue("numSparse", 10000));
+        assertEquals("九十亿", Dict.searchDictValue("numSparse", 9000000000L));
+        assertEquals("零", Dict.searchDictValue("numSparse", 0));
+        assertNull(Dict.searchDictValue("numSparse", 1));
+        assertEquals("一", Dict.searchDictValue("numMixed", 1));
+        assertNull(Dict.searchDictValue("numNotExists", 1));
+
+        // Integer/Long字段走数字查找, 找不到时返回原值
+        assertEquals("已完成", Dict.searchDictValueOrSelf("numDense", 2));
+        assertEquals("5", Dict.searchDictValueOrSelf("numDense", 5L));
+        assertEquals("已完成", DefaultDictFieldTranslator.translate("numDense", "", 2));
+        assertEquals("已完成啦", DefaultDictFieldTranslator.translate("numDense", "啦", 2L));
+    }
+}
@@ -0,0 +1,105 @@
+package cn.creekmoon.dict;
+
+import com.alibaba.fastjson2.JSONObject;
+import lombok.Data;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DictParallelConfigTest {
+
+    @Test
+    void parallelTest() {
+        Dict.setGlobalBusinessPackageNames("cn.creekmoon.dict");
+        Map<String, Map<String, String>> dictMap = new HashMap<>();
+        dictMap.put("parallelStatus", Map.of("0", "待处理", "1", "处理中", "2", "已完成"));
+        Dict.addDictMap(dictMap);
+
+        // 先顺序翻译得到期望结果
+        List<JSONObject> expected = new ArrayList<>();
+        for (ParallelOrder order : orders(2000)) {
+            expected.add(Dict.getDict(order));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // ForkJoinPool模式  顶层集合和嵌套集合都会拆分
+            DictParallelConfig.enable(pool, 16);
+            assertTrue(DictParallelConfig.isEnabled());
+            verify(expected);
+
+            // Executor模式  线程池只有2个线程, 嵌套集合不会再提交, 不会互相等待
+            DictParallelConfig.enable(executor, 16);
+            verify(expected);
+
+            assertThrows(RuntimeException.class, () -> DictParallelConfig.enable(pool, 0));
+        } finally {
+            DictParallelConfig.disable();
+            pool.shutdown();
+            executor.shutdown();
+        }
+        assertFalse(DictParallelConfig.isEnabled());
+    }
+
+    private void verify(List<JSONObject> expected) {
+        List<ParallelOrder> orders = orders(2000);
+        assertEquals(expected, Dict.translateAll(orders, ParallelOrder.class));
+        for (int i = 0; i < orders.size(); i++) {
+            assertEquals(expected.get(i), Dict.getDict(orders.get(i)));
+        }
+
+        Dict.fillSelf(orders);
+        for (int i = 0; i < orders.size(); i++) {
+            ParallelOrder order = orders.get(i);
+            assertEquals(expected.get(i).getString("status"), order.getStatus());
+            for (int j = 0; j < order.getItems().size(); j++) {
+                assertEquals(expected.get(i).getJSONArray("items").getJSONObject(j).getString("status"), order.getItems().get(j).getStatus());
+            }
+        }
+
+        List<ParallelOrder> batchOrders = orders(2000);
+        Dict.fillAll(batchOrders, ParallelOrder.class);
+        assertEquals(orders, batchOrders);
+        System.out.println("order[1] = " + batchOrders.get(1));
+    }
+
+    private static List<ParallelOrder> orders(int size) {
+        List<ParallelOrder> orders = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            ParallelOrder order = new ParallelOrder();
+            order.setStatus(String.valueOf(i % 4));
+            for (int j = 0; j < 40; j++) {
+                ParallelItem item = new ParallelItem();
+                item.setStatus(String.valueOf((i + j) % 3));
+                order.getItems().add(item);
+            }
+            orders.add(order);
+        }
+        return orders;
+    }
+
+    @Data
+    public static class ParallelOrder implements Dict {
+
+        @DictMapping(dictCode = "parallelStatus")
+        String status;
+
+        List<ParallelItem> items = new ArrayList<>();
+    }
+
+    @Data
+    public static class ParallelItem implements Dict {
+
+        @DictMapping(dictCode = "parallelStatus")
+        String status;
+    }
+}
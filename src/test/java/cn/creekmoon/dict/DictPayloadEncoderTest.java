@@ -0,0 +1,139 @@
+package cn.creekmoon.dict;
+
+import com.alibaba.fastjson2.JSON;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DictPayloadEncoderTest {
+
+    @Test
+    void compressedBinaryRefreshTest() throws Exception {
+        Map<String, Map<String, String>> dictMap = new HashMap<>();
+        for (int i = 0; i < 50; i++) {
+            Map<String, String> entries = new HashMap<>();
+            entries.put("1", "启用");
+            entries.put("0", "禁用");
+            entries.put("9", null);
+            dictMap.put("encoderCode" + i, entries);
+        }
+
+        // 相同的字典值只写一次, 解码后共用同一个实例
+        byte[] binary = DictBinaryCodec.encode(dictMap, Map.of());
+        byte[] json = JSON.toJSONBytes(dictMap);
+        System.out.println("binary = " + binary.length + ", json = " + json.length);
+        assertTrue(binary.length < json.length);
+        Map<String, Map<String, String>> decoded = DictBinaryCodec.decode(ByteBuffer.wrap(binary)).dictMap();
+        assertEquals(dictMap, decoded);
+        assertSame(decoded.get("encoderCode1").get("1"), decoded.get("encoderCode2").get("1"));
+        // 版本1的数据仍然可以读取
+        assertEquals(Map.of("v1Code", Map.of("1", "旧格式")), DictBinaryCodec.decode(ByteBuffer.wrap(formatVersion1())).dictMap());
+
+        // 按请求头选择格式和压缩方式
+        DictPayloadEncoder.Encoded plain = DictPayloadEncoder.encode(dictMap, null, null);
+        assertEquals(DictPayloadEncoder.JSON_CONTENT_TYPE, plain.contentType());
+        assertNull(plain.contentEncoding());
+        DictPayloadEncoder.Encoded gzip = DictPayloadEncoder.encode(dictMap, DictPayloadReader.ACCEPT, "gzip, deflate");
+        assertEquals(DictBinaryCodec.CONTENT_TYPE, gzip.contentType());
+        assertEquals("gzip", gzip.contentEncoding());
+        assertArrayEquals(binary, new GZIPInputStream(new ByteArrayInputStream(gzip.body())).readAllBytes());
+        assertTrue(gzip.matches(gzip.eTag()));
+        assertFalse(gzip.matches(plain.eTag()));
+        // 按名称和q值协商, 不做子串匹配, q=0表示不接受
+        DictPayloadEncoder.Encoded refused = DictPayloadEncoder.encode(dictMap, DictBinaryCodec.CONTENT_TYPE + ";q=0, application/json", "gzip;q=0, identity");
+        assertEquals(DictPayloadEncoder.JSON_CONTENT_TYPE, refused.contentType());
+        assertNull(refused.contentEncoding());
+        assertFalse(DictPayloadEncoder.accepts("x-gzip-like", "gzip"));
+        assertFalse(DictPayloadEncoder.accepts(DictBinaryCodec.CONTENT_TYPE + "-v2", DictBinaryCodec.CONTENT_TYPE));
+        assertTrue(DictPayloadEncoder.accepts("deflate, GZIP ; q=0.5", "gzip"));
+        assertFalse(DictPayloadEncoder.accepts("gzip;q=0.000", "gzip"));
+        assertFalse(DictPayloadEncoder.accepts("gzip;q=abc", "gzip"));
+
+        // 刷新时协商  服务端使用编码工具
+        List<String> acceptEncodings = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger notModified = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/dict", exchange -> {
+            acceptEncodings.add(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+            DictPayloadEncoder.Encoded encoded = DictPayloadEncoder.encode(dictMap,
+                    exchange.getRequestHeaders().getFirst("Accept"), exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+            exchange.getResponseHeaders().add("ETag", encoded.eTag());
+            if (encoded.matches(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModified.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            exchange.getResponseHeaders().add("Content-Type", encoded.contentType());
+            exchange.getResponseHeaders().add("Content-Encoding", encoded.contentEncoding());
+            exchange.sendResponseHeaders(200, encoded.body().length);
+            exchange.getResponseBody().write(encoded.body());
+            exchange.close();
+        });
+        server.start();
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/dict";
+        try {
+            DictHttpRefreshConfig.lastMD5 = "md5";
+            DictHttpRefreshConfig.lastETag = null;
+            DictHttpRefreshConfig.lastVersion = null;
+            assertTrue(DictHttpRefreshConfig.refresh(url));
+            assertEquals("禁用", Dict.searchDictValue("encoderCode7", "0"));
+            assertEquals(DictPayloadReader.ACCEPT_ENCODING, acceptEncodings.get(0));
+            assertTrue(acceptEncodings.get(0).contains("gzip"));
+            // 第二次请求带上ETag, 返回304
+            assertTrue(DictHttpRefreshConfig.refresh(url));
+            assertEquals(1, notModified.get());
+
+            // 多来源加载的HTTP来源同样支持
+            DictSource source = DictSource.http("encoder", url, 60L);
+            assertEquals(dictMap, source.load());
+            // 写入成功前不记录ETag, 再次加载仍然返回全部字典
+            assertEquals(dictMap, source.load());
+            source.merged();
+            assertNull(source.load());
+        } finally {
+            server.stop(0);
+            DictHttpRefreshConfig.lastMD5 = "md5";
+            DictHttpRefreshConfig.lastETag = null;
+        }
+    }
+
+    /**
+     * 按版本1的格式手动编码  字典值不去重
+     */
+    private static byte[] formatVersion1() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(DictBinaryCodec.MAGIC);
+        data.writeByte(1);
+        // 元数据0个, 字典类型1个, 字典项1个
+        data.writeByte(0);
+        data.writeByte(1);
+        writeString(data, "v1Code");
+        data.writeByte(1);
+        writeString(data, "1");
+        writeString(data, "旧格式");
+        CRC32 crc = new CRC32();
+        crc.update(out.toByteArray());
+        data.writeInt((int) crc.getValue());
+        return out.toByteArray();
+    }
+
+    private static void writeString(DataOutputStream data, String value) throws Exception {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        data.writeByte(bytes.length + 1);
+        data.write(bytes);
+    }
+}
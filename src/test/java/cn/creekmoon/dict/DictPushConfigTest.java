@@ -0,0 +1,188 @@
+package cn.creekmoon.dict;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DictPushConfigTest {
+
+    private static final String CLOSE = "CLOSE";
+
+    @Test
+    void pushTest() throws Exception {
+        AtomicInteger polls = new AtomicInteger();
+        AtomicReference<String> pollBody = new AtomicReference<>("{\"pushCode\":{\"1\":\"轮询\"}}");
+        AtomicInteger sseConnections = new AtomicInteger();
+        AtomicInteger longPolls = new AtomicInteger();
+        BlockingQueue<String> events = new LinkedBlockingQueue<>();
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/poll", exchange -> {
+            polls.incrementAndGet();
+            byte[] response = pollBody.get().getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, response.length);
+            exchange.getResponseBody().write(response);
+            exchange.close();
+        });
+        // SSE  从队列中取出事件写出, 收到CLOSE时断开
+        server.createContext("/sse", exchange -> {
+            sseConnections.incrementAndGet();
+            exchange.getResponseHeaders().add("Content-Type", "text/event-stream;charset=UTF-8");
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream out = exchange.getResponseBody();
+            try {
+                out.write(": ping\n\n".getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                while (true) {
+                    String event = events.poll(5, TimeUnit.SECONDS);
+                    if (event == null || CLOSE.equals(event)) {
+                        break;
+                    }
+                    out.write(event.getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                }
+            } catch (Exception e) {
+                // 客户端断开
+            } finally {
+                exchange.close();
+            }
+        });
+        // 长轮询  第一次返回变更, 之后等待一会儿返回204
+        server.createContext("/long", exchange -> {
+            if (longPolls.incrementAndGet() == 1) {
+                byte[] response = delta(2, "长轮询").getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, response.length);
+                exchange.getResponseBody().write(response);
+            } else {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                exchange.sendResponseHeaders(204, -1);
+            }
+            exchange.close();
+        });
+        // 半开连接  写出一次心跳后既不发送数据也不关闭连接
+        AtomicInteger silentConnections = new AtomicInteger();
+        CountDownLatch silentRelease = new CountDownLatch(1);
+        server.createContext("/silent", exchange -> {
+            silentConnections.incrementAndGet();
+            exchange.getResponseHeaders().add("Content-Type", "text/event-stream;charset=UTF-8");
+            exchange.sendResponseHeaders(200, 0);
+            try {
+                exchange.getResponseBody().write(": ping\n\n".getBytes(StandardCharsets.UTF_8));
+                exchange.getResponseBody().flush();
+                silentRelease.await(10, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                // 客户端断开
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+        String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        long retryMillis = DictPushConfig.retryMillis;
+        long idleTimeoutMillis = DictPushConfig.idleTimeoutMillis;
+        try {
+            DictHttpRefreshConfig.lastMD5 = "md5";
+            DictHttpRefreshConfig.lastETag = null;
+            DictHttpRefreshConfig.lastVersion = null;
+            DictHttpRefreshConfig.codeVersions.clear();
+            DictHttpRefreshConfig.enable(baseUrl + "/poll", 1L);
+            assertTrue(waitFor(() -> "轮询".equals(Dict.searchDictValue("pushCode", "1"))));
+
+            // 推送的增量立即生效
+            DictPushConfig.retryMillis = 100L;
+            DictPushConfig.enable(baseUrl + "/sse");
+            events.add("id: 1\nevent: delta\ndata: " + delta(1, "推送") + "\n\n");
+            assertTrue(waitFor(() -> "推送".equals(Dict.searchDictValue("pushCode", "1"))));
+            assertTrue(DictPushConfig.isConnected());
+            assertEquals(1L, DictHttpRefreshConfig.lastVersion);
+
+            // 连接正常时不再轮询
+            Thread.sleep(300);
+            int pollsWhileConnected = polls.get();
+            Thread.sleep(1500);
+            System.out.println("polls = " + pollsWhileConnected + " -> " + polls.get());
+            assertEquals(pollsWhileConnected, polls.get());
+
+            // 变更通知触发一次拉取
+            pollBody.set("{\"pushCode\":{\"1\":\"通知后拉取\"}}");
+            events.add("event: invalidate\ndata: {\"codes\":[\"pushCode\"]}\n\n");
+            assertTrue(waitFor(() -> "通知后拉取".equals(Dict.searchDictValue("pushCode", "1"))));
+
+            // 断开后恢复轮询并重连
+            events.add(CLOSE);
+            assertTrue(waitFor(() -> sseConnections.get() >= 2 && DictPushConfig.isConnected()));
+            assertEquals(2L, DictPushConfig.getReceivedCount());
+
+            // 长轮询
+            DictPushConfig.enable(baseUrl + "/long");
+            assertTrue(waitFor(() -> "长轮询".equals(Dict.searchDictValue("pushCode", "1"))));
+            assertTrue(waitFor(() -> longPolls.get() >= 3));
+            assertTrue(DictPushConfig.isConnected());
+
+            // 半开连接  超过空闲超时后断开, 恢复轮询并重连
+            DictPushConfig.idleTimeoutMillis = 300L;
+            DictPushConfig.enable(baseUrl + "/silent");
+            assertTrue(waitFor(DictPushConfig::isConnected));
+            assertTrue(waitFor(() -> !DictPushConfig.isConnected()));
+            int pollsBeforeIdle = polls.get();
+            assertTrue(waitFor(() -> silentConnections.get() >= 2));
+            System.out.println("silent connections = " + silentConnections.get());
+            assertTrue(waitFor(() -> polls.get() > pollsBeforeIdle));
+
+            // 比已应用版本旧的全量报文不会覆盖推送的增量
+            DictPushConfig.disable();
+            DictHttpRefreshConfig.disable();
+            DictPushConfig.apply("delta", delta(10, "新"));
+            DictPushConfig.apply("delta", "{\"format\":\"delta\",\"version\":9,\"full\":true,\"codes\":{\"pushCode\":{\"version\":9,\"entries\":{\"1\":\"旧\"}}}}");
+            assertEquals("新", Dict.searchDictValue("pushCode", "1"));
+            assertEquals(10L, DictHttpRefreshConfig.lastVersion);
+        } finally {
+            DictPushConfig.disable();
+            DictPushConfig.retryMillis = retryMillis;
+            DictPushConfig.idleTimeoutMillis = idleTimeoutMillis;
+            silentRelease.countDown();
+            DictHttpRefreshConfig.disable();
+            events.add(CLOSE);
+            server.stop(0);
+            DictHttpRefreshConfig.lastMD5 = "md5";
+            DictHttpRefreshConfig.lastETag = null;
+            DictHttpRefreshConfig.lastVersion = null;
+            DictHttpRefreshConfig.codeVersions.clear();
+        }
+        assertFalse(DictPushConfig.isConnected());
+    }
+
+    private static String delta(long version, String value) {
+        return "{\"format\":\"delta\",\"version\":" + version + ",\"codes\":{\"pushCode\":{\"version\":" + version
+                + ",\"added\":{\"1\":\"" + value + "\"}}}}";
+    }
+
+    private static boolean waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            Thread.sleep(10);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,88 @@
+package cn.creekmoon.dict;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DictRefreshSchedulerTest {
+
+    @Test
+    void singleFlightBackoffAndCircuitTest() throws Exception {
+        ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+        ExecutorService executor = Executors.newCachedThreadPool();
+        AtomicInteger calls = new AtomicInteger();
+        AtomicBoolean failing = new AtomicBoolean(false);
+        CountDownLatch release = new CountDownLatch(1);
+        // 只测试手动触发, 定时间隔设置得足够长
+        DictRefreshPolicy policy = new DictRefreshPolicy(0.2, Duration.ofMinutes(10), 3, Duration.ofMillis(300));
+        DictRefreshScheduler scheduler = new DictRefreshScheduler("test", () -> {
+            calls.incrementAndGet();
+            if (calls.get() == 1) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return !failing.get();
+        }, TimeUnit.MINUTES.toMillis(10), policy, timer, executor);
+        try {
+            // 刷新执行中的触发合并为同一次
+            CompletableFuture<Boolean> first = scheduler.trigger();
+            CompletableFuture<Boolean> second = scheduler.trigger();
+            assertSame(first, second);
+            assertTrue(scheduler.isRefreshing());
+            release.countDown();
+            assertTrue(first.get(5, TimeUnit.SECONDS));
+            assertEquals(1, calls.get());
+
+            // 连续失败达到阈值后熔断, 熔断中不会调用刷新任务
+            failing.set(true);
+            assertFalse(scheduler.trigger().join());
+            assertFalse(scheduler.trigger().join());
+            assertEquals(DictRefreshScheduler.CircuitState.CLOSED, scheduler.getCircuitState());
+            assertFalse(scheduler.trigger().join());
+            assertEquals(DictRefreshScheduler.CircuitState.OPEN, scheduler.getCircuitState());
+            assertEquals(3, scheduler.getConsecutiveFailures());
+            int before = calls.get();
+            assertFalse(scheduler.trigger().join());
+            assertEquals(before, calls.get());
+
+            // 熔断结束后的定时试探成功则恢复
+            failing.set(false);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (scheduler.getCircuitState() != DictRefreshScheduler.CircuitState.CLOSED && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+            System.out.println("calls = " + calls.get() + ", state = " + scheduler.getCircuitState());
+            assertEquals(DictRefreshScheduler.CircuitState.CLOSED, scheduler.getCircuitState());
+            assertEquals(before + 1, calls.get());
+            assertEquals(0, scheduler.getConsecutiveFailures());
+
+            // 退避间隔翻倍且不超过上限, 抖动在 ±20% 之内
+            DictRefreshScheduler backoff = new DictRefreshScheduler("backoff", () -> true, 1000L,
+                    new DictRefreshPolicy(0.2, Duration.ofSeconds(5), 3, Duration.ZERO), timer, executor);
+            assertEquals(2000L, backoff.backoffMillis(1));
+            assertEquals(4000L, backoff.backoffMillis(2));
+            assertEquals(5000L, backoff.backoffMillis(3));
+            assertEquals(5000L, backoff.backoffMillis(100));
+            for (int i = 0; i < 1000; i++) {
+                long delay = backoff.jitter(1000L);
+                assertTrue(delay >= 800L && delay <= 1200L, "delay=" + delay);
+            }
+
+            // 停止后不再刷新
+            scheduler.stop();
+            assertFalse(scheduler.trigger().join());
+            assertThrows(RuntimeException.class, () -> new DictRefreshPolicy(1.0, Duration.ZERO, 1, Duration.ZERO));
+        } finally {
+            timer.shutdownNow();
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package cn.creekmoon.dict;
+
+import com.alibaba.fastjson2.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DictResultCacheTest {
+
+    @Test
+    void resultCacheTest() {
+        Dict.setGlobalBusinessPackageNames("cn.creekmoon.dict");
+        Dict.addDictMap(Map.of("cacheWarehouseType", Map.of("1", "自营仓", "2", "三方仓")));
+        DictResultCacheConfig.enable(100);
+        try {
+            // 相同字段值的对象复用结果
+            JSONObject first = new Warehouse("1").getDict();
+            JSONObject second = new Warehouse("1").getDict();
+            assertEquals("自营仓", second.getString("type"));
+            assertEquals(first, second);
+            assertNotSame(first, second);
+            assertEquals(1, DictResultCacheConfig.getStats().hits());
+            // 返回的是副本, 修改不影响缓存
+            second.put("type", "已修改");
+            assertEquals("自营仓", new Warehouse("1").getDict().getString("type"));
+            assertEquals("三方仓", new Warehouse(2).getDict().getString("type"));
+
+            // 字典版本变化后失效
+            Dict.addDictMap(Map.of("cacheWarehouseType", Map.of("1", "直营仓")));
+            assertEquals("直营仓", new Warehouse("1").getDict().getString("type"));
+
+            // 有业务对象字段的类型不缓存, 只有其中的Warehouse命中
+            long hits = DictResultCacheConfig.getStats().hits();
+            new Carrier().getDict();
+            JSONObject carrier = new Carrier().getDict();
+            assertEquals("直营仓", carrier.getJSONObject("warehouse").getString("type"));
+            assertEquals(hits + 2, DictResultCacheConfig.getStats().hits());
+
+            // 容量上限  经常访问的结果不会被一次性访问的结果挤出
+            for (int round = 0; round < 20; round++) {
+                new Warehouse("hot").getDict();
+            }
+            for (int i = 0; i < 1000; i++) {
+                new Warehouse("cold" + i).getDict();
+            }
+            DictResultCacheConfig.Stats stats = DictResultCacheConfig.getStats();
+            System.out.println("stats = " + stats + ", hitRate = " + stats.hitRate());
+            assertTrue(stats.size() <= 100);
+            assertTrue(stats.evictions() > 0);
+            hits = stats.hits();
+            new Warehouse("hot").getDict();
+            assertEquals(hits + 1, DictResultCacheConfig.getStats().hits());
+
+            // 权重上限
+            DictResultCacheConfig.enable(1000, 100);
+            for (int i = 0; i < 100; i++) {
+                new Warehouse("weight" + i).getDict();
+            }
+            assertTrue(DictResultCacheConfig.getStats().weight() <= 100);
+            assertThrows(RuntimeException.class, () -> DictResultCacheConfig.enable(0));
+        } finally {
+            DictResultCacheConfig.disable();
+        }
+        assertNull(DictResultCacheConfig.getStats());
+    }
+
+    public static class Warehouse implements Dict {
+
+        @DictMapping(dictCode = "cacheWarehouseType")
+        Object type;
+
+        Warehouse(Object type) {
+            this.type = type;
+        }
+    }
+
+    public static class Carrier implements Dict {
+
+        @DictMapping(dictCode = "cacheWarehouseType")
+        String type = "2";
+
+        Warehouse warehouse = new Warehouse("1");
+    }
+}
@@ -0,0 +1,54 @@
+package cn.creekmoon.dict;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DictReverseIndexTest {
+
+    @Test
+    void lazyReverseIndexTest() {
+        Map<String, String> entries = new HashMap<>();
+        entries.put("1", "启用");
+        entries.put("2", "禁用");
+        entries.put("3", "启用");
+        entries.put("4", "启用");
+        entries.put("5", null);
+        Dict.addDictMap(Map.of("reverseStatus", entries, "reverseUnused", Map.of("1", "是")));
+
+        // 更新字典时不构建反向字典
+        DictHeapTable table = (DictHeapTable) DictSnapshot.current().getTable("reverseStatus");
+        assertFalse(table.isReverseBuilt());
+        assertEquals("2", Dict.searchDictKey("reverseStatus", "禁用"));
+        assertTrue(table.isReverseBuilt());
+        assertFalse(((DictHeapTable) DictSnapshot.current().getTable("reverseUnused")).isReverseBuilt());
+
+        // 没有找到时返回null
+        assertNull(Dict.searchDictKey("reverseStatus", "不存在"));
+        assertNull(Dict.searchDictKey("reverseMissingCode", "启用"));
+        // 重复的值
+        assertThrows(RuntimeException.class, () -> Dict.searchDictKey("reverseStatus", "启用"));
+        List<String> keys = DictSnapshot.current().getKeys("reverseStatus", "启用");
+        assertEquals(3, keys.size());
+        assertTrue(keys.containsAll(List.of("1", "3", "4")));
+
+        // 反向字典视图
+        Map<String, List<String>> reverse = DictSnapshot.current().getReverseMap().get("reverseStatus");
+        assertEquals(2, reverse.size());
+        assertEquals(List.of("2"), reverse.get("禁用"));
+        assertEquals(Set.of("启用", "禁用"), new HashMap<>(reverse).keySet());
+        assertThrows(UnsupportedOperationException.class, () -> keys.add("5"));
+
+        // 其他字典类型变化时反向字典保持不变, 字典类型自身变化时重新构建
+        Dict.addDictMap(Map.of("reverseUnused", Map.of("1", "否")));
+        assertSame(table, DictSnapshot.current().getTable("reverseStatus"));
+        Dict.addDictMap(Map.of("reverseStatus", Map.of("1", "启用")));
+        assertFalse(((DictHeapTable) DictSnapshot.current().getTable("reverseStatus")).isReverseBuilt());
+        assertEquals("1", Dict.searchDictKey("reverseStatus", "启用"));
+    }
+}
@@ -0,0 +1,108 @@
+package cn.creekmoon.dict;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DictReverseTranslatorTest {
+
+    @Test
+    void reverseFillAllTest() {
+        Dict.setGlobalBusinessPackageNames("cn.creekmoon.dict");
+        Dict.addDictMap(Map.of(
+                "importStatus", Map.of("1", "启用", "2", "禁用", "3", "重复", "4", "重复"),
+                "importType", Map.of("A", "空运", "B", "海运")));
+
+        // 模拟Excel导入的数据
+        List<ImportRow> rows = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            ImportRow row = new ImportRow();
+            row.status = i % 2 == 0 ? "启用" : " 禁用 ";
+            row.type = "空运(类型)";
+            row.types = "空运, 海运";
+            row.detail.status = "禁用";
+            row.items.add(new ImportDetail());
+            row.items.get(0).status = "启用";
+            rows.add(row);
+        }
+        rows.get(1).status = "未知";
+        rows.get(2).status = "重复";
+        rows.get(3).types = "空运,火车";
+        rows.get(4).status = null;
+        rows.get(5).status = "未知";
+        rows.add(null);
+
+        DictReverseReport report = Dict.reverseFillAll(rows);
+        System.out.println(report);
+        assertEquals("1", rows.get(0).status);
+        assertEquals("2", rows.get(7).status);
+        assertEquals("A", rows.get(0).type);
+        assertEquals("A,B", rows.get(0).types);
+        assertEquals("2", rows.get(0).detail.status);
+        assertEquals("1", rows.get(0).items.get(0).status);
+        assertEquals("保持原值", rows.get(0).remark);
+
+        // 失败的值保持原值, 并汇总
+        assertFalse(report.isSuccess());
+        assertEquals("未知", rows.get(1).status);
+        assertEquals("重复", rows.get(2).status);
+        assertEquals("空运,火车", rows.get(3).types);
+        assertNull(rows.get(4).status);
+        List<DictReverseReport.Issue> unmapped = report.getUnmapped();
+        assertEquals(2, unmapped.size());
+        assertEquals(new DictReverseReport.Issue(DictReverseReport.Reason.UNMAPPED, "importStatus", "status", "未知", List.of(), 2), unmapped.get(0));
+        assertEquals("火车", unmapped.get(1).label());
+        DictReverseReport.Issue ambiguous = report.getAmbiguous().get(0);
+        assertEquals(List.of("3", "4"), ambiguous.keys().stream().sorted().toList());
+        // 1000行 x 5个字段 - 失败的4个 - 空值1个
+        assertEquals(1000 * 5 - 4 - 1, report.getConverted());
+
+        // 并行处理
+        List<ImportRow> largeRows = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            ImportRow row = new ImportRow();
+            row.status = i == 19999 ? "未知" : "禁用";
+            largeRows.add(row);
+        }
+        DictParallelConfig.enable(ForkJoinPool.commonPool(), 1000);
+        try {
+            DictReverseReport parallelReport = Dict.reverseFillAll(largeRows);
+            assertEquals(20000 - 1 + 20000 * 3, parallelReport.getConverted());
+            assertEquals(1, parallelReport.getUnmapped().size());
+            assertEquals("2", largeRows.get(0).status);
+            assertEquals("未知", largeRows.get(19999).status);
+        } finally {
+            DictParallelConfig.disable();
+        }
+        assertTrue(Dict.reverseFillAll(List.of()).isSuccess());
+    }
+
+    public static class ImportRow implements Dict {
+
+        @DictMapping(dictCode = "importStatus")
+        String status;
+
+        @DictMapping(dictCode = "importType", suffix = "(类型)")
+        String type = "海运";
+
+        @DictMapping(dictCode = "importType")
+        String types = "海运";
+
+        String remark = "保持原值";
+
+        ImportDetail detail = new ImportDetail();
+
+        List<ImportDetail> items = new ArrayList<>();
+    }
+
+    public static class ImportDetail implements Dict {
+
+        @DictMapping(dictCode = "importStatus")
+        String status = "禁用";
+    }
+}
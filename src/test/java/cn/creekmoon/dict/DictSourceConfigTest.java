@@ -0,0 +1,119 @@
+package cn.creekmoon.dict;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DictSourceConfigTest {
+
+    @Test
+    void multiSourceTest() throws Exception {
+        Dict.setGlobalBusinessPackageNames("cn.creekmoon.dict");
+        CountDownLatch slowRelease = new CountDownLatch(1);
+        Map<String, Map<String, String>> base = new HashMap<>();
+        base.put("sourceStatus", Map.of("1", "启用", "2", "禁用"));
+        base.put("sourceType", Map.of("A", "类型A"));
+        Path file = Files.createTempFile("dict-source", ".json");
+        try {
+            // 慢的来源不会推迟其他来源
+            DictSourceConfig.register(DictSource.supplier("slow", () -> {
+                try {
+                    slowRelease.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return Map.of("sourceSlow", Map.of("1", "慢"));
+            }, 0L));
+            // 同名字典类型由先注册的base提供, 与加载完成的先后无关
+            CountDownLatch baseRelease = new CountDownLatch(1);
+            DictSourceConfig.register(DictSource.supplier("base", () -> {
+                try {
+                    baseRelease.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return base;
+            }, 3600L));
+            DictSourceConfig.register(DictSource.rows("rows", sink -> {
+                sink.accept("sourceRegion", "R1", "华东");
+                sink.accept("sourceRegion", "R2", "华南");
+                sink.accept("sourceStatus", "1", "冲突");
+            }, 3600L));
+            assertTrue(waitFor(() -> "冲突".equals(Dict.searchDictValue("sourceStatus", "1"))));
+            baseRelease.countDown();
+            assertTrue(waitFor(() -> "华南".equals(Dict.searchDictValue("sourceRegion", "R2"))
+                    && "启用".equals(Dict.searchDictValue("sourceStatus", "1"))));
+            assertNull(Dict.searchDictValue("sourceSlow", "1"));
+            slowRelease.countDown();
+            assertTrue(waitFor(() -> "慢".equals(Dict.searchDictValue("sourceSlow", "1"))));
+
+            assertTrue(DictSourceConfig.refresh("rows").join());
+            assertEquals("启用", Dict.searchDictValue("sourceStatus", "1"));
+            assertEquals("base", DictSourceConfig.getOwner("sourceStatus"));
+            assertEquals("rows", DictSourceConfig.getOwner("sourceRegion"));
+            System.out.println("owners = " + DictSourceConfig.getOwners());
+
+            // 没有变化时版本不变, 来源中消失的字典类型被删除
+            long version = DictStoreConfig.getStore().getVersion();
+            assertTrue(DictSourceConfig.refresh("base").join());
+            assertEquals(version, DictStoreConfig.getStore().getVersion());
+            base.remove("sourceType");
+            assertTrue(DictSourceConfig.refresh("base").join());
+            assertNull(DictStoreConfig.getStore().getEntries("sourceType"));
+            assertNull(DictSourceConfig.getOwner("sourceType"));
+
+            // 优先的来源不再提供时, 立即改用rows上一次加载到的字典项; 再次提供时由base接管
+            Map<String, String> status = base.remove("sourceStatus");
+            assertTrue(DictSourceConfig.refresh("base").join());
+            assertEquals("冲突", Dict.searchDictValue("sourceStatus", "1"));
+            assertEquals("rows", DictSourceConfig.getOwner("sourceStatus"));
+            base.put("sourceStatus", status);
+            assertTrue(DictSourceConfig.refresh("base").join());
+            assertEquals("启用", Dict.searchDictValue("sourceStatus", "1"));
+            assertEquals("base", DictSourceConfig.getOwner("sourceStatus"));
+
+            // 文件来源  加载失败时保留上一次的字典
+            Files.writeString(file, "{\"sourceFile\":{\"1\":\"文件\"}}", StandardCharsets.UTF_8);
+            DictSourceConfig.register(DictSource.file("file", file, 3600L));
+            assertTrue(waitFor(() -> "文件".equals(Dict.searchDictValue("sourceFile", "1"))));
+            Files.writeString(file, "[1,2]", StandardCharsets.UTF_8);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 5000));
+            assertFalse(DictSourceConfig.refresh("file").join());
+            assertEquals("文件", Dict.searchDictValue("sourceFile", "1"));
+
+            // 注销后删除该来源的字典
+            assertTrue(DictSourceConfig.unregister("rows"));
+            assertNull(DictStoreConfig.getStore().getEntries("sourceRegion"));
+            assertFalse(DictSourceConfig.refresh("rows").join());
+            assertThrows(RuntimeException.class, () -> DictSource.supplier(" ", () -> null, 1L));
+        } finally {
+            slowRelease.countDown();
+            DictSourceConfig.shutdown();
+            Files.deleteIfExists(file);
+        }
+        assertTrue(DictSourceConfig.getSourceNames().isEmpty());
+        // 停止后已加载的字典保持不变
+        assertEquals("启用", Dict.searchDictValue("sourceStatus", "1"));
+    }
+
+    private static boolean waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            Thread.sleep(10);
+        }
+        return false;
+    }
+}
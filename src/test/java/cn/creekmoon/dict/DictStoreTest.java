@@ -0,0 +1,136 @@
+package cn.creekmoon.dict;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DictStoreTest {
+
+    @Test
+    void customStoreTest() {
+        Dict.setGlobalBusinessPackageNames("cn.creekmoon.dict");
+        Dict.addDictMap(Map.of("storeStatus", Map.of("1", "默认存储")));
+        DictStore previous = DictStoreConfig.getStore();
+        assertTrue(previous instanceof DictSnapshotStore);
+        CountingStore store = new CountingStore();
+        try {
+            DictStoreConfig.setStore(store);
+            // 切换后不会迁移已有的字典
+            assertNull(Dict.searchDictValue("storeStatus", "1"));
+            assertSame(DictSnapshot.EMPTY, DictSnapshot.current());
+
+            Dict.addDictMap(Map.of("storeStatus", Map.of("1", "启用", "2", "禁用", "3", "启用")));
+            assertEquals(1, store.version);
+            assertEquals("禁用", Dict.searchDictValue("storeStatus", "2"));
+            assertEquals("启用", Dict.searchDictValue("storeStatus", 1L));
+            assertEquals("2", Dict.searchDictKey("storeStatus", "禁用"));
+            assertEquals(3, Dict.getKeysMap("storeStatus").size());
+            assertEquals("禁用", Dict.DICT_MAP.get("storeStatus").get("2"));
+            // 反向字典视图只读取访问的字典类型, 不会重建所有字典类型
+            int snapshots = store.snapshots.get();
+            assertEquals(2, Dict.DICT_MAP_REVERSE.get("storeStatus").get("启用").size());
+            assertEquals(Map.of("启用", 2, "禁用", 1), Dict.DICT_MAP_REVERSE.get("storeStatus").entrySet().stream()
+                    .collect(java.util.stream.Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().size())));
+            assertNull(Dict.DICT_MAP_REVERSE.get("notExists"));
+            assertEquals(snapshots, store.snapshots.get());
+
+            // 默认翻译器通过当前存储查找
+            StoreObject object = new StoreObject();
+            object.fillSelf();
+            assertEquals("禁用", object.status);
+            assertEquals("启用,禁用,9", object.statuses);
+
+            // 写入后版本变化, 多值翻译缓存失效
+            store.replace("storeStatus", Map.of("1", "开启", "2", "关闭"));
+            assertEquals(2, store.version);
+            StoreObject changed = new StoreObject();
+            changed.fillSelf();
+            assertEquals("开启,关闭,9", changed.statuses);
+            int lookups = store.lookups.get();
+            new StoreObject().fillSelf();
+            System.out.println("lookups = " + lookups + " -> " + store.lookups.get());
+            // 相同的多值输入命中缓存, 只有单值字段查找一次
+            assertEquals(lookups + 1, store.lookups.get());
+
+            store.replace("storeStatus", null);
+            assertNull(store.getEntries("storeStatus"));
+            assertThrows(RuntimeException.class, () -> DictStoreConfig.setStore(null));
+        } finally {
+            DictStoreConfig.setStore(previous);
+        }
+        assertEquals("默认存储", Dict.searchDictValue("storeStatus", "1"));
+    }
+
+    public static class StoreObject implements Dict {
+
+        @DictMapping(dictCode = "storeStatus")
+        String status = "2";
+
+        @DictMapping(dictCode = "storeStatus")
+        String statuses = "1,2,9";
+    }
+
+    /**
+     * 简单的写时复制存储  记录查找次数
+     */
+    static class CountingStore implements DictStore {
+
+        private volatile Map<String, Map<String, String>> data = Collections.emptyMap();
+
+        private volatile long version = 0;
+
+        private final AtomicInteger lookups = new AtomicInteger();
+
+        private final AtomicInteger snapshots = new AtomicInteger();
+
+        @Override
+        public String get(String dictCode, String dictKey) {
+            lookups.incrementAndGet();
+            Map<String, String> entries = data.get(dictCode);
+            return entries == null ? null : entries.get(dictKey);
+        }
+
+        @Override
+        public List<String> getKeys(String dictCode, String dictValue) {
+            Map<String, String> entries = data.get(dictCode);
+            if (entries == null) {
+                return null;
+            }
+            List<String> keys = new ArrayList<>();
+            entries.forEach((k, v) -> {
+                if (dictValue.equals(v)) {
+                    keys.add(k);
+                }
+            });
+            return keys.isEmpty() ? null : keys;
+        }
+
+        @Override
+        public Map<String, String> getEntries(String dictCode) {
+            return data.get(dictCode);
+        }
+
+        @Override
+        public synchronized void change(Map<String, ? extends Map<String, String>> changes, Collection<String> removedCodes) {
+            Map<String, Map<String, String>> next = new HashMap<>(data);
+            removedCodes.forEach(next::remove);
+            changes.forEach((dictCode, entries) -> next.put(dictCode, Map.copyOf(entries)));
+            data = Collections.unmodifiableMap(next);
+            version++;
+        }
+
+        @Override
+        public Map<String, Map<String, String>> snapshot() {
+            snapshots.incrementAndGet();
+            return data;
+        }
+
+        @Override
+        public long getVersion() {
+            return version;
+        }
+    }
+}
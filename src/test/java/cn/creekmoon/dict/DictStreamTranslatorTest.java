@@ -0,0 +1,81 @@
+package cn.creekmoon.dict;
+
+import com.alibaba.fastjson2.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DictStreamTranslatorTest {
+
+    @Test
+    void streamTranslateTest() {
+        Dict.setGlobalBusinessPackageNames("cn.creekmoon.dict");
+        Dict.addDictMap(Map.of("streamStatus", Map.of("0", "待发货", "1", "已发货", "2", "已签收")));
+
+        // 模拟数据库游标  记录已经读取但还没有被下游消费的数量
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger consumed = new AtomicInteger();
+        AtomicInteger maxOutstanding = new AtomicInteger();
+        AtomicBoolean closed = new AtomicBoolean();
+        Stream<StreamRow> cursor = Stream.generate(() -> new StreamRow(created.getAndIncrement())).limit(10_000).onClose(() -> closed.set(true));
+        try (Stream<StreamRow> translated = Dict.translating(cursor, 100)) {
+            translated.forEach(row -> {
+                maxOutstanding.accumulateAndGet(created.get() - consumed.incrementAndGet(), Math::max);
+                assertEquals(List.of("待发货", "已发货", "已签收").get(row.index % 3), row.status);
+                assertEquals("已发货,已签收", row.statuses);
+            });
+        }
+        System.out.println("maxOutstanding = " + maxOutstanding.get());
+        assertEquals(10_000, consumed.get());
+        assertTrue(maxOutstanding.get() < 100);
+        assertTrue(closed.get());
+
+        // 与getDict结果一致, 不可翻译的元素为null
+        List<Object> sources = List.of(new StreamRow(1), "plain", new StreamRow(2), new StreamRow(1));
+        List<JSONObject> dicts = Dict.translatingDicts(sources.stream(), 3).toList();
+        assertEquals(Dict.getDict(new StreamRow(1)), dicts.get(0));
+        assertNull(dicts.get(1));
+        assertEquals("已签收", dicts.get(2).getString("status"));
+        assertEquals(Dict.getDict(new StreamRow(1)), dicts.get(3));
+        assertEquals(dicts, Dict.translatingDicts(sources.stream(), 1).toList());
+
+        // Iterator
+        Iterator<StreamRow> iterator = Dict.translating(List.of(new StreamRow(0), new StreamRow(2)).iterator(), 10);
+        assertEquals("待发货", iterator.next().status);
+        assertEquals("已签收", iterator.next().status);
+        assertFalse(iterator.hasNext());
+
+        // 并行流
+        List<StreamRow> parallel = Dict.translating(IntStream.range(0, 20_000).parallel().mapToObj(StreamRow::new), 64).toList();
+        assertEquals(20_000, parallel.size());
+        for (int i = 0; i < parallel.size(); i++) {
+            assertEquals(i, parallel.get(i).index);
+            assertEquals(List.of("待发货", "已发货", "已签收").get(i % 3), parallel.get(i).status);
+        }
+        assertThrows(RuntimeException.class, () -> Dict.translating(Stream.of(new StreamRow(0)), 0));
+    }
+
+    public static class StreamRow implements Dict {
+
+        final int index;
+
+        @DictMapping(dictCode = "streamStatus")
+        String status;
+
+        @DictMapping(dictCode = "streamStatus")
+        String statuses = "1,2";
+
+        StreamRow(int index) {
+            this.index = index;
+            this.status = String.valueOf(index % 3);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package cn.creekmoon.dict;
+
+import com.alibaba.fastjson2.JSONObject;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+class DictTranslatorProcessorTest {
+
+    @Test
+    void generatedTranslatorTest() throws Exception {
+
+        Dict.setGlobalBusinessPackageNames("cn.creekmoon.dict");
+
+        Map<String, Map<String, String>> dictMap = new HashMap<>();
+        dictMap.put("orderStatus", Map.of("1", "已支付", "2", "已发货"));
+        dictMap.put("testDict", Map.of("1", "value"));
+        Dict.addDictMap(dictMap);
+
+        // 验证生成类存在, 并且只负责简单类型的注解字段
+        Class<?> generatedClass = Class.forName(DictGeneratedTranslator.translatorClassName(GeneratedOrder.class.getName()));
+        DictGeneratedTranslator<?> generated = (DictGeneratedTranslator<?>) generatedClass.getDeclaredConstructor().newInstance();
+        System.out.println("生成类 = " + generatedClass.getName() + ", 负责字段 = " + generated.fieldNames());
+        assertEquals(java.util.Set.of("orderStatus", "amountStatus", "multiStatus", "happy", "baseInt", "getterStatus"), generated.fieldNames());
+        // 翻译计划实际使用的是生成类
+        assertTrue(generatedClass.isInstance(DictClassPlan.of(GeneratedOrder.class).generated));
+
+        GeneratedOrder order = new GeneratedOrder();
+        JSONObject dictResult = order.getDict();
+        System.out.println("dictResult = " + dictResult);
+        assertEquals("已支付订单", dictResult.getString("orderStatus"));
+        assertEquals("已发货", dictResult.getString("amountStatus"));
+        assertEquals("已支付,已发货,3", dictResult.getString("multiStatus"));
+        assertEquals("happy", dictResult.getString("happy"));
+        assertEquals("value", dictResult.getString("baseInt"));
+        // 生成类与反射路径一样直接读取字段, 不经过自定义的getter
+        assertEquals("已支付", dictResult.getString("getterStatus"));
+        assertEquals(dictResult.getString("getterStatus"), Dict.translateAll(List.of(new GeneratedOrder()), GeneratedOrder.class).get(0).getString("getterStatus"));
+        // 业务对象和集合仍然由反射路径递归处理
+        assertEquals("value", dictResult.getJSONObject("item").getString("level"));
+        assertEquals("value", dictResult.getJSONArray("items").getJSONObject(0).getString("level"));
+
+        order.fillSelf();
+        assertEquals("已支付订单", order.getOrderStatus());
+        assertEquals(2L, order.getAmountStatus());
+        assertEquals("已支付,已发货,3", order.getMultiStatus());
+        assertEquals("已支付", order.getterStatus);
+        assertEquals("value", order.getItem().getLevel());
+        assertEquals("value", order.getItems().get(0).getLevel());
+    }
+
+
+    @Data
+    @GenerateDictTranslator
+    public static class GeneratedOrder implements Dict {
+
+        // private字段, 通过lombok的getter/setter访问
+        @DictMapping(suffix = "订单")
+        private String orderStatus = "1";
+
+        // 包可见字段, 直接访问
+        @DictMapping(dictCode = "orderStatus")
+        Long amountStatus = 2L;
+
+        @DictMapping(dictCode = "orderStatus")
+        String multiStatus = "1,2,3";
+
+        @DictMapping(fieldTranslator = DictMappingTest.HappyTranslator.class)
+        String happy = "happy";
+
+        @DictMapping(dictCode = "testDict")
+        int baseInt = 1;
+
+        // private字段并且有自定义的getter, 生成类直接读写字段, 与反射路径一致
+        @DictMapping(dictCode = "orderStatus")
+        private String getterStatus = "1";
+
+        DictMappingTest.EasyObject item = new DictMappingTest.EasyObject();
+
+        List<DictMappingTest.EasyObject> items = List.of(new DictMappingTest.EasyObject());
+
+        public String getGetterStatus() {
+            return "1".equals(getterStatus) ? "2" : getterStatus;
+        }
+    }
+}
@@ -84,6 +84,53 @@ class MultiValueDictFieldTranslatorTest {
         log.info("多值字典翻译器测试通过！");
     }
 
+    @Test
+    void multiValueScanTest() {
+        Map<String, Map<String, String>> dictMap = new HashMap<>();
+        dictMap.put("scanStatus", Map.of("1", "未开始", "2", "进行中", "3", "已完成"));
+        dictMap.put("scanTag", Map.of("A", "重要", "B", "紧急"));
+        Dict.addDictMap(dictMap);
+
+        // 与 String.split(",") + trim 的结果保持一致
+        assertEquals("未开始,进行中", DefaultDictFieldTranslator.translate("scanStatus", "", " 1 , 2 "));
+        assertEquals("未开始,进行中", DefaultDictFieldTranslator.translate("scanStatus", "", "1,2,,"));
+        assertEquals("未开始,,进行中", DefaultDictFieldTranslator.translate("scanStatus", "", "1,,2"));
+        assertEquals(",未开始", DefaultDictFieldTranslator.translate("scanStatus", "", ",1"));
+        assertEquals("", DefaultDictFieldTranslator.translate("scanStatus", "", ",,"));
+        assertEquals("01,未开始", DefaultDictFieldTranslator.translate("scanStatus", "", "01,1"));
+        assertEquals("重要标签,C标签", DefaultDictFieldTranslator.translate("scanTag", "标签", "A,C"));
+        assertEquals("x,y", DefaultDictFieldTranslator.translate("scanNotExists", "", "x,y"));
+
+        // 重复输入命中缓存, 字典变化后缓存失效
+        assertEquals("未开始,已完成", DefaultDictFieldTranslator.translate("scanStatus", "", "1,3"));
+        assertEquals("未开始,已完成", DefaultDictFieldTranslator.translate("scanStatus", "", "1,3"));
+        Dict.addDictMap(Map.of("scanStatus", Map.of("1", "待开始", "3", "已结束")));
+        assertEquals("待开始,已结束", DefaultDictFieldTranslator.translate("scanStatus", "", "1,3"));
+
+        // 容量满后按CLOCK淘汰最近没有命中的结果, 不会整体清空
+        DefaultDictFieldTranslator.MultiValueCache cache = new DefaultDictFieldTranslator.MultiValueCache(null, 0L, 3);
+        List<DefaultDictFieldTranslator.MultiValueKey> keys = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            keys.add(new DefaultDictFieldTranslator.MultiValueKey("scanStatus", "", i + ",1"));
+        }
+        cache.put(keys.get(0), "r0");
+        cache.put(keys.get(1), "r1");
+        cache.put(keys.get(2), "r2");
+        assertEquals("r0", cache.get(keys.get(0)));
+        cache.put(keys.get(3), "r3");
+        assertEquals(3, cache.size());
+        assertEquals("r0", cache.get(keys.get(0)));
+        assertNull(cache.get(keys.get(1)));
+        assertEquals("r2", cache.get(keys.get(2)));
+        // 一次性的输入很多时, 反复命中的结果仍然保留
+        for (int i = 0; i < 100; i++) {
+            assertEquals("r0", cache.get(keys.get(0)));
+            cache.put(new DefaultDictFieldTranslator.MultiValueKey("scanStatus", "", "once" + i), "once");
+        }
+        assertEquals(3, cache.size());
+        assertEquals("r0", cache.get(keys.get(0)));
+    }
+
     @Data
     public static class MultiValueTestObject implements Dict {
 